@@ -0,0 +1,136 @@
+package game.Controller;
+
+import game.Model.Armor;
+import game.Model.Bomb;
+import game.Model.Enemy;
+import game.Model.Gift;
+import game.Model.Obstacle;
+import game.Model.World;
+import java.awt.Point;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * The original line-per-field text save, kept so that {@code .txt} saves from
+ * older versions can still be loaded. New games are saved with
+ * {@link SaveFormat}.
+ */
+public class LegacySave {
+
+    public static final String EXTENSION = ".txt";
+
+    public static void write(World world, int spawnX, int spawnY, File file) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+            out.write(String.valueOf(world.score));
+            out.newLine();
+            out.write(String.valueOf(world.ammo));
+            out.newLine();
+            out.write(String.valueOf(world.getPlayer().hp));
+            out.newLine();
+            out.write(String.valueOf(world.timeLeft));
+            out.newLine();
+            out.write(spawnX + "," + spawnY);
+            out.newLine();
+            List<Enemy> enemies = world.getEnemies();
+            out.write(String.valueOf(enemies.size()));
+            out.newLine();
+            for (Enemy e : enemies) {
+                out.write(e.x + "," + e.y + "," + e.enemytype + "," + e.face + "," + e.go);
+                out.newLine();
+            }
+            List<Bomb> bombs = world.getBombs();
+            out.write(String.valueOf(bombs.size()));
+            out.newLine();
+            for (Bomb b : bombs) {
+                out.write(b.x + "," + b.y + "," + b.bombtype);
+                out.newLine();
+            }
+            List<Gift> gifts = world.getGifts();
+            out.write(String.valueOf(gifts.size()));
+            out.newLine();
+            for (Gift g : gifts) {
+                out.write(g.x + "," + g.y + "," + g.gifttype);
+                out.newLine();
+            }
+            List<Obstacle> obstacles = world.getObstacles();
+            out.write(String.valueOf(obstacles.size()));
+            out.newLine();
+            for (Obstacle o : obstacles) {
+                out.write(o.x + "," + o.y);
+                out.newLine();
+            }
+            List<Armor> armor = world.getArmor();
+            out.write(String.valueOf(armor.size()));
+            out.newLine();
+            for (Armor a : armor) {
+                out.write(a.x + "," + a.y);
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * Reads only score, ammo, hp and time left, the first four lines.
+     */
+    public static int[] readState(File file) throws IOException {
+        try (Scanner g = new Scanner(file)) {
+            int[] state = new int[4];
+            for (int i = 0; i < state.length; i++) {
+                state[i] = Integer.parseInt(g.nextLine());
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Fills the world from a text save and returns the hero's spawn point.
+     */
+    public static Point read(World world, File file) throws IOException {
+        try (Scanner g = new Scanner(file)) {
+            world.score = Integer.parseInt(g.nextLine());
+            world.ammo = Integer.parseInt(g.nextLine());
+            int hp = Integer.parseInt(g.nextLine());
+            world.timeLeft = Integer.parseInt(g.nextLine());
+            String[] contents = g.nextLine().split(",");
+            Point spawn = new Point(Integer.parseInt(contents[0]), Integer.parseInt(contents[1]));
+            world.spawnHero(spawn.x, spawn.y).hp = hp;
+
+            int count = Integer.parseInt(g.nextLine());
+            for (int i = 0; i < count; i++) {
+                contents = g.nextLine().split(",");
+                Enemy enemy = new Enemy(world, Integer.parseInt(contents[0]), Integer.parseInt(contents[1]));
+                enemy.enemytype = Integer.parseInt(contents[2]);
+                enemy.face = Integer.parseInt(contents[3]);
+                enemy.go = Integer.parseInt(contents[4]);
+                world.addEnemy(enemy);
+            }
+            count = Integer.parseInt(g.nextLine());
+            for (int i = 0; i < count; i++) {
+                contents = g.nextLine().split(",");
+                world.addBomb(new Bomb(Integer.parseInt(contents[0]), Integer.parseInt(contents[1]),
+                        Integer.parseInt(contents[2])));
+            }
+            count = Integer.parseInt(g.nextLine());
+            for (int i = 0; i < count; i++) {
+                contents = g.nextLine().split(",");
+                world.addGift(new Gift(Integer.parseInt(contents[0]), Integer.parseInt(contents[1]),
+                        Integer.parseInt(contents[2])));
+            }
+            count = Integer.parseInt(g.nextLine());
+            for (int i = 0; i < count; i++) {
+                contents = g.nextLine().split(",");
+                world.addObstacle(new Obstacle(Integer.parseInt(contents[0]), Integer.parseInt(contents[1])));
+            }
+            count = Integer.parseInt(g.nextLine());
+            for (int i = 0; i < count; i++) {
+                contents = g.nextLine().split(",");
+                world.addArmor(new Armor(Integer.parseInt(contents[0]), Integer.parseInt(contents[1])));
+            }
+            return spawn;
+        }
+    }
+}
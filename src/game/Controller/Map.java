@@ -4,7 +4,6 @@ package game.Controller;
 import game.View.Entity;
 import java.awt.Graphics2D;
 import java.awt.Image;
-import java.awt.Rectangle;
 import javax.swing.ImageIcon;
 
 
@@ -12,6 +11,7 @@ public class Map extends Entity{
     
     public Map(int x, int y) {
         super(x, y);
+        setBox(0,0,30,30);
     }
     
     public void Update (){
@@ -37,8 +37,5 @@ public class Map extends Entity{
         return ground.getImage();
     }
     
-    public Rectangle getBounds(){
-    return new Rectangle(x,y,30,30);
-    }
     
 }
@@ -0,0 +1,353 @@
+package game.Controller;
+
+import game.Model.World;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Index of all saved games, one fixed-size record per save name.
+ *
+ * The index file holds a 16-byte header followed by 72-byte records:
+ * <pre>
+ * header  int magic 'MZIX', int version, int record count, int reserved
+ * record  byte name length, 51 bytes UTF-8 name, long timestamp,
+ *         int score, int hp, int play time in seconds
+ * </pre>
+ * Only the names are kept in memory, mapped to their record slot, so adding
+ * or updating a save is one positional write and a name can never appear
+ * twice. Removing swaps the last record into the freed slot, which keeps the
+ * records dense so a list can page through them by position.
+ */
+public class SaveCatalog {
+
+    public static final String FILE = "saves.idx";
+
+    private static final Logger LOG = Logger.getLogger(SaveCatalog.class.getName());
+    private static final int MAGIC = 0x4D5A4958;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int NAME_BYTES = 51;
+    private static final int RECORD_BYTES = 72;
+
+    private static SaveCatalog shared;
+
+    /**
+     * One save as listed in the catalog.
+     */
+    public static final class Entry {
+        private final String name;
+        private final long timestamp;
+        private final int score;
+        private final int hp;
+        private final int playTime;
+
+        public Entry(String name, long timestamp, int score, int hp, int playTime) {
+            this.name = name;
+            this.timestamp = timestamp;
+            this.score = score;
+            this.hp = hp;
+            this.playTime = playTime;
+        }
+
+        public String getName() { return name; }
+        public long getTimestamp() { return timestamp; }
+        public int getScore() { return score; }
+        public int getHp() { return hp; }
+        /** Seconds played when the game was saved. */
+        public int getPlayTime() { return playTime; }
+    }
+
+    public interface Listener {
+        void catalogChanged(SaveCatalog catalog);
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private final HashMap<String, Integer> slots = new HashMap<>();
+    private final ArrayList<String> names = new ArrayList<>();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private SaveCatalog(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putInt(0).putInt(0);
+            header.flip();
+            channel.write(header, 0);
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not a save catalog: " + file);
+        }
+        int count = header.getInt(8);
+        // Names are all that stay in memory; the stats are read on demand
+        ByteBuffer all = ByteBuffer.allocate(count * RECORD_BYTES);
+        channel.read(all, HEADER_BYTES);
+        for (int i = 0; i < count; i++) {
+            String name = readName(all, i * RECORD_BYTES);
+            slots.put(name, i);
+            names.add(name);
+        }
+    }
+
+    /**
+     * Opens or creates a catalog file.
+     */
+    public static SaveCatalog open(Path file) throws IOException {
+        return new SaveCatalog(file);
+    }
+
+    /**
+     * The catalog in the working directory, where the game keeps its saves.
+     * Created on first use from the old players.txt and the saves it names.
+     */
+    public static synchronized SaveCatalog getDefault() throws IOException {
+        if (shared == null) {
+            Path file = Paths.get(FILE);
+            boolean fresh = !Files.exists(file);
+            shared = open(file);
+            if (fresh) shared.importPlayers(Paths.get("players.txt"));
+        }
+        return shared;
+    }
+
+    /**
+     * Adds the entry, or replaces the one with the same name.
+     */
+    public void upsert(Entry entry) throws IOException {
+        byte[] name = entry.getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > NAME_BYTES) {
+            throw new IllegalArgumentException("Save name too long: " + entry.getName());
+        }
+        synchronized (this) {
+            Integer slot = slots.get(entry.getName());
+            int index = slot != null ? slot : names.size();
+            record.clear();
+            record.put((byte) name.length).put(name);
+            record.position(1 + NAME_BYTES);
+            record.putLong(entry.getTimestamp()).putInt(entry.getScore()).putInt(entry.getHp())
+                    .putInt(entry.getPlayTime());
+            record.position(0).limit(RECORD_BYTES);
+            channel.write(record, offset(index));
+            if (slot == null) {
+                slots.put(entry.getName(), index);
+                names.add(entry.getName());
+                writeCount();
+            }
+        }
+        fireChanged();
+    }
+
+    public boolean remove(String name) throws IOException {
+        synchronized (this) {
+            Integer slot = slots.remove(name);
+            if (slot == null) return false;
+            int last = names.size() - 1;
+            if (slot != last) {
+                // Move the last record into the hole so the slots stay dense
+                ByteBuffer moved = ByteBuffer.allocate(RECORD_BYTES);
+                channel.read(moved, offset(last));
+                moved.flip();
+                channel.write(moved, offset(slot));
+                String movedName = names.get(last);
+                names.set(slot, movedName);
+                slots.put(movedName, slot);
+            }
+            names.remove(last);
+            writeCount();
+        }
+        fireChanged();
+        return true;
+    }
+
+    public synchronized int size() {
+        return names.size();
+    }
+
+    public synchronized boolean contains(String name) {
+        return slots.containsKey(name);
+    }
+
+    public synchronized Entry find(String name) throws IOException {
+        Integer slot = slots.get(name);
+        return slot == null ? null : page(slot, 1).get(0);
+    }
+
+    /**
+     * Reads up to {@code count} entries starting at position {@code from} with
+     * a single read.
+     */
+    public synchronized List<Entry> page(int from, int count) throws IOException {
+        int n = Math.max(0, Math.min(count, names.size() - from));
+        List<Entry> page = new ArrayList<>(n);
+        if (n == 0) return page;
+        ByteBuffer data = ByteBuffer.allocate(n * RECORD_BYTES);
+        channel.read(data, offset(from));
+        for (int i = 0; i < n; i++) {
+            int base = i * RECORD_BYTES;
+            int stats = base + 1 + NAME_BYTES;
+            page.add(new Entry(names.get(from + i), data.getLong(stats), data.getInt(stats + 8),
+                    data.getInt(stats + 12), data.getInt(stats + 16)));
+        }
+        return page;
+    }
+
+    /**
+     * Indexes the save file of the given name, reading only its summary.
+     */
+    public void refresh(String name, Path dir) throws IOException {
+        Entry entry = summarize(name, dir);
+        if (entry != null) upsert(entry);
+        else remove(name);
+    }
+
+    /**
+     * Reads the catalog entry for a save from disk, preferring the binary save
+     * over a legacy text one, or null if neither exists.
+     */
+    public static Entry summarize(String name, Path dir) throws IOException {
+        Path binary = dir.resolve(name + SaveFormat.EXTENSION);
+        if (Files.exists(binary)) {
+            int[] state = SaveFormat.readState(binary);
+            return new Entry(name, Files.getLastModifiedTime(binary).toMillis(), state[0], state[2],
+                    World.TIME_LIMIT - state[3]);
+        }
+        Path text = dir.resolve(name + LegacySave.EXTENSION);
+        if (Files.exists(text)) {
+            int[] state = LegacySave.readState(text.toFile());
+            return new Entry(name, Files.getLastModifiedTime(text).toMillis(), state[0], state[2],
+                    World.TIME_LIMIT - state[3]);
+        }
+        return null;
+    }
+
+    /**
+     * Adds every distinct name from an old players.txt that still has a save.
+     */
+    void importPlayers(Path players) {
+        if (!Files.exists(players)) return;
+        Path dir = players.toAbsolutePath().getParent();
+        try (Scanner sc = new Scanner(players.toFile())) {
+            while (sc.hasNextLine()) {
+                String name = sc.nextLine().trim();
+                if (name.isEmpty() || contains(name)) continue;
+                try {
+                    Entry entry = summarize(name, dir);
+                    if (entry != null) upsert(entry);
+                } catch (IOException | RuntimeException ex) {
+                    LOG.log(Level.WARNING, "Skipping unreadable save " + name, ex);
+                }
+            }
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Keeps the catalog in step with {@code .sav} files created, replaced or
+     * deleted in {@code dir} until the returned service is closed.
+     */
+    public WatchService watch(Path dir) throws IOException {
+        WatchService service = dir.getFileSystem().newWatchService();
+        dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = service.take();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            rescan(dir);
+                            continue;
+                        }
+                        String file = event.context().toString();
+                        if (file.endsWith(SaveFormat.EXTENSION)) {
+                            refreshQuietly(file.substring(0, file.length() - SaveFormat.EXTENSION.length()), dir);
+                        }
+                    }
+                    if (!key.reset()) return;
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Watching stopped
+            }
+        }, "save-catalog-watch");
+        thread.setDaemon(true);
+        thread.start();
+        return service;
+    }
+
+    // Events can be dropped under load; then look at every save again
+    private void rescan(Path dir) {
+        try (DirectoryStream<Path> saves = Files.newDirectoryStream(dir, "*" + SaveFormat.EXTENSION)) {
+            for (Path save : saves) {
+                String file = save.getFileName().toString();
+                refreshQuietly(file.substring(0, file.length() - SaveFormat.EXTENSION.length()), dir);
+            }
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Could not rescan " + dir, ex);
+        }
+    }
+
+    private void refreshQuietly(String name, Path dir) {
+        try {
+            refresh(name, dir);
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "Could not index save " + name, ex);
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void fireChanged() {
+        for (Listener listener : listeners) {
+            listener.catalogChanged(this);
+        }
+    }
+
+    private void writeCount() throws IOException {
+        ByteBuffer count = ByteBuffer.allocate(4).putInt(0, names.size());
+        channel.write(count, 8);
+    }
+
+    private static long offset(int slot) {
+        return HEADER_BYTES + (long) slot * RECORD_BYTES;
+    }
+
+    private static String readName(ByteBuffer data, int base) {
+        int length = data.get(base) & 0xFF;
+        byte[] bytes = new byte[length];
+        data.get(base + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,339 @@
+package game.Controller;
+
+import game.Model.Armor;
+import game.Model.Bomb;
+import game.Model.Enemy;
+import game.Model.Gift;
+import game.Model.Obstacle;
+import game.Model.World;
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Versioned binary save file.
+ *
+ * A save is a fixed header, a section table and the sections themselves, all
+ * big-endian:
+ * <pre>
+ * header   int magic 'MZSV', short version, short section count,
+ *          int CRC32C of everything after the header, int file length
+ * table    per section: int id, int offset, int length
+ * STATE    int score, ammo, hp, time left, spawn x, spawn y
+ * ENEMIES  int count, then int x, int y, byte type, byte face, byte go
+ * BOMBS    int count, then int x, int y, byte type
+ * GIFTS    int count, then int x, int y, byte type
+ * OBSTACLES, ARMOR  int count, then int x, int y
+ * </pre>
+ * Readers skip sections they do not know, so new sections can be added
+ * without a version bump; the version only changes when an existing section
+ * changes layout.
+ *
+ * An instance keeps one direct buffer and reuses it for every save and load,
+ * and each file moves through a single channel call sequence, so saving does
+ * no per-field allocation at all.
+ */
+public class SaveFormat {
+
+    public static final String EXTENSION = ".sav";
+
+    static final int MAGIC = 0x4D5A5356;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int TABLE_ENTRY_BYTES = 12;
+
+    static final int STATE = 1;
+    static final int ENEMIES = 2;
+    static final int BOMBS = 3;
+    static final int GIFTS = 4;
+    static final int OBSTACLES = 5;
+    static final int ARMOR = 6;
+    private static final int SECTIONS = 6;
+
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * Writes the world with the hero respawning at the given point.
+     */
+    public void write(World world, int spawnX, int spawnY, Path file) throws IOException {
+        write(SaveSnapshot.of(world, spawnX, spawnY), file, false);
+    }
+
+    /**
+     * Writes a snapshot; with {@code force} the data is on disk when this
+     * returns.
+     */
+    public void write(SaveSnapshot snapshot, Path file, boolean force) throws IOException {
+        encode(snapshot);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (force) {
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Fills the world from a save and returns the hero's spawn point.
+     */
+    public Point read(World world, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a save file: " + file);
+            }
+            ensureCapacity((int) size);
+            buffer.clear().limit((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Truncated save: " + file);
+                }
+            }
+            buffer.flip();
+        }
+        return decode(world);
+    }
+
+    /**
+     * Reads only score, ammo, hp and time left from a save, for listing saves
+     * without loading them. The checksum is not verified.
+     */
+    public static int[] readState(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a save file: " + file);
+            }
+            int sections = header.getShort(6);
+            if (sections < 0) {
+                throw new IOException("Corrupt save: " + file);
+            }
+            ByteBuffer table = ByteBuffer.allocate(sections * TABLE_ENTRY_BYTES);
+            readFully(channel, table, HEADER_BYTES);
+            for (int i = 0; i < sections; i++) {
+                if (table.getInt(i * TABLE_ENTRY_BYTES) == STATE) {
+                    ByteBuffer state = ByteBuffer.allocate(16);
+                    readFully(channel, state, table.getInt(i * TABLE_ENTRY_BYTES + 4));
+                    return new int[]{state.getInt(0), state.getInt(4), state.getInt(8), state.getInt(12)};
+                }
+            }
+            throw new IOException("Save has no state section: " + file);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new IOException("Truncated save");
+            }
+        }
+    }
+
+    /**
+     * Serializes a snapshot into the internal buffer, ready to be drained.
+     */
+    ByteBuffer encode(SaveSnapshot s) {
+        int enemies = s.enemies.length / 5, bombs = s.bombs.length / 3, gifts = s.gifts.length / 3;
+        int obstacles = s.obstacles.length / 2, armor = s.armor.length / 2;
+
+        int tableEnd = HEADER_BYTES + SECTIONS * TABLE_ENTRY_BYTES;
+        int size = tableEnd + 6 * 4
+                + 4 + enemies * 11
+                + 4 + bombs * 9
+                + 4 + gifts * 9
+                + 4 + obstacles * 8
+                + 4 + armor * 8;
+        ensureCapacity(size);
+        buffer.clear();
+
+        buffer.position(tableEnd);
+        int entry = HEADER_BYTES;
+        int start = buffer.position();
+        buffer.putInt(s.score).putInt(s.ammo).putInt(s.hp).putInt(s.timeLeft).putInt(s.spawnX).putInt(s.spawnY);
+        entry = tableEntry(entry, STATE, start);
+
+        start = buffer.position();
+        buffer.putInt(enemies);
+        for (int p = 0; p < s.enemies.length; p += 5) {
+            buffer.putInt(s.enemies[p]).putInt(s.enemies[p + 1])
+                    .put((byte) s.enemies[p + 2]).put((byte) s.enemies[p + 3]).put((byte) s.enemies[p + 4]);
+        }
+        entry = tableEntry(entry, ENEMIES, start);
+
+        start = buffer.position();
+        buffer.putInt(bombs);
+        for (int p = 0; p < s.bombs.length; p += 3) {
+            buffer.putInt(s.bombs[p]).putInt(s.bombs[p + 1]).put((byte) s.bombs[p + 2]);
+        }
+        entry = tableEntry(entry, BOMBS, start);
+
+        start = buffer.position();
+        buffer.putInt(gifts);
+        for (int p = 0; p < s.gifts.length; p += 3) {
+            buffer.putInt(s.gifts[p]).putInt(s.gifts[p + 1]).put((byte) s.gifts[p + 2]);
+        }
+        entry = tableEntry(entry, GIFTS, start);
+
+        start = buffer.position();
+        buffer.putInt(obstacles);
+        for (int p = 0; p < s.obstacles.length; p += 2) {
+            buffer.putInt(s.obstacles[p]).putInt(s.obstacles[p + 1]);
+        }
+        entry = tableEntry(entry, OBSTACLES, start);
+
+        start = buffer.position();
+        buffer.putInt(armor);
+        for (int p = 0; p < s.armor.length; p += 2) {
+            buffer.putInt(s.armor[p]).putInt(s.armor[p + 1]);
+        }
+        tableEntry(entry, ARMOR, start);
+
+        int end = buffer.position();
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, (short) VERSION);
+        buffer.putShort(6, (short) SECTIONS);
+        buffer.putInt(12, end);
+        buffer.putInt(8, checksum(end));
+        buffer.position(0).limit(end);
+        return buffer;
+    }
+
+    /**
+     * Parses the internal buffer, which holds a whole file, into the world.
+     */
+    Point decode(World world) throws IOException {
+        int end = buffer.limit();
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a save file");
+        }
+        int version = buffer.getShort(4);
+        if (version > VERSION) {
+            throw new IOException("Save version " + version + " is newer than " + VERSION);
+        }
+        if (buffer.getInt(12) != end) {
+            throw new IOException("Truncated save");
+        }
+        if (buffer.getInt(8) != checksum(end)) {
+            throw new IOException("Corrupt save: checksum mismatch");
+        }
+
+        int sections = buffer.getShort(6);
+        int tableEnd = HEADER_BYTES + sections * TABLE_ENTRY_BYTES;
+        if (sections < 0 || tableEnd > end) {
+            throw new IOException("Corrupt save: section table outside the file");
+        }
+        int state = -1;
+        for (int i = 0; i < sections; i++) {
+            int entry = HEADER_BYTES + i * TABLE_ENTRY_BYTES;
+            int offset = buffer.getInt(entry + 4);
+            int length = buffer.getInt(entry + 8);
+            if (offset < tableEnd || length < 0 || (long) offset + length > end) {
+                throw new IOException("Corrupt save: section outside the file");
+            }
+            if (buffer.getInt(entry) == STATE) {
+                if (length < 24) {
+                    throw new IOException("Corrupt save: state section too short");
+                }
+                state = offset;
+            }
+        }
+        if (state < 0) {
+            throw new IOException("Save has no state section");
+        }
+        world.score = buffer.getInt(state);
+        world.ammo = buffer.getInt(state + 4);
+        int hp = buffer.getInt(state + 8);
+        world.timeLeft = buffer.getInt(state + 12);
+        Point spawn = new Point(buffer.getInt(state + 16), buffer.getInt(state + 20));
+        world.spawnHero(spawn.x, spawn.y).hp = hp;
+
+        for (int i = 0; i < sections; i++) {
+            int entry = HEADER_BYTES + i * TABLE_ENTRY_BYTES;
+            // Unknown sections may be of any length, so only counted sections read a count
+            int p = buffer.getInt(entry + 4) + 4;
+            int count;
+            switch (buffer.getInt(entry)) {
+                case ENEMIES:
+                    count = records(entry, 11);
+                    for (int n = 0; n < count; n++, p += 11) {
+                        Enemy e = new Enemy(world, buffer.getInt(p), buffer.getInt(p + 4));
+                        e.enemytype = buffer.get(p + 8);
+                        e.face = buffer.get(p + 9);
+                        e.go = buffer.get(p + 10);
+                        world.addEnemy(e);
+                    }
+                    break;
+                case BOMBS:
+                    count = records(entry, 9);
+                    for (int n = 0; n < count; n++, p += 9) {
+                        world.addBomb(new Bomb(buffer.getInt(p), buffer.getInt(p + 4), buffer.get(p + 8)));
+                    }
+                    break;
+                case GIFTS:
+                    count = records(entry, 9);
+                    for (int n = 0; n < count; n++, p += 9) {
+                        world.addGift(new Gift(buffer.getInt(p), buffer.getInt(p + 4), buffer.get(p + 8)));
+                    }
+                    break;
+                case OBSTACLES:
+                    count = records(entry, 8);
+                    for (int n = 0; n < count; n++, p += 8) {
+                        world.addObstacle(new Obstacle(buffer.getInt(p), buffer.getInt(p + 4)));
+                    }
+                    break;
+                case ARMOR:
+                    count = records(entry, 8);
+                    for (int n = 0; n < count; n++, p += 8) {
+                        world.addArmor(new Armor(buffer.getInt(p), buffer.getInt(p + 4)));
+                    }
+                    break;
+                default:
+                    // STATE was read above; unknown sections come from newer writers
+            }
+        }
+        return spawn;
+    }
+
+    // Record count of a counted section, checked against the section's length in the table
+    private int records(int entry, int recordSize) throws IOException {
+        int length = buffer.getInt(entry + 8);
+        if (length < 4) {
+            throw new IOException("Corrupt save: section " + buffer.getInt(entry) + " too short");
+        }
+        int count = buffer.getInt(buffer.getInt(entry + 4));
+        if (count < 0 || 4 + (long) count * recordSize > length) {
+            throw new IOException("Corrupt save: section " + buffer.getInt(entry) + " holds fewer records than its count");
+        }
+        return count;
+    }
+
+    private int tableEntry(int entry, int id, int start) {
+        buffer.putInt(entry, id);
+        buffer.putInt(entry + 4, start);
+        buffer.putInt(entry + 8, buffer.position() - start);
+        return entry + TABLE_ENTRY_BYTES;
+    }
+
+    private int checksum(int end) {
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_BYTES).limit(end);
+        crc.reset();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private void ensureCapacity(int size) {
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(Math.max(size, buffer.capacity() * 2));
+        }
+    }
+}
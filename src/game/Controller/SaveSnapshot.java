@@ -0,0 +1,92 @@
+package game.Controller;
+
+import game.Model.Armor;
+import game.Model.Bomb;
+import game.Model.Enemy;
+import game.Model.Gift;
+import game.Model.Obstacle;
+import game.Model.World;
+import java.util.List;
+
+/**
+ * Immutable copy of everything a save file holds, taken during a simulation
+ * step so it can be written on another thread while the world moves on.
+ * Entities are flattened into int arrays, a few fields per entity.
+ */
+public final class SaveSnapshot {
+
+    final int score;
+    final int ammo;
+    final int hp;
+    final int timeLeft;
+    final int spawnX;
+    final int spawnY;
+    // x, y, type, face, go
+    final int[] enemies;
+    // x, y, type
+    final int[] bombs;
+    final int[] gifts;
+    // x, y
+    final int[] obstacles;
+    final int[] armor;
+
+    private SaveSnapshot(World world, int spawnX, int spawnY) {
+        this.score = world.score;
+        this.ammo = world.ammo;
+        this.hp = world.getPlayer().hp;
+        this.timeLeft = world.timeLeft;
+        this.spawnX = spawnX;
+        this.spawnY = spawnY;
+
+        List<Enemy> enemyList = world.getEnemies();
+        enemies = new int[enemyList.size() * 5];
+        for (int i = 0, p = 0; i < enemyList.size(); i++) {
+            Enemy e = enemyList.get(i);
+            enemies[p++] = e.x;
+            enemies[p++] = e.y;
+            enemies[p++] = e.enemytype;
+            enemies[p++] = e.face;
+            enemies[p++] = e.go;
+        }
+        List<Bomb> bombList = world.getBombs();
+        bombs = new int[bombList.size() * 3];
+        for (int i = 0, p = 0; i < bombList.size(); i++) {
+            Bomb b = bombList.get(i);
+            bombs[p++] = b.x;
+            bombs[p++] = b.y;
+            bombs[p++] = b.bombtype;
+        }
+        List<Gift> giftList = world.getGifts();
+        gifts = new int[giftList.size() * 3];
+        for (int i = 0, p = 0; i < giftList.size(); i++) {
+            Gift g = giftList.get(i);
+            gifts[p++] = g.x;
+            gifts[p++] = g.y;
+            gifts[p++] = g.gifttype;
+        }
+        List<Obstacle> obstacleList = world.getObstacles();
+        obstacles = new int[obstacleList.size() * 2];
+        for (int i = 0, p = 0; i < obstacleList.size(); i++) {
+            obstacles[p++] = obstacleList.get(i).x;
+            obstacles[p++] = obstacleList.get(i).y;
+        }
+        List<Armor> armorList = world.getArmor();
+        armor = new int[armorList.size() * 2];
+        for (int i = 0, p = 0; i < armorList.size(); i++) {
+            armor[p++] = armorList.get(i).x;
+            armor[p++] = armorList.get(i).y;
+        }
+    }
+
+    /**
+     * Captures the world with the hero respawning at the given point. Must be
+     * called on the thread that steps the world.
+     */
+    public static SaveSnapshot of(World world, int spawnX, int spawnY) {
+        return new SaveSnapshot(world, spawnX, spawnY);
+    }
+
+    public int getScore() { return score; }
+    public int getHp() { return hp; }
+    public int getTimeLeft() { return timeLeft; }
+}
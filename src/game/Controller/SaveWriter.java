@@ -0,0 +1,168 @@
+package game.Controller;
+
+import game.Model.World;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes save snapshots on a background thread so the game never waits on
+ * the disk.
+ *
+ * Each save goes to a temporary file next to the target, is forced to disk
+ * and then renamed over the target in one atomic step, with the directory
+ * synced after the rename, so a crash or power loss leaves either the old
+ * save or the new one, never a torn file. If a
+ * newer snapshot for the same file arrives before an older one was written,
+ * only the newest is written. Pending saves are flushed when the JVM exits.
+ */
+public class SaveWriter {
+
+    private static final Logger LOG = Logger.getLogger(SaveWriter.class.getName());
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "save-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Only touched by the writer thread
+    private final SaveFormat format = new SaveFormat();
+    // Newest snapshot waiting for each file
+    private final ConcurrentHashMap<Path, Pending> pending = new ConcurrentHashMap<>();
+
+    private volatile SaveCatalog catalog;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private volatile long lastLatencyNanos = 0;
+    private volatile long maxLatencyNanos = 0;
+
+    private static final class Pending {
+        final SaveSnapshot snapshot;
+        final long submitted;
+
+        Pending(SaveSnapshot snapshot, long submitted) {
+            this.snapshot = snapshot;
+            this.submitted = submitted;
+        }
+    }
+
+    public SaveWriter() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> close(5, TimeUnit.SECONDS), "save-flush"));
+    }
+
+    /**
+     * Queues a snapshot to be written to {@code file}. Returns immediately.
+     */
+    public void submit(SaveSnapshot snapshot, Path file) {
+        Path target = file.toAbsolutePath();
+        if (pending.put(target, new Pending(snapshot, System.nanoTime())) == null) {
+            queueDepth.incrementAndGet();
+            executor.execute(() -> write(target));
+        }
+    }
+
+    /**
+     * Forces the directory entry of a renamed save to disk, without which the
+     * rename itself can be lost in a power cut. Some platforms, Windows among
+     * them, cannot open a directory for this; there the rename is left to the
+     * file system.
+     */
+    private static void syncDirectory(Path dir) {
+        if (dir == null) return;
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported here
+        }
+    }
+
+    private void write(Path target) {
+        Pending save = pending.remove(target);
+        queueDepth.decrementAndGet();
+        if (save == null) return;
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            format.write(save.snapshot, temp, true);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            syncDirectory(target.toAbsolutePath().getParent());
+            if (catalog != null) index(target, save.snapshot);
+            long latency = System.nanoTime() - save.submitted;
+            lastLatencyNanos = latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+            totalLatencyNanos.addAndGet(latency);
+            completed.incrementAndGet();
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            LOG.log(Level.SEVERE, "Could not save " + target, e);
+        }
+    }
+
+    private void index(Path target, SaveSnapshot snapshot) {
+        String file = target.getFileName().toString();
+        String name = file.endsWith(SaveFormat.EXTENSION)
+                ? file.substring(0, file.length() - SaveFormat.EXTENSION.length()) : file;
+        try {
+            catalog.upsert(new SaveCatalog.Entry(name, System.currentTimeMillis(), snapshot.getScore(),
+                    snapshot.getHp(), World.TIME_LIMIT - snapshot.getTimeLeft()));
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.log(Level.WARNING, "Could not index " + target, e);
+        }
+    }
+
+    /**
+     * Saves written from now on are also recorded in this catalog.
+     */
+    public void setCatalog(SaveCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Writes everything still queued and stops the writer thread.
+     */
+    public void close(long timeout, TimeUnit unit) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeout, unit)) {
+                LOG.warning(queueDepth.get() + " saves still pending at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Saves queued but not yet written. */
+    public int getQueueDepth() { return queueDepth.get(); }
+
+    public long getCompleted() { return completed.get(); }
+
+    public long getFailed() { return failed.get(); }
+
+    /** Time from submit until the last save was durable on disk. */
+    public double getLastLatencyMillis() { return lastLatencyNanos / 1e6; }
+
+    public double getMaxLatencyMillis() { return maxLatencyNanos / 1e6; }
+
+    public double getAverageLatencyMillis() {
+        long count = completed.get();
+        return count == 0 ? 0 : totalLatencyNanos.get() / 1e6 / count;
+    }
+}
@@ -0,0 +1,211 @@
+package game.Engine;
+
+import game.Model.Hero;
+import game.Model.World;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Plays many independent headless maze sessions at full speed.
+ *
+ * Every session gets its own {@link World} and input policy and runs without
+ * frame pacing, so sessions share nothing and throughput scales with cores.
+ * CPU-bound policies run on a ForkJoinPool; policies that block (bots waiting
+ * on a model or a socket) should use {@link #runBlocking}, which gives each
+ * session its own thread.
+ */
+public class BatchRunner {
+
+    private int enemies = 8;
+    private long maxTicks = (long) World.TIME_LIMIT * World.TICKS_PER_SECOND;
+    private LongFunction<InputPolicy> policies = InputPolicy::random;
+    private Consumer<World> setup = world -> { };
+    private boolean verify = false;
+
+    public BatchRunner setEnemies(int enemies) {
+        this.enemies = enemies;
+        return this;
+    }
+
+    /**
+     * Sessions still running after this many steps are cut off and reported
+     * as {@code RUNNING}.
+     */
+    public BatchRunner setMaxTicks(long maxTicks) {
+        this.maxTicks = maxTicks;
+        return this;
+    }
+
+    public BatchRunner setPolicies(LongFunction<InputPolicy> policies) {
+        this.policies = policies;
+        return this;
+    }
+
+    /**
+     * Hook for tuning each world before play starts, e.g. bomb damage.
+     */
+    public BatchRunner setSetup(Consumer<World> setup) {
+        this.setup = setup;
+        return this;
+    }
+
+    /**
+     * Plays every session twice with per-step state hashes and fails if the
+     * two runs ever differ. Roughly halves throughput.
+     */
+    public BatchRunner setVerify(boolean verify) {
+        this.verify = verify;
+        return this;
+    }
+
+    /**
+     * Plays a single session to its end and returns the outcome.
+     */
+    public SessionResult play(long seed) {
+        if (!verify) {
+            return play(seed, null);
+        }
+        StateTrace first = new StateTrace(), second = new StateTrace();
+        SessionResult result = play(seed, first);
+        play(seed, second);
+        int step = first.firstDivergence(second);
+        if (step >= 0) {
+            throw new IllegalStateException("Seed " + seed + " diverged at step " + (step + 1));
+        }
+        return result;
+    }
+
+    private SessionResult play(long seed, StateTrace trace) {
+        World world = new World(seed);
+        world.setTrace(trace);
+        Hero hero = world.spawnHero(5, 25);
+        world.populate(enemies);
+        setup.accept(world);
+        InputPolicy policy = policies.apply(seed);
+
+        int[] hp = new int[World.TIME_LIMIT + 1];
+        int samples = 0;
+        while (world.getState() == World.State.RUNNING && world.getTick() < maxTicks) {
+            policy.apply(world, hero);
+            world.step();
+            if (world.getTick() % World.TICKS_PER_SECOND == 0) {
+                if (samples == hp.length) hp = Arrays.copyOf(hp, samples * 2);
+                hp[samples++] = hero.hp;
+            }
+        }
+        return new SessionResult(seed, world.getState(), world.getTick(),
+                world.getElapsedTime(), world.score, Arrays.copyOf(hp, samples));
+    }
+
+    /**
+     * Runs {@code sessions} games on a ForkJoinPool using all cores.
+     */
+    public Report run(int sessions, long baseSeed) {
+        return run(sessions, baseSeed, Runtime.getRuntime().availableProcessors());
+    }
+
+    public Report run(int sessions, long baseSeed, int parallelism) {
+        long[] seeds = seeds(sessions, baseSeed);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long start = System.nanoTime();
+        try {
+            List<SessionResult> results = pool.submit(() -> IntStream.range(0, sessions).parallel()
+                    .mapToObj(i -> play(seeds[i]))
+                    .collect(Collectors.toList())).get();
+            return new Report(results, System.nanoTime() - start, parallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Session failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs every session on its own thread, for policies that block. Java 17
+     * has no virtual threads, so {@code threads} caps the platform threads used.
+     */
+    public Report runBlocking(int sessions, long baseSeed, int threads) {
+        long[] seeds = seeds(sessions, baseSeed);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<SessionResult>> futures = new ArrayList<>(sessions);
+            for (long seed : seeds) {
+                futures.add(executor.submit(() -> play(seed)));
+            }
+            List<SessionResult> results = new ArrayList<>(sessions);
+            for (Future<SessionResult> future : futures) {
+                results.add(future.get());
+            }
+            return new Report(results, System.nanoTime() - start, threads);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Session failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Seeds are drawn up front so results do not depend on scheduling
+    private static long[] seeds(int sessions, long baseSeed) {
+        SplittableRandom random = new SplittableRandom(baseSeed);
+        long[] seeds = new long[sessions];
+        for (int i = 0; i < sessions; i++) {
+            seeds[i] = random.nextLong();
+        }
+        return seeds;
+    }
+
+    /**
+     * Results of a batch plus throughput and a few aggregates for balancing.
+     */
+    public static class Report {
+
+        private final List<SessionResult> results;
+        private final long nanos;
+        private final int parallelism;
+
+        Report(List<SessionResult> results, long nanos, int parallelism) {
+            this.results = results;
+            this.nanos = nanos;
+            this.parallelism = parallelism;
+        }
+
+        public List<SessionResult> getResults() { return results; }
+
+        public double getSeconds() { return nanos / 1e9; }
+
+        public double getGamesPerSecond() { return results.size() / getSeconds(); }
+
+        public long getWins() { return results.stream().filter(SessionResult::isWin).count(); }
+
+        public long getDeaths() { return results.stream().filter(SessionResult::isDeath).count(); }
+
+        public double getAverageScore() {
+            return results.stream().mapToInt(SessionResult::getScore).average().orElse(0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d games on %d threads in %.2f s (%.1f games/s): %d wins, %d deaths, avg score %.1f",
+                    results.size(), parallelism, getSeconds(), getGamesPerSecond(),
+                    getWins(), getDeaths(), getAverageScore());
+        }
+    }
+}
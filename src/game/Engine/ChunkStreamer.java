@@ -0,0 +1,282 @@
+package game.Engine;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the chunks of a {@link ChunkedLevel} around the hero in memory.
+ *
+ * The chunks within {@code radius} chunks of the hero's, a square of
+ * {@code 2 * radius + 1} chunks a side, are active: their tiles are held in
+ * memory and are all that collision and rendering see. Every other cell
+ * reads as solid. Chunks are activated and evicted only in {@link #update},
+ * on the game's thread, so which chunks are active depends on nothing but
+ * the hero's path and the simulation stays deterministic. A chunk is only
+ * evicted once it is more than {@code radius + 1} chunks away, so walking
+ * back and forth over a chunk border does not reload anything.
+ *
+ * Loading is what happens in the background: whenever the hero enters a new
+ * chunk, the band of chunks just beyond the active square in the direction of
+ * travel is read on a prefetch thread. When those chunks become active their
+ * tiles are already there; a chunk that is not is read on the spot.
+ */
+public final class ChunkStreamer {
+
+    public static final int NONE = -1;
+
+    // Codes 1, 2, 3, 5 and 6, as TileGrid.isSolidCell
+    private static final int SOLID_CODES = 0x6E;
+
+    /**
+     * Told about chunks as they become active and are evicted, on the game's
+     * thread and in a fixed order.
+     */
+    public interface Listener {
+        void chunkActivated(int chunk);
+
+        void chunkEvicted(int chunk);
+    }
+
+    private final ChunkedLevel level;
+    private final int radius;
+    private final int rows;
+    private final int cols;
+    private final int shift;
+    private final int mask;
+    private final int chunkCols;
+    private final int chunkRows;
+    // Tiles of every active chunk, null for the rest
+    private final byte[][] active;
+    private final int[] activeList;
+    private int activeCount = 0;
+
+    // Filled by the prefetch thread, drained by update
+    private final ConcurrentHashMap<Integer, byte[]> prefetched = new ConcurrentHashMap<>();
+    private final Set<Integer> requested = ConcurrentHashMap.newKeySet();
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "chunk-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Listener listener;
+    private int centreCol = NONE;
+    private int centreRow = NONE;
+    private int lastCol = NONE;
+    private int lastRow = NONE;
+    // Direction of travel, -1, 0 or 1 on each axis
+    private int headingCol = 0;
+    private int headingRow = 0;
+    // Heading the last prefetch went by
+    private int turnCol = 0;
+    private int turnRow = 0;
+
+    private long generation = 0;
+    private long loads = 0;
+    private long prefetchHits = 0;
+    private long prefetches = 0;
+    private long evictions = 0;
+
+    public ChunkStreamer(ChunkedLevel level, int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Negative radius " + radius);
+        }
+        this.level = level;
+        this.radius = radius;
+        this.rows = level.getRows();
+        this.cols = level.getCols();
+        this.shift = Integer.numberOfTrailingZeros(level.getChunkSize());
+        this.mask = level.getChunkSize() - 1;
+        this.chunkCols = level.getChunkCols();
+        this.chunkRows = level.getChunkRows();
+        this.active = new byte[level.getChunkCount()][];
+        int side = 2 * radius + 3;
+        this.activeList = new int[Math.min(level.getChunkCount(), side * side)];
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Moves the active square to the chunk around the given cell. Does
+     * nothing more than note the direction of travel while the hero stays in
+     * the same chunk.
+     */
+    public void update(int col, int row) {
+        col = Math.max(0, Math.min(cols - 1, col));
+        row = Math.max(0, Math.min(rows - 1, row));
+        if (lastCol != NONE && (col != lastCol || row != lastRow)) {
+            headingCol = Integer.signum(col - lastCol);
+            headingRow = Integer.signum(row - lastRow);
+        }
+        lastCol = col;
+        lastRow = row;
+        int cc = col >> shift, cr = row >> shift;
+        if (cc == centreCol && cr == centreRow) {
+            if (headingCol != turnCol || headingRow != turnRow) prefetchAhead();
+            return;
+        }
+        centreCol = cc;
+        centreRow = cr;
+
+        for (int i = activeCount - 1; i >= 0; i--) {
+            int chunk = activeList[i];
+            if (distance(chunk) > radius + 1) {
+                active[chunk] = null;
+                activeList[i] = activeList[--activeCount];
+                evictions++;
+                generation++;
+                if (listener != null) listener.chunkEvicted(chunk);
+            }
+        }
+        for (int r = Math.max(0, cr - radius); r <= Math.min(chunkRows - 1, cr + radius); r++) {
+            for (int c = Math.max(0, cc - radius); c <= Math.min(chunkCols - 1, cc + radius); c++) {
+                int chunk = r * chunkCols + c;
+                if (active[chunk] != null) continue;
+                byte[] tiles = prefetched.remove(chunk);
+                if (tiles != null) {
+                    prefetchHits++;
+                } else {
+                    tiles = level.readTiles(chunk, new byte[level.getChunkBytes()]);
+                    loads++;
+                }
+                active[chunk] = tiles;
+                activeList[activeCount++] = chunk;
+                generation++;
+                if (listener != null) listener.chunkActivated(chunk);
+            }
+        }
+        prefetchAhead();
+    }
+
+    // Reads the band of chunks past the active square in the direction of travel
+    private void prefetchAhead() {
+        turnCol = headingCol;
+        turnRow = headingRow;
+        for (Iterator<Map.Entry<Integer, byte[]>> it = prefetched.entrySet().iterator(); it.hasNext(); ) {
+            if (distance(it.next().getKey()) > radius + 2) it.remove();
+        }
+        int reach = radius + 1;
+        for (int d = -reach; d <= reach; d++) {
+            if (headingCol != 0) prefetch(centreCol + headingCol * reach, centreRow + d);
+            if (headingRow != 0) prefetch(centreCol + d, centreRow + headingRow * reach);
+        }
+    }
+
+    private void prefetch(int c, int r) {
+        if (c < 0 || r < 0 || c >= chunkCols || r >= chunkRows) return;
+        int chunk = r * chunkCols + c;
+        if (prefetcher.isShutdown() || active[chunk] != null || prefetched.containsKey(chunk) || !requested.add(chunk)) return;
+        prefetches++;
+        prefetcher.execute(() -> {
+            try {
+                prefetched.put(chunk, level.readTiles(chunk, new byte[level.getChunkBytes()]));
+            } finally {
+                requested.remove(chunk);
+            }
+        });
+    }
+
+    // Chebyshev distance in chunks from the centre chunk
+    private int distance(int chunk) {
+        return Math.max(Math.abs(chunk % chunkCols - centreCol), Math.abs(chunk / chunkCols - centreRow));
+    }
+
+    /** Whether the chunk holding the cell is active. */
+    public boolean isActive(int col, int row) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return false;
+        return active[(row >> shift) * chunkCols + (col >> shift)] != null;
+    }
+
+    /**
+     * Code of a cell of an active chunk, or {@link #NONE} for a cell outside
+     * them.
+     */
+    public int code(int col, int row) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return NONE;
+        byte[] tiles = active[(row >> shift) * chunkCols + (col >> shift)];
+        if (tiles == null) return NONE;
+        return ChunkedLevel.code(tiles, ((row & mask) << shift) | (col & mask));
+    }
+
+    /**
+     * Whether a cell inside the maze blocks movement. Cells of chunks that
+     * are not active always do.
+     */
+    public boolean isSolid(int col, int row) {
+        byte[] tiles = active[(row >> shift) * chunkCols + (col >> shift)];
+        if (tiles == null) return true;
+        return (SOLID_CODES >> ChunkedLevel.code(tiles, ((row & mask) << shift) | (col & mask)) & 1) != 0;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /** Chunk index of the i-th active chunk, in no particular order. */
+    public int getActiveChunk(int i) {
+        return activeList[i];
+    }
+
+    /** Column of the first cell of a chunk. */
+    public int getChunkCol(int chunk) {
+        return (chunk % chunkCols) << shift;
+    }
+
+    public int getChunkRow(int chunk) {
+        return (chunk / chunkCols) << shift;
+    }
+
+    public ChunkedLevel getLevel() {
+        return level;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /** Changes whenever a chunk is activated or evicted, e.g. to repaint the tiles. */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /** Chunks read on the game's thread because no prefetch had them ready. */
+    public long getLoads() {
+        return loads;
+    }
+
+    /** Chunks activated from tiles the prefetch thread had already read. */
+    public long getPrefetchHits() {
+        return prefetchHits;
+    }
+
+    /** Chunks handed to the prefetch thread. */
+    public long getPrefetches() {
+        return prefetches;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /** Bytes of tiles held for active and prefetched chunks. */
+    public long getResidentBytes() {
+        return (long) (activeCount + prefetched.size()) * level.getChunkBytes();
+    }
+
+    /**
+     * Stops the prefetch thread. The active chunks stay readable.
+     */
+    public void close() {
+        prefetcher.shutdownNow();
+    }
+}
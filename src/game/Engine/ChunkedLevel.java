@@ -0,0 +1,397 @@
+package game.Engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Level file cut into square chunks of cells, read through a memory map.
+ *
+ * The file holds a 32-byte header, an index entry per chunk, the tiles of
+ * every chunk and the static pickups of every chunk:
+ * <pre>
+ * header   int magic 'MZLV', int version, int rows, int cols, int chunk size,
+ *          int checkpoint cell, int exit cell, int pickup count
+ * index    per chunk: long pickup offset, int pickup count, int first pickup id
+ * tiles    from the first 4 KB boundary after the index (or the first
+ *          multiple of the chunk's bytes, if larger), per chunk
+ *          size * size / 2 bytes, two cells a byte, low nibble first,
+ *          row by row within the chunk; cells past the maze edge are walls
+ * pickups  per pickup: byte kind, byte type, int cell
+ * </pre>
+ * Chunks are numbered row by row and cells are {@code row * cols + col} as
+ * everywhere else. Pickup ids count through the file in chunk order, so a
+ * chunk's pickups have consecutive ids.
+ *
+ * Nothing is read until asked for: the file is mapped, and the tiles of one
+ * chunk are a single bulk copy out of the map. Reads never move a buffer
+ * position, so the game and a prefetch thread can read at the same time.
+ * A {@link Writer} produces the file from rows streamed top to bottom, e.g.
+ * straight from {@link MazeGenerator#stream}.
+ */
+public final class ChunkedLevel implements Closeable {
+
+    public static final int NONE = -1;
+    public static final String EXTENSION = ".mzl";
+
+    // Pickup kinds
+    public static final int GIFT = 0;
+    public static final int BOMB = 1;
+    public static final int ARMOR = 2;
+    public static final int OBSTACLE = 3;
+
+    static final int MAGIC = 0x4D5A4C56;
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int INDEX_BYTES = 16;
+    private static final int PICKUP_BYTES = 6;
+    private static final int ALIGN = 4096;
+    // Files are mapped in windows of this size. Chunk tiles are aligned to their
+    // size and so never straddle two windows; each window overlaps the next by
+    // one alignment block so neither does an index entry or a pickup
+    private static final int WINDOW_SHIFT = 30;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] windows;
+    private final int rows;
+    private final int cols;
+    private final int chunkSize;
+    private final int chunkCols;
+    private final int chunkRows;
+    private final int checkpointCell;
+    private final int exitCell;
+    private final int pickupCount;
+    private final long tilesStart;
+
+    private ChunkedLevel(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            windows = new MappedByteBuffer[(int) ((size + (1L << WINDOW_SHIFT) - 1) >>> WINDOW_SHIFT)];
+            for (int w = 0; w < windows.length; w++) {
+                long start = (long) w << WINDOW_SHIFT;
+                long length = Math.min(size - start, (1L << WINDOW_SHIFT) + ALIGN);
+                windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            if (size < HEADER_BYTES || windows[0].getInt(0) != MAGIC) {
+                throw new IOException("Not a chunked level: " + file);
+            }
+            int version = windows[0].getInt(4);
+            if (version > VERSION) {
+                throw new IOException("Level version " + version + " is newer than " + VERSION);
+            }
+            rows = windows[0].getInt(8);
+            cols = windows[0].getInt(12);
+            chunkSize = windows[0].getInt(16);
+            checkpointCell = windows[0].getInt(20);
+            exitCell = windows[0].getInt(24);
+            pickupCount = windows[0].getInt(28);
+            if (rows <= 0 || cols <= 0 || !validChunkSize(chunkSize)) {
+                throw new IOException("Corrupt level header: " + file);
+            }
+            chunkCols = (cols + chunkSize - 1) / chunkSize;
+            chunkRows = (rows + chunkSize - 1) / chunkSize;
+            tilesStart = tilesStart(chunkCols * chunkRows, getChunkBytes());
+            if (size < tilesStart + (long) getChunkCount() * getChunkBytes()) {
+                throw new IOException("Truncated level: " + file);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps a level file for reading.
+     */
+    public static ChunkedLevel open(Path file) throws IOException {
+        return new ChunkedLevel(file);
+    }
+
+    /**
+     * Copies the tiles of a chunk into {@code out}, which must hold
+     * {@link #getChunkBytes()} bytes.
+     */
+    public byte[] readTiles(int chunk, byte[] out) {
+        long at = tilesStart + (long) chunk * getChunkBytes();
+        window(at).get(offset(at), out, 0, getChunkBytes());
+        return out;
+    }
+
+    /** Code of cell {@code i} of a chunk's tiles, counted row by row within the chunk. */
+    public static int code(byte[] tiles, int i) {
+        return tiles[i >>> 1] >> ((i & 1) << 2) & 15;
+    }
+
+    public int getPickupCount(int chunk) {
+        long at = indexAt(chunk) + 8;
+        return window(at).getInt(offset(at));
+    }
+
+    /** Id of the first pickup of a chunk; the others follow it. */
+    public int getFirstPickup(int chunk) {
+        long at = indexAt(chunk) + 12;
+        return window(at).getInt(offset(at));
+    }
+
+    /** Kind of the i-th pickup of a chunk, one of {@link #GIFT} and friends. */
+    public int getPickupKind(int chunk, int i) {
+        long at = pickupAt(chunk, i);
+        return window(at).get(offset(at));
+    }
+
+    /** Gift or bomb type of the i-th pickup of a chunk, 0 for the other kinds. */
+    public int getPickupType(int chunk, int i) {
+        long at = pickupAt(chunk, i) + 1;
+        return window(at).get(offset(at));
+    }
+
+    public int getPickupCell(int chunk, int i) {
+        long at = pickupAt(chunk, i) + 2;
+        return window(at).getInt(offset(at));
+    }
+
+    private long indexAt(int chunk) {
+        return HEADER_BYTES + (long) chunk * INDEX_BYTES;
+    }
+
+    private long pickupAt(int chunk, int i) {
+        long at = indexAt(chunk);
+        return window(at).getLong(offset(at)) + (long) i * PICKUP_BYTES;
+    }
+
+    private MappedByteBuffer window(long at) {
+        return windows[(int) (at >>> WINDOW_SHIFT)];
+    }
+
+    private static int offset(long at) {
+        return (int) (at & ((1L << WINDOW_SHIFT) - 1));
+    }
+
+    private static long tilesStart(int chunks, int chunkBytes) {
+        long end = HEADER_BYTES + (long) chunks * INDEX_BYTES;
+        long align = Math.max(ALIGN, chunkBytes);
+        return (end + align - 1) / align * align;
+    }
+
+    private static boolean validChunkSize(int size) {
+        return size >= 8 && size <= 256 && Integer.bitCount(size) == 1;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /** Side of a chunk in cells, a power of two. */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getChunkCols() {
+        return chunkCols;
+    }
+
+    public int getChunkRows() {
+        return chunkRows;
+    }
+
+    public int getChunkCount() {
+        return chunkCols * chunkRows;
+    }
+
+    /** Bytes of tiles per chunk. */
+    public int getChunkBytes() {
+        return chunkSize * chunkSize / 2;
+    }
+
+    /** The last cell holding a checkpoint (7), or {@link #NONE}. */
+    public int getCheckpointCell() {
+        return checkpointCell;
+    }
+
+    /** The last open cell scanning up from the bottom right, where the exit goes. */
+    public int getExitCell() {
+        return exitCell;
+    }
+
+    /** Pickups in the whole level. */
+    public int getPickupCount() {
+        return pickupCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes a level file from rows given top to bottom.
+     *
+     * Only one band of chunks, {@code chunk size} rows of the maze, is
+     * buffered at a time; each band is written out as soon as its last row
+     * arrives. Pickups may be added at any time before {@link #close}, which
+     * writes them grouped by chunk together with the index and header.
+     */
+    public static final class Writer implements MazeGenerator.RowSink, Closeable {
+
+        private final FileChannel channel;
+        private final int rows;
+        private final int cols;
+        private final int chunkSize;
+        private final int chunkCols;
+        private final int chunkBytes;
+        private final long tilesStart;
+        private final byte[] band;
+        private int nextRow = 0;
+        private int checkpointCell = NONE;
+        private int exitCell = NONE;
+
+        private int[] pickupCell = new int[16];
+        private byte[] pickupKind = new byte[16];
+        private byte[] pickupType = new byte[16];
+        private int pickups = 0;
+
+        public Writer(Path file, int rows, int cols, int chunkSize) throws IOException {
+            if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Unsupported maze size " + rows + "x" + cols);
+            }
+            if (!validChunkSize(chunkSize)) {
+                throw new IllegalArgumentException("Chunk size must be a power of two from 8 to 256: " + chunkSize);
+            }
+            this.rows = rows;
+            this.cols = cols;
+            this.chunkSize = chunkSize;
+            this.chunkCols = (cols + chunkSize - 1) / chunkSize;
+            this.chunkBytes = chunkSize * chunkSize / 2;
+            this.tilesStart = tilesStart(chunkCols * ((rows + chunkSize - 1) / chunkSize), chunkBytes);
+            this.band = new byte[chunkCols * chunkBytes];
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            clearBand();
+        }
+
+        @Override
+        public void row(int row, int[] codes) {
+            if (row != nextRow) {
+                throw new IllegalStateException("Expected row " + nextRow + ", got " + row);
+            }
+            int inChunk = row & (chunkSize - 1);
+            int rightmostOpen = NONE;
+            for (int col = 0; col < cols; col++) {
+                int code = codes[col];
+                if (code < 0 || code > 15) {
+                    throw new IllegalArgumentException("Cell code out of range: " + code);
+                }
+                if (code == 7) checkpointCell = row * cols + col;
+                if (!TileGrid.isSolidCell(code)) rightmostOpen = col;
+                int i = inChunk * chunkSize + (col & (chunkSize - 1));
+                int at = (col / chunkSize) * chunkBytes + (i >>> 1);
+                int shift = (i & 1) << 2;
+                band[at] = (byte) (band[at] & ~(15 << shift) | code << shift);
+            }
+            if (rightmostOpen != NONE) exitCell = row * cols + rightmostOpen;
+            nextRow++;
+            if (inChunk == chunkSize - 1 || nextRow == rows) {
+                long at = tilesStart + (long) (row / chunkSize) * band.length;
+                try {
+                    writeFully(ByteBuffer.wrap(band), at);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not write level rows up to " + row, e);
+                }
+                clearBand();
+            }
+        }
+
+        // Walls everywhere, so the cells of edge chunks past the maze are solid
+        private void clearBand() {
+            Arrays.fill(band, (byte) 0x11);
+        }
+
+        /**
+         * Adds a static pickup of the given kind on a cell; {@code type} is
+         * the gift or bomb type and ignored for the other kinds.
+         */
+        public void addPickup(int kind, int type, int row, int col) {
+            if (kind < GIFT || kind > OBSTACLE) {
+                throw new IllegalArgumentException("Unknown pickup kind " + kind);
+            }
+            if (row < 0 || col < 0 || row >= rows || col >= cols) {
+                throw new IndexOutOfBoundsException("Cell " + col + "," + row + " is outside the maze");
+            }
+            if (pickups == pickupCell.length) {
+                pickupCell = Arrays.copyOf(pickupCell, pickups * 2);
+                pickupKind = Arrays.copyOf(pickupKind, pickups * 2);
+                pickupType = Arrays.copyOf(pickupType, pickups * 2);
+            }
+            pickupCell[pickups] = row * cols + col;
+            pickupKind[pickups] = (byte) kind;
+            pickupType[pickups++] = (byte) type;
+        }
+
+        /**
+         * Writes the pickups, index and header and closes the file. Every
+         * row must have been written.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                if (nextRow != rows) {
+                    throw new IllegalStateException("Only " + nextRow + " of " + rows + " rows written");
+                }
+                int chunks = chunkCols * ((rows + chunkSize - 1) / chunkSize);
+                // Counting sort of the pickups by chunk, keeping the order they were added in
+                int[] start = new int[chunks + 1];
+                for (int p = 0; p < pickups; p++) {
+                    start[chunkOf(pickupCell[p]) + 1]++;
+                }
+                for (int c = 0; c < chunks; c++) {
+                    start[c + 1] += start[c];
+                }
+                int[] order = new int[pickups];
+                int[] next = Arrays.copyOf(start, chunks);
+                for (int p = 0; p < pickups; p++) {
+                    order[next[chunkOf(pickupCell[p])]++] = p;
+                }
+
+                long pickupsStart = tilesStart + (long) chunks * chunkBytes;
+                ByteBuffer records = ByteBuffer.allocate(pickups * PICKUP_BYTES);
+                for (int p : order) {
+                    records.put(pickupKind[p]).put(pickupType[p]).putInt(pickupCell[p]);
+                }
+                records.flip();
+                writeFully(records, pickupsStart);
+
+                ByteBuffer index = ByteBuffer.allocate(HEADER_BYTES + chunks * INDEX_BYTES);
+                index.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols).putInt(chunkSize)
+                        .putInt(checkpointCell).putInt(exitCell).putInt(pickups);
+                for (int c = 0; c < chunks; c++) {
+                    index.putLong(pickupsStart + (long) start[c] * PICKUP_BYTES)
+                            .putInt(start[c + 1] - start[c]).putInt(start[c]);
+                }
+                index.flip();
+                writeFully(index, 0);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private int chunkOf(int cell) {
+            return (cell / cols / chunkSize) * chunkCols + (cell % cols) / chunkSize;
+        }
+
+        private void writeFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package game.Engine;
+
+/**
+ * Source of simulation time. Game code asks a clock instead of the system
+ * timer so a run can be replayed with exactly the same timing.
+ */
+public interface Clock {
+
+    /** Wall-clock time for interactive play. */
+    Clock SYSTEM = System::nanoTime;
+
+    long nanoTime();
+
+    default double seconds() {
+        return nanoTime() / 1e9;
+    }
+}
@@ -0,0 +1,154 @@
+package game.Engine;
+
+import java.util.Arrays;
+
+/**
+ * Distances toward one goal cell over a {@link CorridorGraph}.
+ *
+ * Only the nodes hold a distance, found by Dijkstra over the weighted
+ * corridor edges, so a new goal costs a search over the junctions rather
+ * than over every cell. A corridor cell's distance is read off the two ends
+ * of its corridor, or straight along the corridor when the goal lies on the
+ * same one. Several fields can share one graph, e.g. one toward the hero for
+ * the enemies and one toward the exit for the hint arrow.
+ */
+public final class CorridorField {
+
+    public static final int NONE = -1;
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final CorridorGraph graph;
+    private final int[] distance;
+    private long[] heap = new long[256];
+    private int heapSize = 0;
+    private int goal = NONE;
+
+    // Where the goal sits in the graph, as returned by CorridorGraph.locate
+    private int goalA;
+    private int goalB;
+    private int goalLastA;
+    private int goalLastB;
+    private int goalToA;
+    private int goalToB;
+
+    private long searches = 0;
+
+    public CorridorField(CorridorGraph graph) {
+        this.graph = graph;
+        this.distance = new int[graph.getNodeCount()];
+        Arrays.fill(distance, UNREACHABLE);
+    }
+
+    /**
+     * Points the field at a new goal cell, or clears it with {@link #NONE}.
+     * Nothing happens if the goal did not change.
+     */
+    public void setGoal(int cell) {
+        if (cell == goal) return;
+        Arrays.fill(distance, UNREACHABLE);
+        if (cell == NONE || !graph.locate(cell)) {
+            goal = NONE;
+            return;
+        }
+        goal = cell;
+        goalA = graph.getEndA();
+        goalB = graph.getEndB();
+        goalLastA = graph.getLastA();
+        goalLastB = graph.getLastB();
+        goalToA = graph.getDistanceA();
+        goalToB = graph.getDistanceB();
+        searches++;
+        heapSize = 0;
+        reach(goalA, goalToA);
+        reach(goalB, goalToB);
+        while (heapSize > 0) {
+            long top = pop();
+            int node = (int) top, d = (int) (top >>> 32);
+            if (d > distance[node]) continue;
+            for (int e = graph.getEdgeStart(node); e < graph.getEdgeEnd(node); e++) {
+                reach(graph.getTarget(e), d + graph.getWeight(e));
+            }
+        }
+    }
+
+    private void reach(int node, int d) {
+        if (d < distance[node]) {
+            distance[node] = d;
+            push(((long) d << 32) | node);
+        }
+    }
+
+    public int getGoal() {
+        return goal;
+    }
+
+    /** Steps from an open cell to the goal, or {@link #UNREACHABLE}. */
+    public int distance(int cell) {
+        if (goal == NONE || !graph.locate(cell)) return UNREACHABLE;
+        if (cell == goal) return 0;
+        int a = graph.getEndA(), b = graph.getEndB();
+        int best = UNREACHABLE;
+        if (distance[a] != UNREACHABLE) best = distance[a] + graph.getDistanceA();
+        if (distance[b] != UNREACHABLE) best = Math.min(best, distance[b] + graph.getDistanceB());
+        // On the goal's own corridor the straight way along it may be shorter
+        int last = graph.getLastA();
+        if (last != NONE) {
+            if (a == goalA && last == goalLastA) {
+                best = Math.min(best, Math.abs(graph.getDistanceA() - goalToA));
+            } else if (a == goalB && last == goalLastB) {
+                best = Math.min(best, Math.abs(graph.getDistanceA() - goalToB));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The neighbour of {@code cell} one step closer to the goal, the goal
+     * itself once there, or {@link #NONE} if the goal cannot be reached.
+     * Ties go to the first of up, down, left, right.
+     */
+    public int nextStep(int cell) {
+        int d = distance(cell);
+        if (d == UNREACHABLE) return NONE;
+        if (d == 0) return cell;
+        int cols = graph.getCols(), col = cell % cols, row = cell / cols;
+        if (row > 0 && distance(cell - cols) == d - 1) return cell - cols;
+        if (row < graph.getRows() - 1 && distance(cell + cols) == d - 1) return cell + cols;
+        if (col > 0 && distance(cell - 1) == d - 1) return cell - 1;
+        if (col < cols - 1 && distance(cell + 1) == d - 1) return cell + 1;
+        return NONE;
+    }
+
+    /** Dijkstra runs so far, one per goal change. */
+    public long getSearches() {
+        return searches;
+    }
+
+    // Lazy-deletion heap of (distance << 32 | node); stale entries are skipped on pop
+    private void push(long key) {
+        if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+        int i = heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heap[up] <= key) break;
+            heap[i] = heap[up];
+            i = up;
+        }
+        heap[i] = key;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0, half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+            if (last <= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (heapSize > 0) heap[i] = last;
+        return top;
+    }
+}
@@ -0,0 +1,329 @@
+package game.Engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The passable cells of a {@link TileGrid} contracted to a graph of
+ * junctions and dead ends.
+ *
+ * Most open cells of a maze have exactly two open neighbours and only lead on
+ * down their corridor. Every other open cell is a node: junctions, dead ends,
+ * and one cell of any loop without a junction. Corridors between nodes are
+ * edges weighted by their length in steps. The graph is stored in compressed
+ * sparse row form: node cells sorted by cell index, the offset of each
+ * node's edges, and the target and weight of every edge, stored once from
+ * each end.
+ *
+ * Nothing is kept per cell but the node bits. A corridor cell is placed by
+ * walking its corridor to both ends with {@link #locate}, which the
+ * {@link CorridorField} distance queries and the connectivity checks build on.
+ */
+public final class CorridorGraph {
+
+    public static final int NONE = -1;
+
+    private final PackedMaze maze;
+    private final int cols;
+    private final int rows;
+    private final BitSet isNode;
+    private final int[] nodeCell;
+    private final int[] offset;
+    private final int[] target;
+    private final int[] weight;
+    // Connected component of every node
+    private final int[] component;
+    private final int components;
+
+    // Result of the last walk along a corridor
+    private int walkEnd;
+    private int walkLength;
+    private int walkLast;
+
+    // Result of the last locate: the corridor's two ends, the cell next to
+    // each end, and the distance from the located cell to each end
+    private int endA;
+    private int endB;
+    private int lastA;
+    private int lastB;
+    private int toA;
+    private int toB;
+
+    public CorridorGraph(TileGrid tiles) {
+        this.maze = tiles.getMaze();
+        this.cols = tiles.getCols();
+        this.rows = tiles.getRows();
+        int cells = cols * rows;
+
+        // Junctions and dead ends, then one cell of every loop that has neither
+        isNode = new BitSet(cells);
+        for (int cell = 0; cell < cells; cell++) {
+            if (isOpen(cell) && degree(cell) != 2) isNode.set(cell);
+        }
+        BitSet seen = new BitSet(cells);
+        for (int node = isNode.nextSetBit(0); node >= 0; node = isNode.nextSetBit(node + 1)) {
+            markCorridors(node, seen);
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (isOpen(cell) && !isNode.get(cell) && !seen.get(cell)) {
+                isNode.set(cell);
+                markCorridors(cell, seen);
+            }
+        }
+
+        int nodes = isNode.cardinality();
+        nodeCell = new int[nodes];
+        offset = new int[nodes + 1];
+        int edges = 0;
+        for (int i = 0, cell = isNode.nextSetBit(0); cell >= 0; i++, cell = isNode.nextSetBit(cell + 1)) {
+            nodeCell[i] = cell;
+            edges += degree(cell);
+        }
+        target = new int[edges];
+        weight = new int[edges];
+        int e = 0;
+        for (int i = 0; i < nodes; i++) {
+            offset[i] = e;
+            int cell = nodeCell[i];
+            int col = cell % cols, row = cell / cols;
+            if (row > 0 && isOpen(cell - cols)) e = addEdge(e, cell, cell - cols);
+            if (row < rows - 1 && isOpen(cell + cols)) e = addEdge(e, cell, cell + cols);
+            if (col > 0 && isOpen(cell - 1)) e = addEdge(e, cell, cell - 1);
+            if (col < cols - 1 && isOpen(cell + 1)) e = addEdge(e, cell, cell + 1);
+        }
+        offset[nodes] = e;
+
+        component = new int[nodes];
+        components = labelComponents();
+    }
+
+    private int addEdge(int e, int from, int first) {
+        walk(from, first);
+        target[e] = node(walkEnd);
+        weight[e] = walkLength;
+        return e + 1;
+    }
+
+    // Marks the corridor cells leaving a node in every direction
+    private void markCorridors(int node, BitSet seen) {
+        int col = node % cols, row = node / cols;
+        for (int d = 0; d < 4; d++) {
+            int next = d == 0 ? (row > 0 ? node - cols : NONE)
+                    : d == 1 ? (row < rows - 1 ? node + cols : NONE)
+                    : d == 2 ? (col > 0 ? node - 1 : NONE)
+                    : (col < cols - 1 ? node + 1 : NONE);
+            if (next == NONE || !isOpen(next) || isNode.get(next) || seen.get(next)) continue;
+            int prev = node;
+            while (!isNode.get(next) && !seen.get(next)) {
+                seen.set(next);
+                int after = onward(next, prev);
+                prev = next;
+                next = after;
+            }
+        }
+    }
+
+    /**
+     * Walks from a cell into the neighbour {@code first} and on along the
+     * corridor until a node; leaves the node, the steps taken and the cell
+     * before the node in walkEnd, walkLength and walkLast.
+     */
+    private void walk(int from, int first) {
+        int prev = from, cell = first, length = 1;
+        while (!isNode.get(cell)) {
+            int next = onward(cell, prev);
+            prev = cell;
+            cell = next;
+            length++;
+        }
+        walkEnd = cell;
+        walkLength = length;
+        walkLast = prev;
+    }
+
+    // The open neighbour of a corridor cell that is not prev
+    private int onward(int cell, int prev) {
+        int col = cell % cols, row = cell / cols;
+        if (row > 0 && cell - cols != prev && isOpen(cell - cols)) return cell - cols;
+        if (row < rows - 1 && cell + cols != prev && isOpen(cell + cols)) return cell + cols;
+        if (col > 0 && cell - 1 != prev && isOpen(cell - 1)) return cell - 1;
+        return cell + 1;
+    }
+
+    private int labelComponents() {
+        int count = 0;
+        Arrays.fill(component, NONE);
+        int[] stack = new int[Math.max(1, nodeCell.length)];
+        for (int start = 0; start < nodeCell.length; start++) {
+            if (component[start] != NONE) continue;
+            int top = 0;
+            stack[top++] = start;
+            component[start] = count;
+            while (top > 0) {
+                int node = stack[--top];
+                for (int e = offset[node]; e < offset[node + 1]; e++) {
+                    if (component[target[e]] == NONE) {
+                        component[target[e]] = count;
+                        stack[top++] = target[e];
+                    }
+                }
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Places an open cell on the graph. A node is its own two ends at
+     * distance 0; a corridor cell gets the nodes at both ends of its corridor
+     * and its distance to each, read back with {@link #getEndA} and friends.
+     * Returns false for a solid cell or one outside the grid.
+     */
+    public boolean locate(int cell) {
+        if (!isOpen(cell)) return false;
+        if (isNode.get(cell)) {
+            endA = endB = node(cell);
+            lastA = lastB = NONE;
+            toA = toB = 0;
+            return true;
+        }
+        int col = cell % cols, row = cell / cols;
+        int first = NONE, second = NONE;
+        if (row > 0 && isOpen(cell - cols)) first = cell - cols;
+        if (row < rows - 1 && isOpen(cell + cols)) {
+            if (first == NONE) first = cell + cols; else second = cell + cols;
+        }
+        if (col > 0 && isOpen(cell - 1)) {
+            if (first == NONE) first = cell - 1; else second = cell - 1;
+        }
+        if (second == NONE) second = cell + 1;
+        walk(cell, first);
+        endA = node(walkEnd);
+        lastA = walkLast;
+        toA = walkLength;
+        walk(cell, second);
+        endB = node(walkEnd);
+        lastB = walkLast;
+        toB = walkLength;
+        return true;
+    }
+
+    /** First end node of the last located cell. */
+    public int getEndA() {
+        return endA;
+    }
+
+    public int getEndB() {
+        return endB;
+    }
+
+    /** Steps from the last located cell to its first end. */
+    public int getDistanceA() {
+        return toA;
+    }
+
+    public int getDistanceB() {
+        return toB;
+    }
+
+    /**
+     * The corridor cell next to the first end, which together with the end
+     * tells corridors between the same two nodes apart; {@link #NONE} for a
+     * node.
+     */
+    public int getLastA() {
+        return lastA;
+    }
+
+    public int getLastB() {
+        return lastB;
+    }
+
+    /** Whether a walk exists between two open cells. */
+    public boolean isConnected(int from, int to) {
+        if (!locate(from)) return false;
+        int a = component[endA];
+        if (!locate(to)) return false;
+        return component[endA] == a;
+    }
+
+    /** Node index of a node cell, or {@link #NONE} if the cell is no node. */
+    public int node(int cell) {
+        int lo = 0, hi = nodeCell.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = nodeCell[mid];
+            if (c < cell) lo = mid + 1;
+            else if (c > cell) hi = mid - 1;
+            else return mid;
+        }
+        return NONE;
+    }
+
+    public int getNodeCell(int node) {
+        return nodeCell[node];
+    }
+
+    public int getNodeCount() {
+        return nodeCell.length;
+    }
+
+    /** Directed edges; every corridor is stored once from each end. */
+    public int getEdgeCount() {
+        return target.length;
+    }
+
+    /** Index of the first edge of a node; the node's edges end where the next node's begin. */
+    public int getEdgeStart(int node) {
+        return offset[node];
+    }
+
+    public int getEdgeEnd(int node) {
+        return offset[node + 1];
+    }
+
+    public int getTarget(int edge) {
+        return target[edge];
+    }
+
+    public int getWeight(int edge) {
+        return weight[edge];
+    }
+
+    public int getComponentCount() {
+        return components;
+    }
+
+    /** Bytes held by the graph's arrays, node bits included. */
+    public long getMemoryBytes() {
+        return (long) isNode.size() / 8 + 4L * (nodeCell.length + offset.length + target.length
+                + weight.length + component.length);
+    }
+
+    /** Cell index of the given grid coordinates, or {@link #NONE} outside the grid. */
+    public int cell(int col, int row) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return NONE;
+        return row * cols + col;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    boolean isOpen(int cell) {
+        return cell >= 0 && cell < cols * rows && !maze.isSolid(cell);
+    }
+
+    private int degree(int cell) {
+        int col = cell % cols, row = cell / cols, degree = 0;
+        if (row > 0 && isOpen(cell - cols)) degree++;
+        if (row < rows - 1 && isOpen(cell + cols)) degree++;
+        if (col > 0 && isOpen(cell - 1)) degree++;
+        if (col < cols - 1 && isOpen(cell + 1)) degree++;
+        return degree;
+    }
+}
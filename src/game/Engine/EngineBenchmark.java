@@ -0,0 +1,1134 @@
+package game.Engine;
+
+import game.Controller.LegacySave;
+import game.Controller.SaveFormat;
+import game.Model.Armor;
+import game.Model.Bomb;
+import game.Model.Enemy;
+import game.Model.Gift;
+import game.Model.Hero;
+import game.Model.Obstacle;
+import game.Model.World;
+import game.View.AtlasLayout;
+import game.View.DirtyRegions;
+import game.View.Entity;
+import game.View.Sprite;
+import game.View.SpriteCache;
+import java.awt.image.BufferedImage;
+import java.awt.event.KeyEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Headless stress scenarios for the engine data structures.
+ *
+ * Run with {@code java -cp target/classes game.Engine.EngineBenchmark [scenario]};
+ * without an argument every scenario runs.
+ */
+public class EngineBenchmark {
+
+    private static final int TILE = 30;
+
+    public static void main(String[] args) throws IOException {
+        String scenario = args.length > 0 ? args[0] : "all";
+        if (scenario.equals("all") || scenario.equals("spatial")) {
+            spatialHash(10_000, 200);
+        }
+        if (scenario.equals("all") || scenario.equals("batch")) {
+            batch(2_000);
+        }
+        if (scenario.equals("all") || scenario.equals("determinism")) {
+            determinism(200);
+        }
+        if (scenario.equals("all") || scenario.equals("replay")) {
+            replay(3L);
+        }
+        if (scenario.equals("all") || scenario.equals("alloc")) {
+            allocation(20_000);
+        }
+        if (scenario.equals("all") || scenario.equals("bounds")) {
+            bounds(2_000, 1_000);
+        }
+        if (scenario.equals("all") || scenario.equals("arena")) {
+            arena(100_000, 0.05, 50);
+        }
+        if (scenario.equals("all") || scenario.equals("layers")) {
+            layers(3_600);
+        }
+        if (scenario.equals("all") || scenario.equals("atlas")) {
+            atlas();
+        }
+        if (scenario.equals("all") || scenario.equals("chase")) {
+            chase(500, 6_000);
+        }
+        if (scenario.equals("all") || scenario.equals("flow")) {
+            for (int tiling : new int[]{1, 8}) {
+                for (int count : new int[]{10, 1_000, 50_000}) {
+                    flow(tiling, count, 200);
+                }
+            }
+        }
+        if (scenario.equals("all") || scenario.equals("hpa")) {
+            for (int tiling : new int[]{8, 48}) {
+                hpa(tiling, 500);
+            }
+        }
+        if (scenario.equals("all") || scenario.equals("corridors")) {
+            corridors(4096);
+        }
+        if (scenario.equals("all") || scenario.equals("mazegen")) {
+            mazeGeneration(10_000);
+        }
+        if (scenario.equals("all") || scenario.equals("packed")) {
+            packed(20_000);
+        }
+        if (scenario.equals("all") || scenario.equals("chunks")) {
+            chunks(16_384, 64, 2);
+        }
+        if (scenario.equals("all") || scenario.equals("save")) {
+            for (int entities : new int[]{10, 1_000, 100_000}) {
+                save(entities);
+            }
+        }
+    }
+
+    /**
+     * Moves {@code count} enemies around a square level sized for constant
+     * density and probes each one against its neighbours, once through the
+     * spatial hash and once with the old linear scan.
+     */
+    static void spatialHash(int count, int ticks) {
+        Random r = new Random(42);
+        int side = (int) Math.ceil(Math.sqrt(count)) * 4 * TILE;
+        int[] x = new int[count], y = new int[count], vx = new int[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = r.nextInt(side);
+            y[i] = r.nextInt(side);
+            vx[i] = r.nextBoolean() ? 2 : -2;
+        }
+
+        SpatialHash<Integer> hash = new SpatialHash<>(TILE, Integer.highestOneBit(count) * 2);
+        Integer[] ids = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i;
+            hash.update(ids[i], x[i] + 10, y[i] + 10, 20, 20);
+        }
+
+        List<Integer> found = new ArrayList<>();
+        long hits = 0;
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) {
+            for (int i = 0; i < count; i++) {
+                x[i] += vx[i];
+                if (x[i] < 0 || x[i] > side) {
+                    vx[i] = -vx[i];
+                }
+                hash.update(ids[i], x[i] + 10, y[i] + 10, 20, 20);
+            }
+            for (int i = 0; i < count; i++) {
+                found.clear();
+                hits += hash.query(x[i] + 10, y[i] + 10, 20, 20, found).size();
+            }
+        }
+        double hashMs = (System.nanoTime() - start) / 1e6;
+
+        int linearTicks = Math.max(1, ticks / 20);
+        long linearHits = 0;
+        start = System.nanoTime();
+        for (int t = 0; t < linearTicks; t++) {
+            for (int i = 0; i < count; i++) {
+                for (int j = 0; j < count; j++) {
+                    if (x[j] < x[i] + 20 && x[i] < x[j] + 20 && y[j] < y[i] + 20 && y[i] < y[j] + 20) {
+                        linearHits++;
+                    }
+                }
+            }
+        }
+        double linearMs = (System.nanoTime() - start) / 1e6 * ticks / linearTicks;
+
+        System.out.printf("spatial hash: %d enemies, %d ticks, %.3f ms/tick (%d overlaps)%n",
+                count, ticks, hashMs / ticks, hits);
+        System.out.printf("linear scan : %d enemies, %.3f ms/tick (extrapolated from %d ticks, %d overlaps)%n",
+                count, linearMs / ticks, linearTicks, linearHits);
+    }
+
+    /**
+     * Plays the same batch of random-input sessions on 1 thread and on every
+     * core to show how throughput scales.
+     */
+    static void batch(int sessions) {
+        BatchRunner runner = new BatchRunner();
+        runner.run(sessions / 10, 1L, 1);
+        System.out.println("batch: " + runner.run(sessions, 7L, 1));
+        System.out.println("batch: " + runner.run(sessions, 7L));
+    }
+
+    /**
+     * Replays every session from its seed and compares the per-step state
+     * hashes; fails on the first divergence.
+     */
+    static void determinism(int sessions) {
+        BatchRunner.Report report = new BatchRunner().setVerify(true).run(sessions, 11L);
+        System.out.println("determinism: " + sessions + " sessions replayed bit-identically, " + report);
+    }
+
+    /**
+     * Records a full-length session with keyboard auto-repeat, round-trips the
+     * log through its binary form and replays it headlessly.
+     */
+    static void replay(long seed) throws IOException {
+        InputLog log = new InputLog(seed, InputLog.DEFAULT_LEVEL, 8, 5, 25);
+        World world = log.newWorld();
+        Hero hero = world.getPlayer();
+        hero.setRecorder(log);
+        // Seal the log from the listener, as the window does when a game ends
+        world.setListener(new World.Listener() {
+            @Override
+            public void checkpointReached(World world, int x, int y) {
+            }
+
+            @Override
+            public void finished(World world) {
+                log.finish(world);
+            }
+        });
+        int[] directions = {KeyEvent.VK_UP, KeyEvent.VK_DOWN, KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT};
+        Random random = new Random(seed);
+        int held = directions[0];
+        long limit = (long) World.TIME_LIMIT * World.TICKS_PER_SECOND;
+        while (world.getState() == World.State.RUNNING && world.getTick() < limit) {
+            if (random.nextInt(60) == 0) {
+                hero.release(held);
+                held = directions[random.nextInt(directions.length)];
+            }
+            // Auto-repeat sends a press roughly every third step while a key is held
+            if (world.getTick() % 3 == 0) hero.press(held);
+            world.step();
+        }
+        // Ran out of time without winning or dying
+        log.finish(world);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        log.write(bytes);
+        InputLog loaded = InputLog.read(new ByteArrayInputStream(bytes.toByteArray()));
+
+        long start = System.nanoTime();
+        boolean matches = loaded.verify();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double realTime = loaded.getFinalTick() / (double) World.STEPS_PER_SECOND;
+        System.out.printf("replay: %d steps, %d events in %d bytes, replayed in %.1f ms (%.0fx real time), matches: %b%n",
+                loaded.getFinalTick(), loaded.getEventCount(), bytes.size(), seconds * 1e3, realTime / seconds, matches);
+    }
+
+    /**
+     * Checks that a warmed-up simulation step allocates nothing: the hero
+     * wanders with random input among enemies while the thread's allocation
+     * counter is watched. Fails if any step allocated.
+     */
+    static void allocation(int ticks) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("alloc: allocation counting not supported by this JVM");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        World world = new World(13L);
+        Hero hero = world.spawnHero(5, 25);
+        world.populate(40);
+        // Keep the session running for the whole measurement
+        hero.hp = Integer.MAX_VALUE / 2;
+        InputPolicy policy = InputPolicy.random(13L);
+        for (int i = 0; i < ticks; i++) {
+            policy.apply(world, hero);
+            world.step();
+        }
+
+        // What reading the counter costs by itself
+        long baseline = threads.getCurrentThreadAllocatedBytes();
+        baseline = threads.getCurrentThreadAllocatedBytes() - baseline;
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ticks; i++) {
+            policy.apply(world, hero);
+            world.step();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before - baseline;
+        System.out.printf("alloc: %d steps, %d bytes allocated (%.2f bytes/step), %s%n",
+                ticks, allocated, (double) allocated / ticks, world.getState());
+        if (allocated > 0) {
+            throw new AssertionError("Simulation step allocated " + allocated + " bytes over " + ticks + " steps");
+        }
+    }
+
+    /**
+     * Paces a world the way the JavaFX engine does, from jittery 60 Hz frame
+     * times through {@link FixedTimestep}, without any toolkit. Every frame
+     * the hero is tested against all {@code count} enemies, once with the
+     * primitive boxes and once through allocated {@code Rectangle} bounds.
+     */
+    static void bounds(int count, int frames) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        World world = new World(17L);
+        Hero hero = world.spawnHero(5, 25);
+        hero.hp = Integer.MAX_VALUE / 2;
+        Random r = new Random(17);
+        // Crowd the spawn so some checks hit
+        for (int i = 0; i < count; i++) {
+            world.addEnemy(new Enemy(world, r.nextInt(150), r.nextInt(150)));
+        }
+        List<Enemy> enemies = world.getEnemies();
+        // Same rate and catch-up cap as both front ends
+        FixedTimestep timestep = new FixedTimestep(100, 10);
+        long frameNanos = 1_000_000_000L / 60;
+        // What reading the counter costs by itself
+        long baseline = threads.getCurrentThreadAllocatedBytes();
+        baseline = threads.getCurrentThreadAllocatedBytes() - baseline;
+
+        long steps = 0, primitiveHits = 0, rectangleHits = 0, primitiveNanos = 0, rectangleNanos = 0;
+        long primitiveBytes = 0, rectangleBytes = 0;
+        for (int f = 0; f < frames; f++) {
+            for (int n = timestep.advance(frameNanos + r.nextInt(2_000_000) - 1_000_000); n > 0; n--) {
+                world.step();
+                steps++;
+            }
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < enemies.size(); i++) {
+                if (hero.intersects(enemies.get(i))) primitiveHits++;
+            }
+            primitiveNanos += System.nanoTime() - start;
+            primitiveBytes += threads.getCurrentThreadAllocatedBytes() - bytes - baseline;
+
+            bytes = threads.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            for (int i = 0; i < enemies.size(); i++) {
+                if (hero.getBounds().intersects(enemies.get(i).getBounds())) rectangleHits++;
+            }
+            rectangleNanos += System.nanoTime() - start;
+            rectangleBytes += threads.getCurrentThreadAllocatedBytes() - bytes - baseline;
+        }
+        long checks = (long) frames * enemies.size();
+        System.out.printf("bounds: %d frames -> %d steps headless (%s)%n", frames, steps, world.getState());
+        System.out.printf("bounds primitive: %.1f ns/check, %d bytes, %d hits%n",
+                (double) primitiveNanos / checks, primitiveBytes, primitiveHits);
+        System.out.printf("bounds rectangle: %.1f ns/check, %d bytes, %d hits%n",
+                (double) rectangleNanos / checks, rectangleBytes, rectangleHits);
+        if (primitiveHits != rectangleHits) {
+            throw new AssertionError("Primitive and Rectangle bounds disagree");
+        }
+    }
+
+    /**
+     * Keeps {@code count} entities alive under heavy churn: every tick each
+     * entity moves, and a {@code churn} fraction of them despawns while the
+     * list is being walked and is replaced by a new one. Compares the entity
+     * arena with the copy-on-write list the JavaFX engine used to keep and a
+     * plain ArrayList.
+     */
+    static void arena(int count, double churn, int ticks) {
+        Random r = new Random(23);
+        int perTick = (int) (count * churn);
+
+        EntityArena<Obstacle> arena = new EntityArena<>(count);
+        long[] handles = new long[count];
+        for (int i = 0; i < count; i++) {
+            handles[i] = arena.spawn(new Obstacle(r.nextInt(900), r.nextInt(720)));
+        }
+        long stale = 0;
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) {
+            arena.lock();
+            for (int i = 0; i < arena.size(); i++) {
+                arena.get(i).x++;
+                if (r.nextInt(count) < perTick) {
+                    arena.despawn(arena.get(i).getHandle());
+                    arena.spawn(new Obstacle(r.nextInt(900), r.nextInt(720)));
+                }
+            }
+            arena.unlock();
+            // Handles kept from the first tick go stale as their entities die
+            for (long handle : handles) {
+                if (!arena.isAlive(handle)) stale++;
+            }
+        }
+        double arenaMs = (System.nanoTime() - start) / 1e6 / ticks;
+
+        double cowMs = churnList(new CopyOnWriteArrayList<>(), count, perTick, Math.max(1, ticks / 25), r);
+        double listMs = churnList(new ArrayList<>(), count, perTick, Math.max(1, ticks / 10), r);
+
+        System.out.printf("arena: %d entities, %d despawn+spawn per tick, %.3f ms/tick, size %d, %d stale handle checks%n",
+                count, perTick, arenaMs, arena.size(), stale);
+        System.out.printf("copy-on-write list: %.3f ms/tick | array list: %.3f ms/tick%n", cowMs, listMs);
+        if (arena.size() != count) {
+            throw new AssertionError("Arena size drifted to " + arena.size());
+        }
+    }
+
+    // The same churn on a List, removing by identity like the old engine did
+    private static double churnList(List<Obstacle> list, int count, int perTick, int ticks, Random r) {
+        for (int i = 0; i < count; i++) {
+            list.add(new Obstacle(r.nextInt(900), r.nextInt(720)));
+        }
+        List<Obstacle> dead = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) {
+            for (Obstacle o : list) {
+                o.x++;
+                if (r.nextInt(count) < perTick) dead.add(o);
+            }
+            for (Obstacle o : dead) {
+                list.remove(o);
+                list.add(new Obstacle(r.nextInt(900), r.nextInt(720)));
+            }
+            dead.clear();
+        }
+        return (System.nanoTime() - start) / 1e6 / ticks;
+    }
+
+    /**
+     * Counts the draw calls a frame of the JavaFX engine needs with a single
+     * canvas repainted from scratch and with the cached background plus dirty
+     * regions on the entity layer, over {@code frames} frames of play at 60 Hz.
+     */
+    static void layers(int frames) {
+        World world = new World(19L);
+        Hero hero = world.spawnHero(5, 25);
+        world.populate(8);
+        hero.hp = Integer.MAX_VALUE / 2;
+        InputPolicy policy = InputPolicy.random(19L);
+        FixedTimestep timestep = new FixedTimestep(100, 10);
+        int[][] maze = world.getMaze();
+        DirtyRegions regions = new DirtyRegions(maze[0].length * World.TILE, maze.length * World.TILE);
+        List<Entity> drawList = new ArrayList<>();
+
+        // Background fill, one image per tile, and the checkpoint image and outline
+        int backgroundCalls = 1 + maze.length * maze[0].length + 2;
+        long single = 0, layered = backgroundCalls;
+        for (int f = 0; f < frames; f++) {
+            for (int n = timestep.advance(1_000_000_000L / 60); n > 0; n--) {
+                policy.apply(world, hero);
+                world.step();
+            }
+            Entity.interpolation = timestep.alpha();
+            drawList.clear();
+            world.drawables(drawList);
+            regions.begin();
+            for (Entity entity : drawList) {
+                Sprite sprite = entity.getSprite();
+                BufferedImage image = SpriteCache.get(sprite);
+                regions.add(entity, sprite, entity.spriteX(), entity.spriteY(), image.getWidth(), image.getHeight());
+            }
+            regions.compute();
+            single += backgroundCalls + regions.size();
+            layered += regions.getDirtyCount();
+            for (int i = 0; i < regions.size(); i++) {
+                if (regions.needsRedraw(i)) layered++;
+            }
+        }
+        System.out.printf("layers: %d frames, single canvas %.1f draw calls/frame, layered %.1f draw calls/frame (background once: %d)%n",
+                frames, (double) single / frames, (double) layered / frames, backgroundCalls);
+    }
+
+    /**
+     * Packs the game's sprites the way the JavaFX atlas does and reports how
+     * many page images replace the per-sprite images.
+     */
+    static void atlas() {
+        Sprite[] sprites = Sprite.values();
+        int[] widths = new int[sprites.length], heights = new int[sprites.length];
+        for (Sprite sprite : sprites) {
+            BufferedImage image = SpriteCache.get(sprite);
+            widths[sprite.ordinal()] = image.getWidth();
+            heights[sprite.ordinal()] = image.getHeight();
+        }
+        // Same page size and padding as FxSpriteAtlas
+        AtlasLayout layout = new AtlasLayout(256, 1);
+        long start = System.nanoTime();
+        layout.pack(widths, heights);
+        double ms = (System.nanoTime() - start) / 1e6;
+        System.out.printf("atlas: %d sprites on %d page(s) of %dx%d, %.0f%% filled, packed in %.2f ms%n",
+                sprites.length, layout.getPageCount(), layout.getPageSize(), layout.getPageSize(),
+                layout.getFillRatio() * 100, ms);
+    }
+
+    /**
+     * Runs {@code count} enemies chasing the hero down the shared flow field
+     * and reports the cost of a simulation step against the 10 ms a step may
+     * take at 100 Hz. The hero jumps to a random open cell every 20 steps, so
+     * the field is rebuilt as well as shifted.
+     */
+    static void chase(int count, int ticks) {
+        World world = new World(29L);
+        Hero hero = world.spawnHero(5, 25);
+        world.populate(count);
+        hero.hp = Integer.MAX_VALUE / 2;
+        Random r = new Random(29);
+        int[][] maze = world.getMaze();
+        InputPolicy policy = (w, h) -> {
+            if (w.getTick() % 20 != 0) return;
+            int row, col;
+            do {
+                row = r.nextInt(maze.length);
+                col = r.nextInt(maze[0].length);
+            } while (maze[row][col] != 0);
+            h.x = col * TILE + 5;
+            h.y = row * TILE;
+        };
+        FlowField field = world.getFlowField();
+        // Warm up, then measure
+        for (int i = 0; i < ticks / 4; i++) {
+            policy.apply(world, hero);
+            world.step();
+        }
+        long rebuilds = field.getRebuilds(), shifts = field.getIncrementalUpdates(), totalNanos = 0;
+        long[] stepNanos = new long[ticks];
+        int enemies = world.getEnemies().size();
+        for (int i = 0; i < ticks; i++) {
+            policy.apply(world, hero);
+            long start = System.nanoTime();
+            world.step();
+            long nanos = System.nanoTime() - start;
+            totalNanos += nanos;
+            stepNanos[i] = nanos;
+        }
+        Arrays.sort(stepNanos);
+        System.out.printf("chase: %d enemies chasing (%d left), %d steps, %.1f us/step avg, p99 %.1f us, max %.1f us (10000 us per step at 100 Hz)%n",
+                enemies, world.getEnemies().size(), ticks, totalNanos / 1e3 / ticks,
+                stepNanos[ticks * 99 / 100] / 1e3, stepNanos[ticks - 1] / 1e3);
+        System.out.printf("chase: %d field rebuilds, %d incremental shifts%n",
+                field.getRebuilds() - rebuilds, field.getIncrementalUpdates() - shifts);
+    }
+
+    /**
+     * Walks a goal randomly over the default maze repeated {@code tiling}
+     * times each way and, after every move, gives {@code count} enemies on
+     * random open cells their next step: once with an A* search per enemy and
+     * once from a shared flow field. The incrementally updated field is
+     * checked against a fresh rebuild after every move.
+     */
+    static void flow(int tiling, int count, int moves) {
+        int[][] maze = tiledMaze(tiling);
+        int rows = maze.length, cols = maze[0].length;
+        TileGrid tiles = new TileGrid(maze, TILE);
+        // Only cells reachable from the start, so every search finds a path
+        FlowField reach = new FlowField(tiles);
+        int goal = reach.cell(1, 1);
+        reach.setGoal(goal);
+        int[] open = new int[rows * cols];
+        int openCount = 0;
+        for (int cell = 0; cell < rows * cols; cell++) {
+            if (reach.distance(cell) != FlowField.UNREACHABLE) open[openCount++] = cell;
+        }
+        Random r = new Random(41);
+        int[] starts = new int[count];
+        for (int i = 0; i < count; i++) {
+            starts[i] = open[r.nextInt(openCount)];
+        }
+        int[] goals = new int[moves];
+        for (int m = 0; m < moves; m++) {
+            int next;
+            do {
+                int d = r.nextInt(4);
+                next = goal + (d == 0 ? -cols : d == 1 ? cols : d == 2 ? -1 : 1);
+            } while (reach.distance(next) == FlowField.UNREACHABLE);
+            goals[m] = goal = next;
+        }
+
+        // Per-enemy search; at scale only a sample of moves and enemies is timed and scaled up
+        GridPathfinder paths = new GridPathfinder(tiles);
+        int[] path = new int[rows * cols];
+        int budget = 400_000 / (tiling * tiling);
+        int sampled = Math.min(count, budget);
+        int searchMoves = Math.max(1, Math.min(moves, budget / sampled));
+        long sink = 0, start = System.nanoTime();
+        for (int m = 0; m < searchMoves; m++) {
+            for (int i = 0; i < sampled; i++) {
+                int length = paths.findPath(starts[i], goals[m], path);
+                sink += length > 1 ? path[1] : path[0];
+            }
+        }
+        double searchUs = (System.nanoTime() - start) / 1e3 / searchMoves * count / sampled;
+
+        FlowField field = new FlowField(tiles);
+        FlowField check = new FlowField(tiles);
+        field.setGoal(starts[0]);
+        long updateNanos = 0, lookupNanos = 0;
+        int mismatches = 0;
+        for (int m = 0; m < moves; m++) {
+            long t0 = System.nanoTime();
+            field.setGoal(goals[m]);
+            long t1 = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sink += field.nextStep(starts[i]);
+            }
+            long t2 = System.nanoTime();
+            updateNanos += t1 - t0;
+            lookupNanos += t2 - t1;
+            check.setGoal(FlowField.NONE);
+            check.setGoal(goals[m]);
+            for (int i = 0; i < openCount; i++) {
+                if (field.distance(open[i]) != check.distance(open[i])) mismatches++;
+            }
+        }
+        double flowUs = (updateNanos + lookupNanos) / 1e3 / moves;
+        System.out.printf("flow: %dx%d maze (%d open cells), %d enemies: A* per enemy %.1f us/move, field %.1f us/move "
+                        + "(update %.1f, lookups %.1f), %.0fx%n",
+                cols, rows, openCount, count, searchUs, flowUs, updateNanos / 1e3 / moves, lookupNanos / 1e3 / moves,
+                searchUs / flowUs);
+        System.out.printf("flow: %d incremental shifts, %d rebuilds, %d cells queued, %d mismatches against a rebuild (%d)%n",
+                field.getIncrementalUpdates(), field.getRebuilds(), field.getRelaxed(), mismatches, sink & 1);
+    }
+
+    /**
+     * The default maze repeated {@code tiling} times each way, with the seams
+     * between copies opened along their first row and column so it is all
+     * one maze.
+     */
+    static int[][] tiledMaze(int tiling) {
+        int[][] base = World.DEFAULT_MAZE;
+        int rows = base.length * tiling, cols = base[0].length * tiling;
+        int[][] maze = new int[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int r = row % base.length, c = col % base[0].length;
+                maze[row][col] = base[r][c];
+                boolean seam = r == 0 || c == 0 || r == base.length - 1 || c == base[0].length - 1;
+                boolean edge = row == 0 || col == 0 || row == rows - 1 || col == cols - 1;
+                if (seam && !edge && (r == 1 || c == 1)) maze[row][col] = 0;
+            }
+        }
+        return maze;
+    }
+
+    /**
+     * Answers {@code queries} random start and target pairs on a tiled maze
+     * with flat A* and with HPA*, then closes and reopens random tiles and
+     * times the local rebuild against building the whole abstract graph.
+     * Every HPA* path is checked to be a connected walk over open cells.
+     */
+    static void hpa(int tiling, int queries) {
+        int[][] maze = tiledMaze(tiling);
+        int rows = maze.length, cols = maze[0].length;
+        TileGrid tiles = new TileGrid(maze, TILE);
+        FlowField reach = new FlowField(tiles);
+        reach.setGoal(reach.cell(1, 1));
+        int[] open = new int[rows * cols];
+        int openCount = 0;
+        for (int cell = 0; cell < rows * cols; cell++) {
+            if (reach.distance(cell) != FlowField.UNREACHABLE) open[openCount++] = cell;
+        }
+        Random r = new Random(43);
+        int[] starts = new int[queries], targets = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            starts[i] = open[r.nextInt(openCount)];
+            targets[i] = open[r.nextInt(openCount)];
+        }
+
+        long start = System.nanoTime();
+        HierarchicalPathfinder hpa = new HierarchicalPathfinder(tiles);
+        double buildMs = (System.nanoTime() - start) / 1e6;
+        GridPathfinder flat = new GridPathfinder(tiles);
+        int[] path = new int[rows * cols];
+        long flatLength = 0, hpaLength = 0;
+        int broken = 0;
+
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            flatLength += flat.findPath(starts[i], targets[i], path);
+        }
+        double flatUs = (System.nanoTime() - start) / 1e3 / queries;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            hpa.nextStep(starts[i], targets[i]);
+        }
+        double stepUs = (System.nanoTime() - start) / 1e3 / queries;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            int length = hpa.findPath(starts[i], targets[i], path);
+            hpaLength += length;
+            if (!walkable(tiles, path, length, starts[i], targets[i])) broken++;
+        }
+        double hpaUs = (System.nanoTime() - start) / 1e3 / queries;
+
+        // Toggle tiles and repair only around them
+        int changes = 200;
+        long rebuilt = hpa.getClustersRebuilt();
+        start = System.nanoTime();
+        for (int i = 0; i < changes; i++) {
+            int cell = open[r.nextInt(openCount)];
+            tiles.setSolid(cell % cols, cell / cols, true);
+            hpa.tileChanged(cell % cols, cell / cols);
+            tiles.setSolid(cell % cols, cell / cols, false);
+            hpa.tileChanged(cell % cols, cell / cols);
+        }
+        double changeUs = (System.nanoTime() - start) / 1e3 / (2 * changes);
+        for (int i = 0; i < queries; i++) {
+            int length = hpa.findPath(starts[i], targets[i], path);
+            if (!walkable(tiles, path, length, starts[i], targets[i])) broken++;
+        }
+
+        System.out.printf("hpa: %dx%d maze (%d open cells), %d clusters of %d, %d abstract nodes, built in %.1f ms%n",
+                cols, rows, openCount, hpa.getClusterCount(), hpa.getClusterSize(),
+                hpa.getNodeCount(), buildMs);
+        System.out.printf("hpa: flat A* %.1f us/query; HPA* next step %.1f us, full path %.1f us; paths %.1f%% longer, %d broken%n",
+                flatUs, stepUs, hpaUs, (hpaLength - flatLength) * 100.0 / flatLength, broken);
+        System.out.printf("hpa: tile change repaired in %.1f us (%.1f clusters each) against %.1f ms for a full build%n",
+                changeUs, (hpa.getClustersRebuilt() - rebuilt) / (2.0 * changes), buildMs);
+    }
+
+    // Whether path holds a walk of adjacent open cells from start to target
+    private static boolean walkable(TileGrid tiles, int[] path, int length, int start, int target) {
+        if (length < 1 || path[0] != start || path[length - 1] != target) return false;
+        int cols = tiles.getCols();
+        for (int i = 0; i < length; i++) {
+            int cell = path[i];
+            if (tiles.isSolid(cell % cols, cell / cols)) return false;
+            if (i > 0 && Math.abs(cell % cols - path[i - 1] % cols) + Math.abs(cell / cols - path[i - 1] / cols) != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Contracts a generated {@code size} x {@code size} maze to its corridor
+     * graph and solves it corner to corner, against a breadth-first search
+     * over the raw grid. Corridor distances are first checked against the
+     * per-cell flow field on a tiled copy of the default maze.
+     */
+    static void corridors(int size) {
+        TileGrid check = new TileGrid(tiledMaze(8), TILE);
+        CorridorGraph checkGraph = new CorridorGraph(check);
+        CorridorField checkField = new CorridorField(checkGraph);
+        FlowField flowField = new FlowField(check);
+        Random r = new Random(47);
+        int cells = check.getCols() * check.getRows(), mismatches = 0;
+        for (int goal = 0; goal < 50; goal++) {
+            int target;
+            do {
+                target = r.nextInt(cells);
+            } while (!checkGraph.isOpen(target));
+            checkField.setGoal(target);
+            flowField.setGoal(target);
+            for (int cell = 0; cell < cells; cell++) {
+                if (!checkGraph.isOpen(cell)) continue;
+                int expected = flowField.distance(cell);
+                if (checkField.distance(cell) != expected) mismatches++;
+                int next = checkField.nextStep(cell);
+                if (expected != FlowField.UNREACHABLE && expected > 0 && flowField.distance(next) != expected - 1) {
+                    mismatches++;
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        int[][] maze = MazeGenerator.generate(MazeGenerator.Algorithm.BACKTRACKER, size, size, 53L);
+        double generateMs = (System.nanoTime() - start) / 1e6;
+        TileGrid tiles = new TileGrid(maze, TILE);
+        maze = null;
+        int last = (size - 1) / 2 * 2 - 1;
+        int from = size + 1, to = last * size + last;
+
+        start = System.nanoTime();
+        int[] dist = new int[size * size];
+        int[] queue = new int[size * size];
+        Arrays.fill(dist, -1);
+        dist[to] = 0;
+        int head = 0, tail = 0;
+        queue[tail++] = to;
+        while (head < tail && dist[from] < 0) {
+            int cell = queue[head++];
+            int col = cell % size, row = cell / size;
+            for (int d = 0; d < 4; d++) {
+                int next = d == 0 ? cell - size : d == 1 ? cell + size : d == 2 ? cell - 1 : cell + 1;
+                int nc = d < 2 ? col : col + (d == 2 ? -1 : 1), nr = d < 2 ? row + (d == 0 ? -1 : 1) : row;
+                if (nc < 0 || nr < 0 || nc >= size || nr >= size || dist[next] >= 0 || tiles.isSolid(nc, nr)) continue;
+                dist[next] = dist[cell] + 1;
+                queue[tail++] = next;
+            }
+        }
+        double bfsMs = (System.nanoTime() - start) / 1e6;
+        int bfsLength = dist[from];
+        long bfsBytes = 8L * size * size;
+        dist = null;
+        queue = null;
+
+        start = System.nanoTime();
+        CorridorGraph graph = new CorridorGraph(tiles);
+        double buildMs = (System.nanoTime() - start) / 1e6;
+        CorridorField field = new CorridorField(graph);
+        start = System.nanoTime();
+        field.setGoal(to);
+        int length = field.distance(from);
+        double solveMs = (System.nanoTime() - start) / 1e6;
+        long fieldBytes = 4L * graph.getNodeCount();
+
+        System.out.printf("corridors: %d mismatches against the flow field on the tiled default maze%n", mismatches);
+        System.out.printf("corridors: %dx%d maze generated in %.0f ms, %d nodes and %d edges for %d cells (%d components)%n",
+                size, size, generateMs, graph.getNodeCount(), graph.getEdgeCount(), (long) size * size,
+                graph.getComponentCount());
+        System.out.printf("corridors: grid BFS %.0f ms over %d MB, length %d%n", bfsMs, bfsBytes >> 20, bfsLength);
+        System.out.printf("corridors: graph built in %.0f ms, %d MB; solved in %.0f ms over %d MB more, length %d (%.1fx faster, %.1fx less memory)%n",
+                buildMs, graph.getMemoryBytes() >> 20, solveMs, fieldBytes >> 20, length, bfsMs / solveMs,
+                (double) bfsBytes / (graph.getMemoryBytes() + fieldBytes));
+    }
+
+    /**
+     * Generates a {@code size} x {@code size} maze with every algorithm and
+     * reports time and bytes allocated per cell; Eller's algorithm is also
+     * run streaming, without keeping the maze. Each algorithm's output is
+     * first checked to be a perfect maze on a smaller size: one component
+     * and exactly one fewer open adjacency than open cells.
+     */
+    static void mazeGeneration(int size) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        for (MazeGenerator.Algorithm algorithm : MazeGenerator.Algorithm.values()) {
+            int[][] small = MazeGenerator.generate(algorithm, 501, 701, 59L);
+            long open = 0, links = 0;
+            for (int row = 0; row < small.length; row++) {
+                for (int col = 0; col < small[0].length; col++) {
+                    if (TileGrid.isSolidCell(small[row][col])) continue;
+                    open++;
+                    if (col + 1 < small[0].length && !TileGrid.isSolidCell(small[row][col + 1])) links++;
+                    if (row + 1 < small.length && !TileGrid.isSolidCell(small[row + 1][col])) links++;
+                }
+            }
+            int components = new CorridorGraph(new TileGrid(small, TILE)).getComponentCount();
+            boolean perfect = components == 1 && links == open - 1;
+
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            int[][] maze = MazeGenerator.generate(algorithm, size, size, 61L);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+            int checkpoints = 0;
+            for (int[] row : maze) {
+                for (int code : row) {
+                    if (code == 7) checkpoints++;
+                }
+            }
+            maze = null;
+            System.out.printf("mazegen: %-11s %dx%d in %.2f s, %.2f bytes/cell allocated (4 for the maze), %d checkpoint, perfect: %b%n",
+                    algorithm.name().toLowerCase(), size, size, seconds, (double) bytes / ((long) size * size),
+                    checkpoints, perfect);
+        }
+        long[] open = new long[1];
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        MazeGenerator.stream(size, size, 61L, (row, codes) -> {
+            for (int code : codes) {
+                if (!TileGrid.isSolidCell(code)) open[0]++;
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+        System.out.printf("mazegen: eller streamed %dx%d in %.2f s, %d open cells, %d KB allocated in all%n",
+                size, size, seconds, open[0], bytes >> 10);
+    }
+
+    /**
+     * Streams a {@code size} x {@code size} maze straight into a
+     * {@link PackedMaze} and reports its footprint against an {@code int[][]}
+     * of the same size, which would not fit the default heap. A smaller maze
+     * is first checked to round-trip through the packed form cell for cell,
+     * and the solid test is timed against the array on it.
+     */
+    static void packed(int size) {
+        int[][] small = MazeGenerator.generate(MazeGenerator.Algorithm.WILSON, 2_001, 3_001, 67L);
+        PackedMaze check = PackedMaze.of(small);
+        int mismatches = 0;
+        int[][] copy = check.toArray();
+        for (int row = 0; row < small.length; row++) {
+            for (int col = 0; col < small[0].length; col++) {
+                if (copy[row][col] != small[row][col]) mismatches++;
+                if (check.isSolid(row, col) != TileGrid.isSolidCell(small[row][col])) mismatches++;
+            }
+        }
+        copy = null;
+        long arrayHits = 0, packedHits = 0;
+        long start = System.nanoTime();
+        for (int pass = 0; pass < 10; pass++) {
+            for (int[] row : small) {
+                for (int code : row) {
+                    if (TileGrid.isSolidCell(code)) arrayHits++;
+                }
+            }
+        }
+        double arrayMs = (System.nanoTime() - start) / 1e6;
+        int cells = small.length * small[0].length;
+        start = System.nanoTime();
+        for (int pass = 0; pass < 10; pass++) {
+            for (int cell = 0; cell < cells; cell++) {
+                if (check.isSolid(cell)) packedHits++;
+            }
+        }
+        double packedMs = (System.nanoTime() - start) / 1e6;
+        long arrayBytes = 16L * small.length + (16L + 4L * small[0].length) * small.length;
+        small = null;
+
+        start = System.nanoTime();
+        PackedMaze maze = new PackedMaze(size, size);
+        MazeGenerator.stream(size, size, 71L, maze::setRow);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long open = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            if (!maze.isSolid(cell)) open++;
+        }
+        long hugeArrayBytes = 16L * size + (16L + 4L * size) * size;
+
+        System.out.printf("packed: %d mismatches over %d cells; solid scan %.0f ms packed, %.0f ms int[][] (%b)%n",
+                mismatches, cells, packedMs, arrayMs, arrayHits == packedHits);
+        System.out.printf("packed: %dx%d streamed in %.2f s, %d open cells, %d special codes, %d MB against %d MB as int[][] (%.1fx less)%n",
+                size, size, seconds, open, maze.getOtherCount(), maze.getMemoryBytes() >> 20, hugeArrayBytes >> 20,
+                (double) hugeArrayBytes / maze.getMemoryBytes());
+    }
+
+    /**
+     * Writes chunked level files and streams them around a moving hero.
+     * First a small level is checked to read back cell for cell and pickup
+     * for pickup, a streamed world is checked to move its hero exactly as a
+     * world holding the whole maze does, and two streamed sessions with
+     * pickups and enemies are checked to play the same. Then a
+     * {@code size} x {@code size} maze is streamed from the generator into a
+     * file and the hero walks straight across it, reporting how many chunks
+     * the prefetch thread had ready and how much stays resident.
+     */
+    static void chunks(int size, int chunkSize, int radius) throws IOException {
+        Path file = Files.createTempFile("level", ChunkedLevel.EXTENSION);
+        try {
+            int rows = 1_000, cols = 1_500;
+            PackedMaze expected = new PackedMaze(rows, cols);
+            Random r = new Random(73);
+            long[] written = new long[500];
+            try (ChunkedLevel.Writer writer = new ChunkedLevel.Writer(file, rows, cols, chunkSize)) {
+                MazeGenerator.stream(rows, cols, 79L, (row, codes) -> {
+                    expected.setRow(row, codes);
+                    writer.row(row, codes);
+                });
+                for (int i = 0; i < written.length; i++) {
+                    int cell = r.nextInt(rows * cols);
+                    writer.addPickup(i % 4, i % 2, cell / cols, cell % cols);
+                    written[i] = (long) cell << 8 | (i % 4) << 1 | (i % 2);
+                }
+            }
+            int mismatches = 0, pickups = 0;
+            long[] read = new long[written.length];
+            try (ChunkedLevel level = ChunkedLevel.open(file)) {
+                byte[] tiles = new byte[level.getChunkBytes()];
+                for (int chunk = 0; chunk < level.getChunkCount(); chunk++) {
+                    level.readTiles(chunk, tiles);
+                    int firstRow = chunk / level.getChunkCols() * chunkSize;
+                    int firstCol = chunk % level.getChunkCols() * chunkSize;
+                    for (int i = 0; i < chunkSize * chunkSize; i++) {
+                        int row = firstRow + i / chunkSize, col = firstCol + i % chunkSize;
+                        int code = row < rows && col < cols ? expected.get(row, col) : 1;
+                        if (ChunkedLevel.code(tiles, i) != code) mismatches++;
+                    }
+                    for (int i = 0; i < level.getPickupCount(chunk); i++) {
+                        int cell = level.getPickupCell(chunk, i);
+                        if (cell / cols / chunkSize * level.getChunkCols() + cell % cols / chunkSize != chunk) mismatches++;
+                        if (level.getFirstPickup(chunk) + i != pickups) mismatches++;
+                        read[pickups++] = (long) cell << 8 | level.getPickupKind(chunk, i) << 1 | level.getPickupType(chunk, i);
+                    }
+                }
+                Arrays.sort(written);
+                Arrays.sort(read);
+                if (!Arrays.equals(written, read)) mismatches++;
+                World whole = new World(expected, 1L);
+                World streamed = new World(new ChunkStreamer(level, radius), 1L);
+                if (whole.getEndPoint().x != streamed.getEndPoint().x || whole.getEndPoint().y != streamed.getEndPoint().y
+                        || (whole.getCheckpoint() == null) != (streamed.getCheckpoint() == null)) {
+                    mismatches++;
+                }
+            }
+            System.out.printf("chunks: %dx%d level in %d chunks of %d, %d mismatches, %d of %d pickups read back%n",
+                    rows, cols, ((rows + chunkSize - 1) / chunkSize) * ((cols + chunkSize - 1) / chunkSize),
+                    chunkSize, mismatches, pickups, written.length);
+
+            // The hero bumps into the same walls whether the world holds the maze or streams it
+            int[][] tiled = tiledMaze(8);
+            try (ChunkedLevel.Writer writer = new ChunkedLevel.Writer(file, tiled.length, tiled[0].length, 8)) {
+                for (int row = 0; row < tiled.length; row++) {
+                    writer.row(row, tiled[row]);
+                }
+            }
+            int diverged = -1;
+            try (ChunkedLevel level = ChunkedLevel.open(file)) {
+                World whole = new World(tiled, 3L);
+                ChunkStreamer streamer = new ChunkStreamer(level, 1);
+                World streamed = new World(streamer, 3L);
+                Hero a = whole.spawnHero(5, 25), b = streamed.spawnHero(5, 25);
+                a.hp = b.hp = Integer.MAX_VALUE / 2;
+                InputPolicy pa = InputPolicy.random(83L), pb = InputPolicy.random(83L);
+                for (int step = 0; step < 20_000 && diverged < 0; step++) {
+                    pa.apply(whole, a);
+                    whole.step();
+                    pb.apply(streamed, b);
+                    streamed.step();
+                    if (a.x != b.x || a.y != b.y) diverged = step;
+                }
+                System.out.printf("chunks: hero walked %d steps on a streamed %dx%d level, %s; %d chunks read, %d prefetched, %d evicted%n",
+                        streamed.getTick(), tiled.length, tiled[0].length,
+                        diverged < 0 ? "same path as with the whole maze" : "diverged at step " + diverged,
+                        streamer.getLoads(), streamer.getPrefetchHits(), streamer.getEvictions());
+                streamer.close();
+            }
+
+            try (ChunkedLevel.Writer writer = new ChunkedLevel.Writer(file, tiled.length, tiled[0].length, 8)) {
+                for (int row = 0; row < tiled.length; row++) {
+                    writer.row(row, tiled[row]);
+                    for (int col = 0; col < tiled[0].length; col++) {
+                        if (!TileGrid.isSolidCell(tiled[row][col]) && r.nextInt(40) == 0) {
+                            writer.addPickup(r.nextInt(4), r.nextInt(2), row, col);
+                        }
+                    }
+                }
+            }
+            long[] hashes = new long[2];
+            int[] pickupsLeft = new int[2];
+            try (ChunkedLevel level = ChunkedLevel.open(file)) {
+                for (int run = 0; run < 2; run++) {
+                    ChunkStreamer streamer = new ChunkStreamer(level, 1);
+                    World world = new World(streamer, 5L);
+                    Hero hero = world.spawnHero(5, 25);
+                    world.populate(8);
+                    hero.hp = Integer.MAX_VALUE / 2;
+                    InputPolicy policy = InputPolicy.random(89L);
+                    for (int step = 0; step < 20_000; step++) {
+                        policy.apply(world, hero);
+                        world.step();
+                        hashes[run] = hashes[run] * 31 + world.stateHash();
+                    }
+                    pickupsLeft[run] = world.getGifts().size() + world.getBombs().size() + world.getArmor().size();
+                    streamer.close();
+                }
+                System.out.printf("chunks: two streamed sessions with %d pickups on file %s, %d pickups active at the end%n",
+                        level.getPickupCount(), hashes[0] == hashes[1] && pickupsLeft[0] == pickupsLeft[1]
+                                ? "played the same" : "DIVERGED", pickupsLeft[0]);
+            }
+
+            // A level too large for the heap as an int[][], walked from left to right
+            long start = System.nanoTime();
+            PickupSink sink = new PickupSink(file, size, chunkSize);
+            MazeGenerator.stream(size, size, 97L, sink);
+            sink.writer.close();
+            double writeSeconds = (System.nanoTime() - start) / 1e9;
+            try (ChunkedLevel level = ChunkedLevel.open(file)) {
+                ChunkStreamer streamer = new ChunkStreamer(level, radius);
+                long maxResident = 0, open = 0;
+                int row = size / 2 | 1;
+                start = System.nanoTime();
+                for (int col = 0; col < size; col++) {
+                    streamer.update(col, row);
+                    if (!streamer.isSolid(col, row)) open++;
+                    maxResident = Math.max(maxResident, streamer.getResidentBytes());
+                    // A hero takes seconds to cross a chunk; give the prefetch thread a moment
+                    if (col % chunkSize == 0) sleepQuietly(1);
+                }
+                double walkMs = (System.nanoTime() - start) / 1e6;
+                streamer.close();
+                System.out.printf("chunks: %dx%d level written in %.1f s, %d MB on disk with %d pickups%n",
+                        size, size, writeSeconds, Files.size(file) >> 20, level.getPickupCount());
+                System.out.printf("chunks: walked %d cells in %.0f ms (%d open); %d chunks read on the spot, %d ready from prefetch, %d evicted; at most %d KB resident against %d MB packed%n",
+                        size, walkMs, open, streamer.getLoads(), streamer.getPrefetchHits(), streamer.getEvictions(),
+                        maxResident >> 10, ((long) size * size / 4) >> 20);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Writes generated rows to a level file, with a pickup on about one open cell in 500
+    private static final class PickupSink implements MazeGenerator.RowSink {
+        final ChunkedLevel.Writer writer;
+        final SplittableRandom random = new SplittableRandom(101L);
+
+        PickupSink(Path file, int size, int chunkSize) throws IOException {
+            writer = new ChunkedLevel.Writer(file, size, size, chunkSize);
+        }
+
+        @Override
+        public void row(int row, int[] codes) {
+            writer.row(row, codes);
+            for (int col = 0; col < codes.length; col++) {
+                if (!TileGrid.isSolidCell(codes[col]) && random.nextInt(500) == 0) {
+                    writer.addPickup(random.nextInt(4), random.nextInt(2), row, col);
+                }
+            }
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Saves and loads a world holding {@code entities} pickups and enemies
+     * with the legacy text format and the binary format.
+     */
+    static void save(int entities) throws IOException {
+        World world = new World(5L);
+        world.spawnHero(5, 25);
+        for (int i = 0; i < entities; i++) {
+            int x = (i * 37) % 900, y = (i * 53) % 720;
+            switch (i % 5) {
+                case 0: world.addEnemy(new Enemy(world, x, y)); break;
+                case 1: world.addBomb(new Bomb(x, y, i & 1)); break;
+                case 2: world.addGift(new Gift(x, y, i & 1)); break;
+                case 3: world.addObstacle(new Obstacle(x, y)); break;
+                default: world.addArmor(new Armor(x, y));
+            }
+        }
+        int rounds = Math.max(1, 200_000 / Math.max(entities, 100));
+        Path text = Files.createTempFile("bench", LegacySave.EXTENSION);
+        Path binary = Files.createTempFile("bench", SaveFormat.EXTENSION);
+        SaveFormat format = new SaveFormat();
+        try {
+            // Warm up both paths before timing
+            for (int i = 0; i < 3; i++) {
+                LegacySave.write(world, 5, 25, text.toFile());
+                LegacySave.read(new World(5L), text.toFile());
+                format.write(world, 5, 25, binary);
+                format.read(new World(5L), binary);
+            }
+            double textSave = time(rounds, () -> LegacySave.write(world, 5, 25, text.toFile()));
+            double textLoad = time(rounds, () -> LegacySave.read(new World(5L), text.toFile()));
+            double binarySave = time(rounds, () -> format.write(world, 5, 25, binary));
+            double binaryLoad = time(rounds, () -> format.read(new World(5L), binary));
+            System.out.printf("save %7d entities: text %8d B, save %8.3f ms, load %8.3f ms | binary %8d B, save %8.3f ms, load %8.3f ms%n",
+                    entities, Files.size(text), textSave, textLoad, Files.size(binary), binarySave, binaryLoad);
+        } finally {
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(binary);
+        }
+    }
+
+    private interface IoTask {
+        void run() throws IOException;
+    }
+
+    // Average milliseconds per run
+    private static double time(int rounds, IoTask task) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / rounds;
+    }
+}
@@ -0,0 +1,278 @@
+package game.Engine;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Dense entity storage addressed by generational handles.
+ *
+ * Live entities sit packed in one array, so iterating is a plain indexed loop.
+ * Each entity also owns a slot whose index and generation form its handle;
+ * the handle stays valid while the entity moves around the dense array and
+ * goes stale once it is despawned, even if the slot is reused later.
+ * Despawning swaps the last entity into the hole and returns the slot to a
+ * free list, so both spawn and despawn are O(1).
+ *
+ * Between {@link #lock()} and {@link #unlock()} spawns and despawns are only
+ * recorded and are applied when the last lock is released. Code iterating the
+ * arena can therefore trigger them without skipping or repeating entities.
+ *
+ * The arena is also a {@link java.util.List} of the live entities in dense
+ * order, which changes whenever something is despawned; {@code add} and
+ * {@code remove} map to spawn and despawn.
+ */
+public class EntityArena<E extends EntityArena.Member> extends AbstractList<E> implements RandomAccess {
+
+    /**
+     * Implemented by anything stored in an arena, which keeps its handle there.
+     */
+    public interface Member {
+        long getHandle();
+
+        void setHandle(long handle);
+    }
+
+    /** Handle of something that is in no arena. */
+    public static final long NONE = -1L;
+
+    private static final int FREE = -1;
+    private static final int PENDING = -2;
+
+    // Live entities, packed, and the slot each one owns
+    private Object[] dense;
+    private int[] denseSlot;
+    private int size = 0;
+
+    // Per slot: dense index (or FREE / PENDING), generation, entity, free list link
+    private int[] slotIndex;
+    private int[] generation;
+    private Object[] slotItem;
+    private int[] nextFree;
+    private boolean[] doomed;
+    private int slotCount = 0;
+    private int freeHead = FREE;
+
+    // Deferred commands, applied on the last unlock
+    private int locks = 0;
+    private int[] pendingSpawn = new int[16];
+    private int spawnCount = 0;
+    private int[] pendingDespawn = new int[16];
+    private int despawnCount = 0;
+
+    public EntityArena() {
+        this(16);
+    }
+
+    public EntityArena(int capacity) {
+        capacity = Math.max(capacity, 1);
+        dense = new Object[capacity];
+        denseSlot = new int[capacity];
+        slotIndex = new int[capacity];
+        generation = new int[capacity];
+        slotItem = new Object[capacity];
+        nextFree = new int[capacity];
+        doomed = new boolean[capacity];
+    }
+
+    /**
+     * Adds the entity and returns its handle. While locked the entity only
+     * shows up in the dense order once the lock is released, but its handle
+     * resolves right away.
+     */
+    public long spawn(E item) {
+        if (item.getHandle() != NONE) {
+            throw new IllegalStateException("Already in an arena: " + item);
+        }
+        int slot = allocateSlot();
+        slotItem[slot] = item;
+        long handle = ((long) generation[slot] << 32) | slot;
+        item.setHandle(handle);
+        if (locks > 0) {
+            slotIndex[slot] = PENDING;
+            if (spawnCount == pendingSpawn.length) {
+                pendingSpawn = Arrays.copyOf(pendingSpawn, spawnCount * 2);
+            }
+            pendingSpawn[spawnCount++] = slot;
+        } else {
+            insert(slot);
+        }
+        return handle;
+    }
+
+    /**
+     * Removes the entity behind the handle. Returns false if the handle is
+     * stale or, while locked, already scheduled for removal.
+     */
+    public boolean despawn(long handle) {
+        if (!isAlive(handle)) {
+            return false;
+        }
+        int slot = (int) handle;
+        if (locks > 0) {
+            if (doomed[slot]) {
+                return false;
+            }
+            doomed[slot] = true;
+            if (despawnCount == pendingDespawn.length) {
+                pendingDespawn = Arrays.copyOf(pendingDespawn, despawnCount * 2);
+            }
+            pendingDespawn[despawnCount++] = slot;
+            return true;
+        }
+        release(slot);
+        return true;
+    }
+
+    public boolean despawn(E item) {
+        return resolve(item.getHandle()) == item && despawn(item.getHandle());
+    }
+
+    /** Whether the handle still refers to a spawned entity. */
+    public boolean isAlive(long handle) {
+        int slot = (int) handle;
+        return handle != NONE && slot >= 0 && slot < slotCount
+                && generation[slot] == (int) (handle >>> 32) && slotIndex[slot] != FREE;
+    }
+
+    /** The entity behind the handle, or null if the handle is stale. */
+    @SuppressWarnings("unchecked")
+    public E resolve(long handle) {
+        return isAlive(handle) ? (E) slotItem[(int) handle] : null;
+    }
+
+    /**
+     * Defers spawns and despawns until the matching {@link #unlock()}.
+     * Locks nest.
+     */
+    public void lock() {
+        locks++;
+    }
+
+    public void unlock() {
+        if (locks == 0) {
+            throw new IllegalStateException("Not locked");
+        }
+        if (--locks == 0) {
+            flush();
+        }
+    }
+
+    public boolean isLocked() {
+        return locks > 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return (E) dense[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(E item) {
+        spawn(item);
+        return true;
+    }
+
+    @Override
+    public E remove(int index) {
+        E item = get(index);
+        despawn(item.getHandle());
+        return item;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Member && slotItemIs((Member) o) && despawn(((Member) o).getHandle());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Member && slotItemIs((Member) o) && slotIndex[(int) ((Member) o).getHandle()] >= 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = size - 1; i >= 0; i--) {
+            despawn(denseSlot[i] | ((long) generation[denseSlot[i]] << 32));
+        }
+    }
+
+    private boolean slotItemIs(Member item) {
+        long handle = item.getHandle();
+        return isAlive(handle) && slotItem[(int) handle] == item;
+    }
+
+    private void flush() {
+        // Removals first, so a spawn and despawn in the same batch cancel out
+        for (int i = 0; i < despawnCount; i++) {
+            release(pendingDespawn[i]);
+        }
+        despawnCount = 0;
+        for (int i = 0; i < spawnCount; i++) {
+            int slot = pendingSpawn[i];
+            if (slotIndex[slot] == PENDING) {
+                insert(slot);
+            }
+        }
+        spawnCount = 0;
+    }
+
+    private int allocateSlot() {
+        if (freeHead != FREE) {
+            int slot = freeHead;
+            freeHead = nextFree[slot];
+            return slot;
+        }
+        if (slotCount == slotIndex.length) {
+            int capacity = slotCount * 2;
+            slotIndex = Arrays.copyOf(slotIndex, capacity);
+            generation = Arrays.copyOf(generation, capacity);
+            slotItem = Arrays.copyOf(slotItem, capacity);
+            nextFree = Arrays.copyOf(nextFree, capacity);
+            doomed = Arrays.copyOf(doomed, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void insert(int slot) {
+        if (size == dense.length) {
+            dense = Arrays.copyOf(dense, size * 2);
+            denseSlot = Arrays.copyOf(denseSlot, size * 2);
+        }
+        dense[size] = slotItem[slot];
+        denseSlot[size] = slot;
+        slotIndex[slot] = size;
+        size++;
+        modCount++;
+    }
+
+    private void release(int slot) {
+        int index = slotIndex[slot];
+        if (index >= 0) {
+            // Swap-remove, the last entity takes the hole
+            int last = size - 1;
+            dense[index] = dense[last];
+            denseSlot[index] = denseSlot[last];
+            slotIndex[denseSlot[index]] = index;
+            dense[last] = null;
+            size--;
+            modCount++;
+        }
+        ((Member) slotItem[slot]).setHandle(NONE);
+        slotItem[slot] = null;
+        slotIndex[slot] = FREE;
+        doomed[slot] = false;
+        generation[slot]++;
+        nextFree[slot] = freeHead;
+        freeHead = slot;
+    }
+}
@@ -0,0 +1,54 @@
+package game.Engine;
+
+/**
+ * Fixed-step accumulator shared by the front ends.
+ *
+ * Frame time goes in, a whole number of simulation steps comes out, and the
+ * leftover fraction of a step is kept for interpolation. It holds no toolkit
+ * state, so the pacing of either front end can be driven headlessly.
+ */
+public final class FixedTimestep {
+
+    private final long stepNanos;
+    private final long maxNanos;
+    private long accumulator = 0;
+
+    /**
+     * @param stepsPerSecond fixed simulation rate
+     * @param maxStepsPerFrame most steps one call may ask for, so a stall is
+     *        not followed by a burst of catch-up steps
+     */
+    public FixedTimestep(int stepsPerSecond, int maxStepsPerFrame) {
+        this.stepNanos = 1_000_000_000L / stepsPerSecond;
+        this.maxNanos = stepNanos * maxStepsPerFrame;
+    }
+
+    /**
+     * Adds the time since the last call and returns how many steps are due.
+     */
+    public int advance(long elapsedNanos) {
+        accumulator += Math.min(Math.max(elapsedNanos, 0), maxNanos);
+        int steps = (int) (accumulator / stepNanos);
+        accumulator -= steps * stepNanos;
+        return steps;
+    }
+
+    /** Drops the leftover time, e.g. while paused. */
+    public void reset() {
+        accumulator = 0;
+    }
+
+    /** Fraction of a step left over, in [0, 1). */
+    public float alpha() {
+        return (float) accumulator / stepNanos;
+    }
+
+    /** Time until the next step is due. */
+    public long remainingNanos() {
+        return stepNanos - accumulator;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+}
@@ -0,0 +1,194 @@
+package game.Engine;
+
+import java.util.Arrays;
+
+/**
+ * Distance field toward a single goal cell over the passable cells of a
+ * {@link TileGrid}, shared by every enemy.
+ *
+ * Each cell holds its step distance to the goal; an enemy moves to any
+ * neighbour one step closer, so steering costs O(1) per enemy and the field
+ * only has to change when the goal changes cell.
+ *
+ * Moving the goal to an adjacent cell is done incrementally. The 4-connected
+ * grid is bipartite, so every reachable distance changes by exactly one: it
+ * drops for the cells whose shortest paths to the old goal ran through the new
+ * one, and grows for all others. The dropping cells are found by walking the
+ * old shortest-path tree below the new goal, and the rest of the update is a
+ * single pass adding or subtracting one, with no queue work outside that
+ * subtree. Any other change rebuilds the field with a breadth-first search,
+ * which is Dijkstra for unit step costs.
+ */
+public final class FlowField {
+
+    public static final int NONE = -1;
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final TileGrid tiles;
+    private final int cols;
+    private final int rows;
+    private final int[] distance;
+    private final int[] queue;
+    // Marks the cells that got closer during an incremental update
+    private final int[] mark;
+    private int stamp = 0;
+    private int goal = NONE;
+
+    private long rebuilds = 0;
+    private long incrementalUpdates = 0;
+    private long relaxed = 0;
+
+    public FlowField(TileGrid tiles) {
+        this.tiles = tiles;
+        this.cols = tiles.getCols();
+        this.rows = tiles.getRows();
+        this.distance = new int[cols * rows];
+        this.queue = new int[cols * rows];
+        this.mark = new int[cols * rows];
+        Arrays.fill(distance, UNREACHABLE);
+    }
+
+    /**
+     * Points the field at a new goal cell, or clears it with {@link #NONE}.
+     * Nothing happens if the goal did not change.
+     */
+    public void setGoal(int cell) {
+        if (cell == goal) return;
+        if (cell != NONE && !isOpen(cell)) cell = NONE;
+        int previous = goal;
+        goal = cell;
+        if (cell == NONE) {
+            Arrays.fill(distance, UNREACHABLE);
+        } else if (previous != NONE && adjacent(previous, cell)) {
+            shift(cell);
+        } else {
+            rebuild();
+        }
+    }
+
+    public int getGoal() {
+        return goal;
+    }
+
+    /** Steps from the cell to the goal, or {@link #UNREACHABLE}. */
+    public int distance(int cell) {
+        return cell == NONE ? UNREACHABLE : distance[cell];
+    }
+
+    /**
+     * The neighbour of {@code cell} one step closer to the goal, the goal
+     * itself once there, or {@link #NONE} if the goal cannot be reached.
+     * Ties go to the first of up, down, left, right.
+     */
+    public int nextStep(int cell) {
+        if (cell == NONE || distance[cell] == UNREACHABLE) return NONE;
+        int d = distance[cell];
+        if (d == 0) return cell;
+        int col = cell % cols, row = cell / cols;
+        if (row > 0 && distance[cell - cols] == d - 1) return cell - cols;
+        if (row < rows - 1 && distance[cell + cols] == d - 1) return cell + cols;
+        if (col > 0 && distance[cell - 1] == d - 1) return cell - 1;
+        if (col < cols - 1 && distance[cell + 1] == d - 1) return cell + 1;
+        return NONE;
+    }
+
+    /** Cell index of the given grid coordinates, or {@link #NONE} outside the grid. */
+    public int cell(int col, int row) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return NONE;
+        return row * cols + col;
+    }
+
+    private void rebuild() {
+        rebuilds++;
+        Arrays.fill(distance, UNREACHABLE);
+        distance[goal] = 0;
+        int head = 0, tail = 0;
+        queue[tail++] = goal;
+        while (head < tail) {
+            int cell = queue[head++];
+            int next = distance[cell] + 1;
+            int col = cell % cols, row = cell / cols;
+            if (row > 0) tail = visit(cell - cols, next, tail);
+            if (row < rows - 1) tail = visit(cell + cols, next, tail);
+            if (col > 0) tail = visit(cell - 1, next, tail);
+            if (col < cols - 1) tail = visit(cell + 1, next, tail);
+        }
+        relaxed += tail;
+    }
+
+    private int visit(int cell, int d, int tail) {
+        if (distance[cell] == UNREACHABLE && isOpen(cell)) {
+            distance[cell] = d;
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+
+    // The goal moved to an adjacent cell; see the class comment
+    private void shift(int cell) {
+        incrementalUpdates++;
+        if (++stamp == 0) {
+            Arrays.fill(mark, 0);
+            stamp = 1;
+        }
+        // Cells below the new goal in the old shortest-path tree get closer
+        int head = 0, tail = 0;
+        queue[tail++] = cell;
+        mark[cell] = stamp;
+        while (head < tail) {
+            int u = queue[head++];
+            int child = distance[u] + 1;
+            int col = u % cols, row = u / cols;
+            if (row > 0) tail = descend(u - cols, child, tail);
+            if (row < rows - 1) tail = descend(u + cols, child, tail);
+            if (col > 0) tail = descend(u - 1, child, tail);
+            if (col < cols - 1) tail = descend(u + 1, child, tail);
+        }
+        relaxed += tail;
+        for (int i = 0; i < distance.length; i++) {
+            int d = distance[i];
+            if (d != UNREACHABLE) {
+                distance[i] = mark[i] == stamp ? d - 1 : d + 1;
+            }
+        }
+    }
+
+    private int descend(int cell, int d, int tail) {
+        if (distance[cell] == d && mark[cell] != stamp) {
+            mark[cell] = stamp;
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+
+    private boolean adjacent(int a, int b) {
+        return Math.abs(a % cols - b % cols) + Math.abs(a / cols - b / cols) == 1;
+    }
+
+    private boolean isOpen(int cell) {
+        return !tiles.getMaze().isSolid(cell);
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /** Full breadth-first rebuilds so far. */
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+    /** Moves to an adjacent cell handled without a rebuild. */
+    public long getIncrementalUpdates() {
+        return incrementalUpdates;
+    }
+
+    /** Cells that went through a queue, over all updates. */
+    public long getRelaxed() {
+        return relaxed;
+    }
+}
@@ -1,331 +1,306 @@
 package game.Engine;
 
+import game.Model.Hero;
+import game.Model.World;
+import game.View.DirtyRegions;
+import game.View.Entity;
+import game.View.FxSpriteAtlas;
+import game.View.FxSpriteBatch;
+import game.View.Sprite;
+import java.util.ArrayList;
+import java.util.List;
 import javafx.animation.AnimationTimer;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.KeyCode;
 import javafx.scene.layout.Pane;
-import game.Model.GameObject;
-import game.Model.Player;
-import game.Model.Enemy;
-import game.Model.Wall;
-import game.Model.Gift;
-import game.Model.Bomb;
-import game.Model.Armor;
-import game.Model.Obstacle;
-import game.Model.EndPoint;
-import game.Model.Checkpoint;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import javafx.scene.paint.Color;
 
 /**
- * Modern Game Engine using JavaFX with proper game loop
+ * JavaFX front end for a {@link World}.
+ *
+ * The engine owns no game state: it advances the shared simulation in the same
+ * fixed steps as the Swing {@link GameLoop}, forwards keys to the hero and
+ * draws whatever the world reports. Rules, collisions and entity lists live in
+ * {@link World} only, so both front ends play the same game.
+ *
+ * Drawing uses two stacked canvases. The maze goes on a background canvas that
+ * is only repainted when the checkpoint tile changes, the view moves, or on a
+ * streamed level when chunks come and go; only the tiles in view are drawn,
+ * and cells of inactive chunks stay black. Entities go on a transparent
+ * canvas on top, where each frame only the regions around entities that
+ * moved, appeared or disappeared are cleared and redrawn. Both layers draw
+ * through a {@link FxSpriteBatch} from the {@link FxSpriteAtlas} pages.
+ *
+ * On a level larger than the canvases, such as a streamed one, the view
+ * follows the hero. It keeps the hero's cell in the middle and moves a whole
+ * tile at a time, so both layers are only repainted in full when the hero
+ * crosses into another cell.
  */
 public class GameEngine {
-    
-    private Canvas canvas;
-    private GraphicsContext gc;
-    private AnimationTimer gameLoop;
-    private Pane gamePane;
-    
-    // Game state
+
+    public static final int UPDATES_PER_SECOND = World.STEPS_PER_SECOND;
+
+    // Never try to catch up more than this many steps after a stall
+    private static final int MAX_STEPS_PER_FRAME = 10;
+
+    private final World world;
+    private final Hero hero;
+    private final Canvas background;
+    private final Canvas canvas;
+    private final GraphicsContext backgroundGc;
+    private final GraphicsContext gc;
+    private final Pane gamePane;
+    private final int width;
+    private final int height;
+    private final DirtyRegions regions;
+    private final FxSpriteBatch batch = new FxSpriteBatch();
+    private final AnimationTimer gameLoop;
+    // Reused every frame, filled from World.drawables
+    private final List<Entity> drawList = new ArrayList<>();
+    private final FixedTimestep timestep = new FixedTimestep(UPDATES_PER_SECOND, MAX_STEPS_PER_FRAME);
+
     private boolean isRunning = false;
     private boolean isPaused = false;
-    private long lastUpdateTime;
-    
-    // Game objects
-    private Player player;
-    private List<Enemy> enemies = new CopyOnWriteArrayList<>();
-    private List<Wall> walls = new CopyOnWriteArrayList<>();
-    private List<Gift> gifts = new CopyOnWriteArrayList<>();
-    private List<Bomb> bombs = new CopyOnWriteArrayList<>();
-    private List<Armor> armors = new CopyOnWriteArrayList<>();
-    private List<Obstacle> obstacles = new CopyOnWriteArrayList<>();
-    private EndPoint endPoint;
-    private Checkpoint checkpoint;
-    
-    // Game settings
-    private static final int TARGET_FPS = 60;
-    private static final long TARGET_FRAME_TIME = 1_000_000_000L / TARGET_FPS;
-    
-    // Maze data
-    private int[][] maze;
-    
-    public GameEngine(int width, int height) {
+    private long previous;
+    // Whether the background currently shows the checkpoint, null before the first paint
+    private Boolean backgroundCheckpoint = null;
+    // Chunk generation the background shows on a streamed level
+    private long backgroundGeneration = -1;
+    // Level pixel at the top left corner of the canvases, set by the first paint
+    private int cameraX = 0;
+    private int cameraY = 0;
+    private boolean cameraSet = false;
+
+    // Draw calls of the last frame per layer, and totals for averages
+    private int backgroundDrawCalls = 0;
+    private int entityDrawCalls = 0;
+    private long frames = 0;
+    private long totalBackgroundDrawCalls = 0;
+    private long totalEntityDrawCalls = 0;
+
+    public GameEngine(World world, int width, int height) {
+        this.world = world;
+        this.hero = world.getPlayer();
+        this.background = new Canvas(width, height);
         this.canvas = new Canvas(width, height);
+        this.backgroundGc = background.getGraphicsContext2D();
         this.gc = canvas.getGraphicsContext2D();
-        this.gamePane = new Pane(canvas);
-        
-        initializeGameLoop();
-        initializeMaze();
-    }
-    
-    private void initializeGameLoop() {
-        gameLoop = new AnimationTimer() {
+        FxSpriteAtlas.load();
+        this.gamePane = new Pane(background, canvas);
+        this.width = width;
+        this.height = height;
+        this.regions = new DirtyRegions(width, height);
+        this.gameLoop = new AnimationTimer() {
             @Override
             public void handle(long now) {
-                if (!isRunning || isPaused) return;
-                
-                long deltaTime = now - lastUpdateTime;
-                if (deltaTime >= TARGET_FRAME_TIME) {
-                    update(deltaTime);
-                    render();
-                    lastUpdateTime = now;
-                }
+                frame(now);
             }
         };
     }
-    
-    private void initializeMaze() {
-        // Initialize the maze array (same as original)
-        maze = new int[][] {
-            {6,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,6},
-            {4,0,1,1,1,0,1,0,0,0,0,0,1,1,0,1,0,1,1,1,1,1,1,1,1,1,1,1,0,2},
-            {3,0,0,0,0,0,1,0,1,1,1,0,0,1,0,1,0,1,0,1,1,1,1,1,0,0,0,1,0,2},
-            {3,0,1,1,0,1,1,0,0,0,1,0,0,1,0,0,7,1,0,0,0,0,0,0,0,0,0,1,0,2},
-            {3,0,1,0,0,0,1,0,1,1,1,1,0,1,1,1,0,0,0,1,1,1,1,1,0,1,0,1,0,2},
-            {3,0,1,0,1,1,1,0,1,0,0,1,0,8,0,0,0,1,1,1,1,1,0,0,0,1,0,1,0,2},
-            {3,0,1,0,0,0,0,0,1,0,0,0,0,1,0,1,0,0,0,1,0,1,0,1,0,1,0,0,0,2},
-            {3,0,1,0,1,1,1,0,1,0,1,0,0,1,0,1,0,1,1,1,0,1,0,1,0,1,1,0,0,2},
-            {3,0,1,0,1,0,0,0,1,0,1,0,0,1,0,1,0,0,0,0,0,0,0,1,0,0,1,1,0,2},
-            {3,0,1,1,1,1,1,0,1,1,1,1,1,1,0,1,0,1,1,1,0,1,0,1,0,0,0,1,0,2},
-            {3,8,0,0,1,0,0,0,0,0,0,0,0,1,0,1,1,1,0,1,0,1,0,1,1,1,1,1,1,2},
-            {3,0,0,1,1,1,1,1,0,1,1,0,0,1,0,0,0,1,0,1,1,1,0,0,0,0,0,0,0,2},
-            {3,0,0,0,0,1,0,0,0,0,1,1,1,1,1,1,0,1,0,0,0,0,0,1,1,0,1,0,0,2},
-            {3,0,1,0,0,1,1,1,0,0,0,0,0,1,0,0,0,1,0,1,0,1,0,1,0,0,1,1,0,2},
-            {3,0,1,0,0,0,0,1,0,0,1,1,1,1,1,1,0,1,1,1,1,1,0,1,1,0,1,0,0,2},
-            {3,1,1,1,1,0,1,1,0,0,1,0,0,8,0,1,0,0,0,1,0,0,0,0,1,0,1,1,1,2},
-            {3,0,1,1,0,0,1,0,0,0,1,0,1,1,0,0,0,0,1,1,1,1,0,1,1,0,0,0,0,2},
-            {3,0,0,1,0,0,1,1,1,0,1,0,0,1,1,1,1,0,1,0,0,1,0,1,0,0,1,0,0,2},
-            {3,0,0,0,0,0,0,0,0,0,1,1,0,1,0,0,0,0,1,0,0,1,0,1,0,1,1,0,0,2},
-            {3,0,1,1,1,0,1,1,0,0,1,0,0,1,0,1,1,1,1,1,0,1,0,1,0,1,0,0,0,2},
-            {3,0,0,0,1,0,1,0,0,1,1,0,1,1,0,1,0,0,0,1,0,0,0,1,0,1,0,0,0,2},
-            {3,0,1,1,1,0,0,0,1,1,1,0,0,1,0,1,1,1,0,0,0,1,1,1,0,1,1,1,0,2},
-            {3,0,0,0,0,0,0,1,1,1,1,1,0,8,0,0,0,1,1,1,0,1,0,0,0,0,0,1,0,2},
-            {6,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,6}
-        };
-    }
-    
+
     public void start() {
         if (!isRunning) {
             isRunning = true;
-            lastUpdateTime = System.nanoTime();
+            previous = System.nanoTime();
+            timestep.reset();
             gameLoop.start();
         }
     }
-    
+
     public void stop() {
         isRunning = false;
         gameLoop.stop();
     }
-    
+
     public void pause() {
         isPaused = true;
     }
-    
+
     public void resume() {
         isPaused = false;
     }
-    
-    private void update(long deltaTime) {
-        double deltaSeconds = deltaTime / 1_000_000_000.0;
-        
-        // Update player
-        if (player != null) {
-            player.update(deltaSeconds);
-        }
-        
-        // Update enemies
-        enemies.forEach(enemy -> enemy.update(deltaSeconds));
-        
-        // Update other game objects
-        bombs.forEach(bomb -> bomb.update(deltaSeconds));
-        gifts.forEach(gift -> gift.update(deltaSeconds));
-        
-        // Check collisions
-        checkCollisions();
-        
-        // Remove dead objects
-        cleanupDeadObjects();
+
+    public boolean isPaused() {
+        return isPaused;
     }
-    
-    private void render() {
-        // Clear canvas
-        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-        
-        // Render background
-        renderBackground();
-        
-        // Render game objects
-        walls.forEach(wall -> wall.render(gc));
-        gifts.forEach(gift -> gift.render(gc));
-        bombs.forEach(bomb -> bomb.render(gc));
-        armors.forEach(armor -> armor.render(gc));
-        obstacles.forEach(obstacle -> obstacle.render(gc));
-        
-        if (checkpoint != null) {
-            checkpoint.render(gc);
-        }
-        
-        if (endPoint != null) {
-            endPoint.render(gc);
+
+    public void keyPressed(KeyCode code) {
+        // JavaFX key codes carry the same values as the AWT ones the hero expects
+        hero.press(code.getCode());
+    }
+
+    public void keyReleased(KeyCode code) {
+        hero.release(code.getCode());
+    }
+
+    private void frame(long now) {
+        long elapsed = now - previous;
+        previous = now;
+        if (isPaused) {
+            timestep.reset();
+        } else {
+            // World.step() is plain arithmetic on primitive boxes, no scene graph involved
+            for (int steps = timestep.advance(elapsed); steps > 0; steps--) {
+                world.step();
+            }
         }
-        
-        enemies.forEach(enemy -> enemy.render(gc));
-        
-        if (player != null) {
-            player.render(gc);
+        render(timestep.alpha());
+        if (world.getState() != World.State.RUNNING) {
+            stop();
         }
     }
-    
-    private void renderBackground() {
-        // Render maze background
-        for (int row = 0; row < maze.length; row++) {
-            for (int col = 0; col < maze[row].length; col++) {
-                int cell = maze[row][col];
-                double x = col * 30.0;
-                double y = row * 30.0;
-                
-                switch (cell) {
-                    case 0: // Path
-                        gc.setFill(javafx.scene.paint.Color.BLACK);
-                        break;
-                    case 1: // Wall
-                        gc.setFill(javafx.scene.paint.Color.GRAY);
-                        break;
-                    case 2: // Right border
-                        gc.setFill(javafx.scene.paint.Color.DARKGRAY);
-                        break;
-                    case 3: // Left border
-                        gc.setFill(javafx.scene.paint.Color.DARKGRAY);
-                        break;
-                    case 4: // Top border
-                        gc.setFill(javafx.scene.paint.Color.DARKGRAY);
-                        break;
-                    case 5: // Top corner
-                        gc.setFill(javafx.scene.paint.Color.DARKGRAY);
-                        break;
-                    case 6: // Corner
-                        gc.setFill(javafx.scene.paint.Color.DARKGRAY);
-                        break;
-                    default:
-                        gc.setFill(javafx.scene.paint.Color.BLACK);
-                        break;
+
+    private void render(float alpha) {
+        Entity.interpolation = world.getState() == World.State.RUNNING ? alpha : 1f;
+        backgroundDrawCalls = 0;
+        entityDrawCalls = 0;
+        boolean checkpointVisible = hero.IsSaved() == 0;
+        ChunkStreamer chunks = world.getChunks();
+        long generation = chunks == null ? 0 : chunks.getGeneration();
+        boolean cameraMoved = followHero();
+        if (cameraMoved) {
+            // Every sprite is somewhere else on screen now
+            regions.invalidate();
+        }
+        if (backgroundCheckpoint == null || backgroundCheckpoint != checkpointVisible
+                || generation != backgroundGeneration || cameraMoved) {
+            renderMaze(checkpointVisible);
+            backgroundCheckpoint = checkpointVisible;
+            backgroundGeneration = generation;
+        }
+
+        drawList.clear();
+        world.drawables(drawList);
+        regions.begin();
+        for (int i = 0; i < drawList.size(); i++) {
+            Entity entity = drawList.get(i);
+            Sprite sprite = entity.getSprite();
+            if (sprite != null) {
+                int x = entity.spriteX() - cameraX, y = entity.spriteY() - cameraY;
+                int w = FxSpriteAtlas.getWidth(sprite), h = FxSpriteAtlas.getHeight(sprite);
+                if (x < width && y < height && x + w > 0 && y + h > 0) {
+                    regions.add(entity, sprite, x, y, w, h);
                 }
-                
-                gc.fillRect(x, y, 30, 30);
             }
         }
-    }
-    
-    private void checkCollisions() {
-        if (player == null) return;
-        
-        // Check player-enemy collisions
-        enemies.forEach(enemy -> {
-            if (player.getBoundsInParent().intersects(enemy.getBoundsInParent())) {
-                player.takeDamage(10);
-                if (player.getHealth() <= 0) {
-                    gameOver();
-                }
+        regions.compute();
+        if (regions.getDirtyCount() > 0) {
+            gc.save();
+            // Sprites overlapping a dirty region are redrawn whole, the clip keeps
+            // their translucent edges from being painted twice outside it
+            gc.beginPath();
+            for (int d = 0; d < regions.getDirtyCount(); d++) {
+                gc.rect(regions.getDirtyX(d), regions.getDirtyY(d), regions.getDirtyWidth(d), regions.getDirtyHeight(d));
             }
-        });
-        
-        // Check player-gift collisions
-        gifts.forEach(gift -> {
-            if (player.getBoundsInParent().intersects(gift.getBoundsInParent())) {
-                player.collectGift(gift);
-                gifts.remove(gift);
+            gc.clip();
+            for (int d = 0; d < regions.getDirtyCount(); d++) {
+                gc.clearRect(regions.getDirtyX(d), regions.getDirtyY(d), regions.getDirtyWidth(d), regions.getDirtyHeight(d));
+                entityDrawCalls++;
             }
-        });
-        
-        // Check player-bomb collisions
-        bombs.forEach(bomb -> {
-            if (player.getBoundsInParent().intersects(bomb.getBoundsInParent())) {
-                player.takeDamage(bomb.getDamage());
-                bombs.remove(bomb);
-                if (player.getHealth() <= 0) {
-                    gameOver();
+            for (int i = 0; i < regions.size(); i++) {
+                if (regions.needsRedraw(i)) {
+                    batch.draw(regions.getSprite(i), regions.getX(i), regions.getY(i));
                 }
             }
-        });
-        
-        // Check player-armor collisions
-        armors.forEach(armor -> {
-            if (player.getBoundsInParent().intersects(armor.getBoundsInParent())) {
-                player.collectArmor(armor);
-                armors.remove(armor);
+            entityDrawCalls += batch.flush(gc);
+            gc.restore();
+        }
+        frames++;
+        totalBackgroundDrawCalls += backgroundDrawCalls;
+        totalEntityDrawCalls += entityDrawCalls;
+    }
+
+    /**
+     * Moves the view so the hero's cell is in the middle, kept inside the
+     * level. Returns whether it moved.
+     */
+    private boolean followHero() {
+        int levelWidth = world.getTiles().getCols() * World.TILE;
+        int levelHeight = world.getTiles().getRows() * World.TILE;
+        int x = Math.floorDiv(hero.boxLeft() + hero.boxWidth() / 2 - width / 2, World.TILE) * World.TILE;
+        int y = Math.floorDiv(hero.boxTop() + hero.boxHeight() / 2 - height / 2, World.TILE) * World.TILE;
+        x = Math.max(0, Math.min(x, levelWidth - width));
+        y = Math.max(0, Math.min(y, levelHeight - height));
+        if (cameraSet && x == cameraX && y == cameraY) return false;
+        cameraX = x;
+        cameraY = y;
+        cameraSet = true;
+        return true;
+    }
+
+    private void renderMaze(boolean checkpointVisible) {
+        PackedMaze maze = world.getPackedMaze();
+        ChunkStreamer chunks = world.getChunks();
+        backgroundGc.setFill(Color.BLACK);
+        backgroundGc.fillRect(0, 0, background.getWidth(), background.getHeight());
+        backgroundDrawCalls++;
+        int rows = world.getTiles().getRows(), cols = world.getTiles().getCols();
+        int firstCol = cameraX / World.TILE, lastCol = Math.min(cols, (cameraX + width + World.TILE - 1) / World.TILE);
+        int firstRow = cameraY / World.TILE, lastRow = Math.min(rows, (cameraY + height + World.TILE - 1) / World.TILE);
+        int checkpoint = -1;
+        for (int row = firstRow; row < lastRow; row++) {
+            for (int col = firstCol; col < lastCol; col++) {
+                int cell = maze != null ? maze.get(row, col) : chunks.code(col, row);
+                // Cells of chunks that are not active are left black
+                if (cell != ChunkStreamer.NONE && drawTile(cell, col, row, checkpointVisible)) {
+                    checkpoint = row * cols + col;
+                }
             }
-        });
-        
-        // Check player-endpoint collision
-        if (endPoint != null && player.getBoundsInParent().intersects(endPoint.getBoundsInParent())) {
-            gameWon();
         }
+        backgroundDrawCalls += batch.flush(backgroundGc);
+        if (checkpoint >= 0) {
+            int checkpointX = checkpoint % cols * World.TILE - cameraX, checkpointY = checkpoint / cols * World.TILE - cameraY;
+            backgroundGc.setStroke(Color.BLACK);
+            backgroundGc.strokeRect(checkpointX, checkpointY, World.TILE, World.TILE);
+            backgroundDrawCalls++;
+        }
+    }
+
+    // Queues the sprites of one tile; true if that was the visible checkpoint
+    private boolean drawTile(int cell, int col, int row, boolean checkpointVisible) {
+        double x = col * World.TILE - cameraX, y = row * World.TILE - cameraY;
+        if (TileGrid.isSolidCell(cell)) {
+            batch.draw(Sprite.forWall(cell), x, y);
+            return false;
+        }
+        batch.draw(Sprite.GROUND, x, y);
+        if (cell == 7 && checkpointVisible) {
+            batch.draw(Sprite.CHECKPOINT, x, y);
+            return true;
+        }
+        return false;
     }
-    
-    private void cleanupDeadObjects() {
-        enemies.removeIf(enemy -> !enemy.isAlive());
-        bombs.removeIf(bomb -> bomb.isExploded());
+
+    /** Draw calls the background layer issued in the last frame. */
+    public int getBackgroundDrawCalls() {
+        return backgroundDrawCalls;
     }
-    
-    private void gameOver() {
-        stop();
-        // TODO: Show game over screen
+
+    /** Clears and sprite draws the entity layer issued in the last frame. */
+    public int getEntityDrawCalls() {
+        return entityDrawCalls;
     }
-    
-    private void gameWon() {
-        stop();
-        // TODO: Show victory screen
+
+    /**
+     * Average draw calls per frame and layer since the engine started.
+     */
+    public String stats() {
+        long n = Math.max(frames, 1);
+        return String.format("draw calls/frame: background %.1f, entities %.1f; atlas pages %d, page switches/frame %.2f",
+                (double) totalBackgroundDrawCalls / n, (double) totalEntityDrawCalls / n,
+                FxSpriteAtlas.getPageCount(), (double) batch.getPageSwitches() / n);
     }
-    
-    // Getters and setters
+
     public Pane getGamePane() {
         return gamePane;
     }
-    
+
     public Canvas getCanvas() {
         return canvas;
     }
-    
-    public void setPlayer(Player player) {
-        this.player = player;
-    }
-    
-    public void addEnemy(Enemy enemy) {
-        enemies.add(enemy);
-    }
-    
-    public void addWall(Wall wall) {
-        walls.add(wall);
-    }
-    
-    public void addGift(Gift gift) {
-        gifts.add(gift);
-    }
-    
-    public void addBomb(Bomb bomb) {
-        bombs.add(bomb);
-    }
-    
-    public void addArmor(Armor armor) {
-        armors.add(armor);
-    }
-    
-    public void addObstacle(Obstacle obstacle) {
-        obstacles.add(obstacle);
-    }
-    
-    public void setEndPoint(EndPoint endPoint) {
-        this.endPoint = endPoint;
-    }
-    
-    public void setCheckpoint(Checkpoint checkpoint) {
-        this.checkpoint = checkpoint;
-    }
-    
-    public int[][] getMaze() {
-        return maze;
+
+    public World getWorld() {
+        return world;
     }
 }
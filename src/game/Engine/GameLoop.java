@@ -0,0 +1,135 @@
+package game.Engine;
+
+/**
+ * Active game loop running on its own thread.
+ *
+ * The simulation advances in fixed steps so game speed no longer depends on
+ * timer accuracy, while frames are rendered at their own (optionally capped)
+ * rate. The fraction of a step left over when a frame is drawn is passed to
+ * the renderer so it can interpolate positions between the last two states.
+ */
+public class GameLoop implements Runnable {
+
+    public interface Handler {
+        /** Advances the simulation by exactly one fixed step. */
+        void update();
+
+        /** Draws a frame; {@code alpha} is in [0, 1) between the previous and current step. */
+        void render(float alpha);
+    }
+
+    // Never try to catch up more than this many steps after a stall
+    private static final int MAX_STEPS_PER_FRAME = 10;
+
+    private final Handler handler;
+    private final FixedTimestep timestep;
+    private final long frameNanos;
+
+    private volatile boolean running = false;
+    private volatile boolean paused = false;
+    private Thread thread;
+
+    // Rates measured over the last full second
+    private volatile int updateRate = 0;
+    private volatile int renderRate = 0;
+
+    /**
+     * @param updatesPerSecond fixed simulation rate
+     * @param framesPerSecond render cap, or 0 to render as often as possible
+     */
+    public GameLoop(Handler handler, int updatesPerSecond, int framesPerSecond) {
+        this.handler = handler;
+        this.timestep = new FixedTimestep(updatesPerSecond, MAX_STEPS_PER_FRAME);
+        this.frameNanos = framesPerSecond > 0 ? 1_000_000_000L / framesPerSecond : 0;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+        }
+        thread = null;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void run() {
+        long previous = System.nanoTime();
+        long nextFrame = previous;
+        long secondStart = previous;
+        int updates = 0, frames = 0;
+
+        while (running) {
+            long now = System.nanoTime();
+            long elapsed = now - previous;
+            previous = now;
+
+            if (paused) {
+                timestep.reset();
+            } else {
+                for (int steps = timestep.advance(elapsed); steps > 0; steps--) {
+                    handler.update();
+                    updates++;
+                }
+            }
+
+            if (now >= nextFrame) {
+                handler.render(timestep.alpha());
+                frames++;
+                nextFrame = frameNanos > 0 ? Math.max(nextFrame + frameNanos, now) : now;
+            }
+
+            if (now - secondStart >= 1_000_000_000L) {
+                updateRate = updates;
+                renderRate = frames;
+                updates = 0;
+                frames = 0;
+                secondStart = now;
+            }
+
+            idle(Math.min(timestep.remainingNanos(), nextFrame - System.nanoTime()));
+        }
+    }
+
+    private void idle(long nanos) {
+        if (nanos > 1_000_000L) {
+            try {
+                // Wake slightly early, the OS sleep granularity is coarse
+                Thread.sleep((nanos - 500_000L) / 1_000_000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else if (nanos > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /** Simulation steps completed during the last second. */
+    public int getUpdateRate() {
+        return updateRate;
+    }
+
+    /** Frames rendered during the last second. */
+    public int getRenderRate() {
+        return renderRate;
+    }
+}
@@ -0,0 +1,316 @@
+package game.Engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A* over the passable cells of a {@link TileGrid}.
+ *
+ * Cells are addressed by {@code row * cols + col}. The search keeps its state
+ * in flat arrays sized once per grid: an int-indexed binary heap with
+ * decrease-key for the open set and a {@link BitSet} for the closed set, so a
+ * search allocates nothing.
+ *
+ * Enemies all chase the same goal, so results are cached as the next hop
+ * toward the goal for every cell on a found path; a later query from any of
+ * those cells is answered without searching. The cache is dropped only when
+ * the goal cell changes. Searches draw on a per-tick budget of node
+ * expansions, which keeps the pathfinding cost of a step bounded however many
+ * enemies ask, and keeps it deterministic. A search that spends the rest of
+ * the budget stops where it is and is asked again on a later tick, so the
+ * budget has to cover the longest search the level needs.
+ */
+public final class GridPathfinder {
+
+    public static final int NONE = -1;
+
+    private final TileGrid tiles;
+    private final int cols;
+    private final int rows;
+
+    // Per-cell search state, valid while stamp[cell] == search
+    private final int[] g;
+    private final int[] parent;
+    private final int[] stamp;
+    private final BitSet closed;
+    private int search = 0;
+
+    // Open set: binary heap of cells keyed by f, then by larger g
+    private final int[] heap;
+    private final long[] heapKey;
+    private final int[] heapIndex;
+    private int heapSize = 0;
+
+    // Next hop toward the goal, valid while hopVersion[cell] == version
+    private final int[] nextHop;
+    private final int[] hopVersion;
+    private int version = 1;
+    private int goal = NONE;
+
+    private int budget = Integer.MAX_VALUE;
+    private int remaining = Integer.MAX_VALUE;
+    // Whether the last search stopped because the budget ran out
+    private boolean exhausted = false;
+
+    private long searches = 0;
+    private long cacheHits = 0;
+    private long deferred = 0;
+    private long expansions = 0;
+
+    public GridPathfinder(TileGrid tiles) {
+        this.tiles = tiles;
+        this.cols = tiles.getCols();
+        this.rows = tiles.getRows();
+        int cells = cols * rows;
+        g = new int[cells];
+        parent = new int[cells];
+        stamp = new int[cells];
+        closed = new BitSet(cells);
+        heap = new int[cells];
+        heapKey = new long[cells];
+        heapIndex = new int[cells];
+        nextHop = new int[cells];
+        hopVersion = new int[cells];
+    }
+
+    /**
+     * Node expansions allowed per tick across all searches. A query that
+     * finds the budget spent, or spends it before finding a path, returns
+     * {@link #NONE} until the next tick.
+     */
+    public void setBudget(int expansionsPerTick) {
+        this.budget = expansionsPerTick;
+        this.remaining = expansionsPerTick;
+    }
+
+    /** Refills the expansion budget; called once per simulation step. */
+    public void beginTick() {
+        remaining = budget;
+    }
+
+    /**
+     * Sets the cell every {@link #nextStep} query heads for. Cached hops are
+     * dropped only if the cell actually changed.
+     */
+    public void setGoal(int cell) {
+        if (cell != goal) {
+            goal = cell;
+            version++;
+        }
+    }
+
+    public int getGoal() {
+        return goal;
+    }
+
+    /**
+     * The neighbour of {@code start} to move to next on a shortest path to
+     * the goal, the goal itself once there, or {@link #NONE} if the goal is
+     * unreachable, unset, or this tick's budget is spent.
+     */
+    public int nextStep(int start) {
+        if (goal == NONE || start == NONE) return NONE;
+        if (start == goal) return goal;
+        if (hopVersion[start] == version) {
+            cacheHits++;
+            return nextHop[start];
+        }
+        if (remaining <= 0) {
+            deferred++;
+            return NONE;
+        }
+        if (!search(start, goal)) {
+            if (exhausted) {
+                // Cut short, not unreachable: nothing to remember
+                deferred++;
+                return NONE;
+            }
+            // Remember the failure too, until the goal moves
+            hopVersion[start] = version;
+            nextHop[start] = NONE;
+            return NONE;
+        }
+        // Every cell on the path now knows its next hop
+        for (int cell = goal; cell != start; ) {
+            int from = parent[cell];
+            hopVersion[from] = version;
+            nextHop[from] = cell;
+            cell = from;
+        }
+        return nextHop[start];
+    }
+
+    /**
+     * Finds a shortest path ignoring the cache and the budget. Writes the
+     * cells from {@code start} to {@code target} into {@code out} and returns
+     * how many there are, or -1 if there is no path or {@code out} is too
+     * short.
+     */
+    public int findPath(int start, int target, int[] out) {
+        int saved = remaining;
+        remaining = Integer.MAX_VALUE;
+        boolean found = search(start, target);
+        remaining = saved;
+        if (!found) return -1;
+        int length = g[target] + 1;
+        if (length > out.length) return -1;
+        for (int cell = target, i = length - 1; i >= 0; i--) {
+            out[i] = cell;
+            cell = parent[cell];
+        }
+        return length;
+    }
+
+    private boolean search(int start, int target) {
+        exhausted = false;
+        if (!isOpen(start) || !isOpen(target)) return false;
+        searches++;
+        if (++search == 0) {
+            // Stamp wrapped around, forget every stale entry
+            Arrays.fill(stamp, 0);
+            search = 1;
+        }
+        closed.clear();
+        heapSize = 0;
+        int targetCol = target % cols, targetRow = target / cols;
+
+        stamp[start] = search;
+        g[start] = 0;
+        parent[start] = NONE;
+        push(start, key(start, 0, targetCol, targetRow));
+
+        while (heapSize > 0) {
+            int cell = pop();
+            if (cell == target) return true;
+            if (remaining <= 0) {
+                exhausted = true;
+                return false;
+            }
+            closed.set(cell);
+            expansions++;
+            remaining--;
+            int col = cell % cols, row = cell / cols;
+            int next = g[cell] + 1;
+            if (col > 0) relax(cell, cell - 1, next, targetCol, targetRow);
+            if (col < cols - 1) relax(cell, cell + 1, next, targetCol, targetRow);
+            if (row > 0) relax(cell, cell - cols, next, targetCol, targetRow);
+            if (row < rows - 1) relax(cell, cell + cols, next, targetCol, targetRow);
+        }
+        return false;
+    }
+
+    private void relax(int from, int cell, int cost, int targetCol, int targetRow) {
+        if (closed.get(cell) || !isOpen(cell)) return;
+        if (stamp[cell] != search) {
+            stamp[cell] = search;
+            g[cell] = cost;
+            parent[cell] = from;
+            push(cell, key(cell, cost, targetCol, targetRow));
+        } else if (cost < g[cell]) {
+            g[cell] = cost;
+            parent[cell] = from;
+            decrease(cell, key(cell, cost, targetCol, targetRow));
+        }
+    }
+
+    // f in the high bits; among equal f prefer the cell furthest from the start
+    private long key(int cell, int cost, int targetCol, int targetRow) {
+        int h = Math.abs(cell % cols - targetCol) + Math.abs(cell / cols - targetRow);
+        return ((long) (cost + h) << 32) | (Integer.MAX_VALUE - cost);
+    }
+
+    private void push(int cell, long key) {
+        int i = heapSize++;
+        heap[i] = cell;
+        heapKey[i] = key;
+        heapIndex[cell] = i;
+        siftUp(i);
+    }
+
+    private void decrease(int cell, long key) {
+        int i = heapIndex[cell];
+        heapKey[i] = key;
+        siftUp(i);
+    }
+
+    private int pop() {
+        int top = heap[0];
+        heapSize--;
+        if (heapSize > 0) {
+            move(heapSize, 0);
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int cell = heap[i];
+        long key = heapKey[i];
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heapKey[up] <= key) break;
+            move(up, i);
+            i = up;
+        }
+        heap[i] = cell;
+        heapKey[i] = key;
+        heapIndex[cell] = i;
+    }
+
+    private void siftDown(int i) {
+        int cell = heap[i];
+        long key = heapKey[i];
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child]) child++;
+            if (key <= heapKey[child]) break;
+            move(child, i);
+            i = child;
+        }
+        heap[i] = cell;
+        heapKey[i] = key;
+        heapIndex[cell] = i;
+    }
+
+    private void move(int from, int to) {
+        heap[to] = heap[from];
+        heapKey[to] = heapKey[from];
+        heapIndex[heap[to]] = to;
+    }
+
+    private boolean isOpen(int cell) {
+        return cell >= 0 && cell < cols * rows && !tiles.isSolid(cell % cols, cell / cols);
+    }
+
+    /** Cell index of the given grid coordinates, or {@link #NONE} outside the grid. */
+    public int cell(int col, int row) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return NONE;
+        return row * cols + col;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getSearches() {
+        return searches;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /** Queries turned away or cut short because the tick's budget was spent. */
+    public long getDeferred() {
+        return deferred;
+    }
+
+    public long getExpansions() {
+        return expansions;
+    }
+}
@@ -0,0 +1,549 @@
+package game.Engine;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical A* (HPA*) over the passable cells of a {@link TileGrid}, for
+ * levels too large to search cell by cell.
+ *
+ * The grid is cut into square clusters. Wherever two neighbouring clusters
+ * share a run of open border cells there is an entrance: one transition in
+ * the middle of a short run, one at each end of a long one. The cells on
+ * either side of a transition are the abstract nodes, joined by a step of
+ * cost 1, and the nodes of a cluster are joined to each other by their
+ * shortest path inside the cluster, found once by breadth-first search.
+ *
+ * A query links start and target into their clusters, searches the abstract
+ * graph, and only turns an abstract edge into cells when asked:
+ * {@link #nextStep} refines the first edge alone, {@link #findPath} all of
+ * them. Paths stay inside clusters between entrances, so they can be a few
+ * steps longer than the true shortest path.
+ *
+ * After a tile changes, {@link #tileChanged} rebuilds the borders of its
+ * cluster and the node tables of that cluster and the neighbours sharing
+ * those borders; the rest of the graph is untouched.
+ */
+public final class HierarchicalPathfinder {
+
+    public static final int NONE = -1;
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    // Open runs at least this long get a transition at each end
+    private static final int LONG_ENTRANCE = 6;
+
+    private final TileGrid tiles;
+    private final int cols;
+    private final int rows;
+    private final int size;
+    private final int clusterCols;
+    private final int clusterRows;
+    private final int maxNodes;
+
+    // Transitions across the east and south border of each cluster, as pairs
+    // of cells: the one inside this cluster, then the one in the neighbour
+    private final int[][] east;
+    private final int[] eastCount;
+    private final int[][] south;
+    private final int[] southCount;
+
+    // Abstract nodes of each cluster and their intra-cluster path costs,
+    // k * k entries for k nodes; a node's global id is cluster * maxNodes + index
+    private final int[][] nodeCell;
+    private final int[] nodeCount;
+    private final int[][] cost;
+
+    // Breadth-first search inside one cluster, indexed by local cell
+    private final int[] localDist;
+    private final int[] localPrev;
+    private final int[] localQueue;
+    private final int[] segment;
+
+    // Abstract search state, valid while stamp[node] == search; the last two
+    // ids stand for the start and the target of the query
+    private final int[] g;
+    private final int[] parent;
+    private final int[] stamp;
+    private final boolean[] closed;
+    private int search = 0;
+    private long[] heap = new long[256];
+    private int heapSize = 0;
+    private final int startNode;
+    private final int targetNode;
+    private int[] startCost;
+    private int[] targetCost;
+    private int direct;
+    private int queryStart;
+    private int queryTarget;
+    private int[] waypoints = new int[64];
+
+    private long searches = 0;
+    private long expansions = 0;
+    private long clustersRebuilt = 0;
+
+    public HierarchicalPathfinder(TileGrid tiles) {
+        this(tiles, DEFAULT_CLUSTER_SIZE);
+    }
+
+    public HierarchicalPathfinder(TileGrid tiles, int clusterSize) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("Cluster size must be at least 2, got " + clusterSize);
+        }
+        this.tiles = tiles;
+        this.cols = tiles.getCols();
+        this.rows = tiles.getRows();
+        this.size = clusterSize;
+        this.clusterCols = (cols + size - 1) / size;
+        this.clusterRows = (rows + size - 1) / size;
+        this.maxNodes = 4 * size;
+        int clusters = clusterCols * clusterRows;
+        east = new int[clusters][];
+        eastCount = new int[clusters];
+        south = new int[clusters][];
+        southCount = new int[clusters];
+        nodeCell = new int[clusters][];
+        nodeCount = new int[clusters];
+        cost = new int[clusters][];
+        localDist = new int[size * size];
+        localPrev = new int[size * size];
+        localQueue = new int[size * size];
+        segment = new int[size * size];
+        int nodes = clusters * maxNodes + 2;
+        g = new int[nodes];
+        parent = new int[nodes];
+        stamp = new int[nodes];
+        closed = new boolean[nodes];
+        startNode = nodes - 2;
+        targetNode = nodes - 1;
+        startCost = new int[maxNodes];
+        targetCost = new int[maxNodes];
+        for (int c = 0; c < clusters; c++) {
+            buildBorders(c);
+        }
+        for (int c = 0; c < clusters; c++) {
+            buildNodes(c);
+        }
+    }
+
+    /**
+     * Rebuilds the part of the abstract graph around a tile that was opened
+     * or closed with {@link TileGrid#setSolid}.
+     */
+    public void tileChanged(int col, int row) {
+        int cx = col / size, cy = row / size, c = cy * clusterCols + cx;
+        buildBorders(c);
+        if (cx > 0) buildBorders(c - 1);
+        if (cy > 0) buildBorders(c - clusterCols);
+        buildNodes(c);
+        if (cx > 0) buildNodes(c - 1);
+        if (cx < clusterCols - 1) buildNodes(c + 1);
+        if (cy > 0) buildNodes(c - clusterCols);
+        if (cy < clusterRows - 1) buildNodes(c + clusterCols);
+    }
+
+    /**
+     * The cell to move to next from {@code start} toward {@code target}, the
+     * target itself once there, or {@link #NONE} without a path. Only the
+     * first abstract edge is refined into cells.
+     */
+    public int nextStep(int start, int target) {
+        if (start == target) return isOpen(start) ? target : NONE;
+        int count = plan(start, target);
+        // The first edge is empty when the start is itself an entrance
+        for (int i = 0; i + 1 < count; i++) {
+            if (refine(waypoints[i], waypoints[i + 1]) > 1) return segment[1];
+        }
+        return NONE;
+    }
+
+    /**
+     * Finds a path and refines it completely. Writes the cells from
+     * {@code start} to {@code target} into {@code out} and returns how many
+     * there are, or -1 if there is no path or {@code out} is too short.
+     */
+    public int findPath(int start, int target, int[] out) {
+        if (start == target) {
+            if (!isOpen(start) || out.length < 1) return -1;
+            out[0] = start;
+            return 1;
+        }
+        int count = plan(start, target);
+        if (count < 0) return -1;
+        int length = 0;
+        for (int i = 0; i + 1 < count; i++) {
+            int cells = refine(waypoints[i], waypoints[i + 1]);
+            // Each segment starts where the last one ended
+            int from = i == 0 ? 0 : 1;
+            if (length + cells - from > out.length) return -1;
+            System.arraycopy(segment, from, out, length, cells - from);
+            length += cells - from;
+        }
+        return length;
+    }
+
+    /**
+     * Searches the abstract graph only. Writes the waypoint cells from
+     * {@code start} to {@code target} into {@code out} and returns how many
+     * there are, or -1 if there is no path or {@code out} is too short.
+     */
+    public int findAbstractPath(int start, int target, int[] out) {
+        int count = plan(start, target);
+        if (count < 0 || count > out.length) return -1;
+        System.arraycopy(waypoints, 0, out, 0, count);
+        return count;
+    }
+
+    // Abstract search; leaves the waypoints in the waypoints array
+    private int plan(int start, int target) {
+        if (!isOpen(start) || !isOpen(target) || start == target) return -1;
+        searches++;
+        queryStart = start;
+        queryTarget = target;
+        int cs = clusterOf(start), ct = clusterOf(target);
+        bfs(cs, start, NONE);
+        for (int i = 0; i < nodeCount[cs]; i++) {
+            startCost[i] = localDist[local(cs, nodeCell[cs][i])];
+        }
+        direct = cs == ct ? localDist[local(cs, target)] : UNREACHABLE;
+        bfs(ct, target, NONE);
+        for (int i = 0; i < nodeCount[ct]; i++) {
+            targetCost[i] = localDist[local(ct, nodeCell[ct][i])];
+        }
+
+        if (++search == 0) {
+            Arrays.fill(stamp, 0);
+            search = 1;
+        }
+        heapSize = 0;
+        int tc = target % cols, tr = target / cols;
+        touch(startNode, 0, NONE);
+        push(startNode, heuristic(start, tc, tr));
+        while (heapSize > 0) {
+            long top = pop();
+            int node = (int) top;
+            if (closed[node]) continue;
+            closed[node] = true;
+            if (node == targetNode) break;
+            expansions++;
+            int base = g[node];
+            if (node == startNode) {
+                for (int i = 0; i < nodeCount[cs]; i++) {
+                    if (startCost[i] != UNREACHABLE) relax(node, cs * maxNodes + i, base + startCost[i], tc, tr);
+                }
+                if (direct != UNREACHABLE) relax(node, targetNode, base + direct, tc, tr);
+                continue;
+            }
+            int c = node / maxNodes, i = node % maxNodes, k = nodeCount[c];
+            if (c == ct && targetCost[i] != UNREACHABLE) relax(node, targetNode, base + targetCost[i], tc, tr);
+            int[] costs = cost[c];
+            for (int j = 0; j < k; j++) {
+                int d = costs[i * k + j];
+                if (j != i && d != UNREACHABLE) relax(node, c * maxNodes + j, base + d, tc, tr);
+            }
+            crossBorders(node, c, nodeCell[c][i], base + 1, tc, tr);
+        }
+        if (stamp[targetNode] != search || !closed[targetNode]) return -1;
+
+        int count = 0;
+        for (int node = targetNode; node != NONE; node = parent[node]) count++;
+        if (count > waypoints.length) waypoints = new int[Math.max(count, waypoints.length * 2)];
+        int i = count;
+        for (int node = targetNode; node != NONE; node = parent[node]) {
+            waypoints[--i] = cellOf(node);
+        }
+        return count;
+    }
+
+    // Follows every transition the node's cell takes part in
+    private void crossBorders(int node, int c, int cell, int d, int tc, int tr) {
+        int cx = c % clusterCols, cy = c / clusterCols;
+        int[] pairs = east[c];
+        for (int p = 0; p < eastCount[c] * 2; p += 2) {
+            if (pairs[p] == cell) relax(node, nodeOf(c + 1, pairs[p + 1]), d, tc, tr);
+        }
+        pairs = south[c];
+        for (int p = 0; p < southCount[c] * 2; p += 2) {
+            if (pairs[p] == cell) relax(node, nodeOf(c + clusterCols, pairs[p + 1]), d, tc, tr);
+        }
+        if (cx > 0) {
+            pairs = east[c - 1];
+            for (int p = 0; p < eastCount[c - 1] * 2; p += 2) {
+                if (pairs[p + 1] == cell) relax(node, nodeOf(c - 1, pairs[p]), d, tc, tr);
+            }
+        }
+        if (cy > 0) {
+            pairs = south[c - clusterCols];
+            for (int p = 0; p < southCount[c - clusterCols] * 2; p += 2) {
+                if (pairs[p + 1] == cell) relax(node, nodeOf(c - clusterCols, pairs[p]), d, tc, tr);
+            }
+        }
+    }
+
+    private void relax(int from, int node, int d, int tc, int tr) {
+        if (node == NONE) return;
+        if (stamp[node] == search) {
+            if (closed[node] || d >= g[node]) return;
+            g[node] = d;
+            parent[node] = from;
+        } else {
+            touch(node, d, from);
+        }
+        push(node, d + heuristic(cellOf(node), tc, tr));
+    }
+
+    private void touch(int node, int d, int from) {
+        stamp[node] = search;
+        g[node] = d;
+        parent[node] = from;
+        closed[node] = false;
+    }
+
+    private int heuristic(int cell, int tc, int tr) {
+        return Math.abs(cell % cols - tc) + Math.abs(cell / cols - tr);
+    }
+
+    private int cellOf(int node) {
+        if (node == startNode) return queryStart;
+        if (node == targetNode) return queryTarget;
+        return nodeCell[node / maxNodes][node % maxNodes];
+    }
+
+    private int nodeOf(int c, int cell) {
+        for (int i = 0; i < nodeCount[c]; i++) {
+            if (nodeCell[c][i] == cell) return c * maxNodes + i;
+        }
+        return NONE;
+    }
+
+    // Lazy-deletion heap of (f << 32 | node); stale entries are skipped on pop
+    private void push(int node, int f) {
+        if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+        long key = ((long) f << 32) | node;
+        int i = heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heap[up] <= key) break;
+            heap[i] = heap[up];
+            i = up;
+        }
+        heap[i] = key;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0, half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+            if (last <= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (heapSize > 0) heap[i] = last;
+        return top;
+    }
+
+    /**
+     * Cells from {@code from} to {@code to} along one abstract edge: a single
+     * step across a border, or a shortest path inside their shared cluster.
+     * Leaves the cells in segment and returns how many there are.
+     */
+    private int refine(int from, int to) {
+        if (clusterOf(from) != clusterOf(to)) {
+            segment[0] = from;
+            segment[1] = to;
+            return 2;
+        }
+        int c = clusterOf(from);
+        bfs(c, from, to);
+        int end = local(c, to);
+        if (localDist[end] == UNREACHABLE) return 0;
+        int length = localDist[end] + 1;
+        int x0 = (c % clusterCols) * size, y0 = (c / clusterCols) * size, w = clusterWidth(c);
+        for (int i = length - 1, at = end; i >= 0; i--, at = localPrev[at]) {
+            segment[i] = (y0 + at / w) * cols + x0 + at % w;
+        }
+        return length;
+    }
+
+    /**
+     * Breadth-first search inside cluster {@code c} from {@code source},
+     * stopping early once {@code stop} is reached. Leaves step counts in
+     * localDist and parent links in localPrev, both by local cell.
+     */
+    private void bfs(int c, int source, int stop) {
+        int x0 = (c % clusterCols) * size, y0 = (c / clusterCols) * size;
+        int w = clusterWidth(c), h = clusterHeight(c);
+        Arrays.fill(localDist, 0, w * h, UNREACHABLE);
+        int s = local(c, source), goal = stop == NONE ? NONE : local(c, stop);
+        localDist[s] = 0;
+        localPrev[s] = NONE;
+        int head = 0, tail = 0;
+        localQueue[tail++] = s;
+        while (head < tail) {
+            int u = localQueue[head++];
+            if (u == goal) return;
+            int x = u % w, y = u / w, d = localDist[u] + 1;
+            if (y > 0) tail = visit(u, u - w, x0 + x, y0 + y - 1, d, tail);
+            if (y < h - 1) tail = visit(u, u + w, x0 + x, y0 + y + 1, d, tail);
+            if (x > 0) tail = visit(u, u - 1, x0 + x - 1, y0 + y, d, tail);
+            if (x < w - 1) tail = visit(u, u + 1, x0 + x + 1, y0 + y, d, tail);
+        }
+    }
+
+    private int visit(int from, int v, int col, int row, int d, int tail) {
+        if (localDist[v] == UNREACHABLE && !tiles.isSolid(col, row)) {
+            localDist[v] = d;
+            localPrev[v] = from;
+            localQueue[tail++] = v;
+        }
+        return tail;
+    }
+
+    // Finds the transitions across the east and south border of cluster c
+    private void buildBorders(int c) {
+        int cx = c % clusterCols, cy = c / clusterCols;
+        int x0 = cx * size, y0 = cy * size;
+        if (east[c] == null) {
+            east[c] = new int[2 * size];
+            south[c] = new int[2 * size];
+        }
+        eastCount[c] = 0;
+        if (cx < clusterCols - 1) {
+            int col = x0 + size - 1, end = Math.min(y0 + size, rows);
+            int run = -1;
+            for (int row = y0; row <= end; row++) {
+                boolean open = row < end && !tiles.isSolid(col, row) && !tiles.isSolid(col + 1, row);
+                if (open && run < 0) run = row;
+                if (!open && run >= 0) {
+                    addEntrance(east, eastCount, c, run, row - 1, true, col);
+                    run = -1;
+                }
+            }
+        }
+        southCount[c] = 0;
+        if (cy < clusterRows - 1) {
+            int row = y0 + size - 1, end = Math.min(x0 + size, cols);
+            int run = -1;
+            for (int col = x0; col <= end; col++) {
+                boolean open = col < end && !tiles.isSolid(col, row) && !tiles.isSolid(col, row + 1);
+                if (open && run < 0) run = col;
+                if (!open && run >= 0) {
+                    addEntrance(south, southCount, c, run, col - 1, false, row);
+                    run = -1;
+                }
+            }
+        }
+    }
+
+    // A run of open border cells from first to last along the border
+    private void addEntrance(int[][] pairs, int[] counts, int c, int first, int last, boolean vertical, int line) {
+        if (last - first + 1 >= LONG_ENTRANCE) {
+            addTransition(pairs, counts, c, first, vertical, line);
+            addTransition(pairs, counts, c, last, vertical, line);
+        } else {
+            addTransition(pairs, counts, c, (first + last) / 2, vertical, line);
+        }
+    }
+
+    private void addTransition(int[][] pairs, int[] counts, int c, int at, boolean vertical, int line) {
+        int p = counts[c]++ * 2;
+        if (vertical) {
+            pairs[c][p] = at * cols + line;
+            pairs[c][p + 1] = at * cols + line + 1;
+        } else {
+            pairs[c][p] = line * cols + at;
+            pairs[c][p + 1] = (line + 1) * cols + at;
+        }
+    }
+
+    // Collects the cluster's nodes from its four borders and links them
+    private void buildNodes(int c) {
+        clustersRebuilt++;
+        int cx = c % clusterCols, cy = c / clusterCols;
+        if (nodeCell[c] == null) nodeCell[c] = new int[maxNodes];
+        nodeCount[c] = 0;
+        for (int p = 0; p < eastCount[c] * 2; p += 2) addNode(c, east[c][p]);
+        for (int p = 0; p < southCount[c] * 2; p += 2) addNode(c, south[c][p]);
+        if (cx > 0) {
+            for (int p = 0; p < eastCount[c - 1] * 2; p += 2) addNode(c, east[c - 1][p + 1]);
+        }
+        if (cy > 0) {
+            int n = c - clusterCols;
+            for (int p = 0; p < southCount[n] * 2; p += 2) addNode(c, south[n][p + 1]);
+        }
+        int k = nodeCount[c];
+        if (cost[c] == null || cost[c].length < k * k) cost[c] = new int[k * k];
+        int[] costs = cost[c];
+        for (int i = 0; i < k; i++) {
+            bfs(c, nodeCell[c][i], NONE);
+            for (int j = 0; j < k; j++) {
+                costs[i * k + j] = localDist[local(c, nodeCell[c][j])];
+            }
+        }
+    }
+
+    private void addNode(int c, int cell) {
+        // A corner cell can sit on two borders
+        for (int i = 0; i < nodeCount[c]; i++) {
+            if (nodeCell[c][i] == cell) return;
+        }
+        nodeCell[c][nodeCount[c]++] = cell;
+    }
+
+    private int clusterOf(int cell) {
+        return (cell / cols / size) * clusterCols + (cell % cols) / size;
+    }
+
+    private int local(int c, int cell) {
+        int x0 = (c % clusterCols) * size, y0 = (c / clusterCols) * size;
+        return (cell / cols - y0) * clusterWidth(c) + (cell % cols - x0);
+    }
+
+    private int clusterWidth(int c) {
+        return Math.min(size, cols - (c % clusterCols) * size);
+    }
+
+    private int clusterHeight(int c) {
+        return Math.min(size, rows - (c / clusterCols) * size);
+    }
+
+    private boolean isOpen(int cell) {
+        return cell >= 0 && cell < cols * rows && !tiles.getMaze().isSolid(cell);
+    }
+
+    /** Cell index of the given grid coordinates, or {@link #NONE} outside the grid. */
+    public int cell(int col, int row) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return NONE;
+        return row * cols + col;
+    }
+
+    public int getClusterSize() {
+        return size;
+    }
+
+    public int getClusterCount() {
+        return clusterCols * clusterRows;
+    }
+
+    /** Abstract nodes over all clusters. */
+    public int getNodeCount() {
+        int total = 0;
+        for (int count : nodeCount) total += count;
+        return total;
+    }
+
+    public long getSearches() {
+        return searches;
+    }
+
+    /** Abstract nodes expanded, over all searches. */
+    public long getExpansions() {
+        return expansions;
+    }
+
+    /** Clusters whose node table was built, including the initial build. */
+    public long getClustersRebuilt() {
+        return clustersRebuilt;
+    }
+}
@@ -0,0 +1,308 @@
+package game.Engine;
+
+import game.Model.Hero;
+import game.Model.World;
+import java.awt.event.KeyEvent;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Compact binary recording of one session's input.
+ *
+ * A world is fully determined by its seed, its level and the keys pressed
+ * between steps, so a log stores only those plus the final score, position
+ * and state hash to check a replay against. Each key event is one byte: the
+ * key, whether it was pressed or released, and the number of steps since the
+ * previous event; longer gaps add a varint. A three-minute run with key
+ * repeat comes to a few KB.
+ *
+ * File layout (big-endian):
+ * <pre>
+ * int    magic 'MZRL'
+ * byte   version
+ * long   seed
+ * UTF    level id
+ * int    enemies, spawn x, spawn y
+ * int    event count, byte count, then the event bytes
+ * long   final step
+ * int    final score, hero x, hero y
+ * long   final state hash
+ * </pre>
+ */
+public class InputLog {
+
+    // The built-in maze; any other level id names a generated one, see MazeGenerator.forLevel
+    public static final String DEFAULT_LEVEL = "default";
+
+    private static final int MAGIC = 0x4D5A524C;
+    private static final int VERSION = 1;
+
+    // Keys the hero reacts to; index 0 stands for any other key
+    private static final int[] KEYS = {
+        KeyEvent.VK_UNDEFINED,
+        KeyEvent.VK_W, KeyEvent.VK_S, KeyEvent.VK_A, KeyEvent.VK_D,
+        KeyEvent.VK_UP, KeyEvent.VK_DOWN, KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT,
+        KeyEvent.VK_SPACE
+    };
+    private static final int PRESSED = 0x10;
+    private static final int GAP_SHIFT = 5;
+    // Gaps up to 6 steps fit in the event byte, 7 means a varint follows
+    private static final int GAP_ESCAPE = 7;
+
+    private final long seed;
+    private final String level;
+    private final int enemies;
+    private final int spawnX;
+    private final int spawnY;
+
+    private byte[] events = new byte[4096];
+    private int length = 0;
+    private int count = 0;
+    private long lastTick = 0;
+
+    private boolean finished = false;
+    private long finalTick;
+    private int finalScore;
+    private int finalX;
+    private int finalY;
+    private long finalHash;
+
+    public InputLog(long seed, String level, int enemies, int spawnX, int spawnY) {
+        this.seed = seed;
+        this.level = level;
+        this.enemies = enemies;
+        this.spawnX = spawnX;
+        this.spawnY = spawnY;
+    }
+
+    /**
+     * Builds the world this log starts from, with the hero spawned and the
+     * level populated.
+     */
+    public World newWorld() {
+        World world;
+        if (DEFAULT_LEVEL.equals(level)) {
+            world = new World(seed);
+        } else {
+            // Generated levels come from the log's seed as well
+            int[][] maze = MazeGenerator.forLevel(level, seed);
+            if (maze == null) {
+                throw new IllegalArgumentException("Unknown level: " + level);
+            }
+            world = new World(maze, seed);
+        }
+        world.spawnHero(spawnX, spawnY);
+        world.populate(enemies);
+        return world;
+    }
+
+    /**
+     * Appends a key event that happened after {@code tick} steps. Ignored
+     * once the log is finished.
+     */
+    public synchronized void record(long tick, int key, boolean pressed) {
+        if (finished) return;
+        if (tick < lastTick) {
+            throw new IllegalArgumentException("Step " + tick + " is before " + lastTick);
+        }
+        long gap = tick - lastTick;
+        lastTick = tick;
+        int code = keyIndex(key) | (pressed ? PRESSED : 0);
+        if (gap < GAP_ESCAPE) {
+            put((int) gap << GAP_SHIFT | code);
+        } else {
+            put(GAP_ESCAPE << GAP_SHIFT | code);
+            putVarLong(gap - GAP_ESCAPE);
+        }
+        count++;
+    }
+
+    /**
+     * Seals the log with the outcome a replay has to reproduce.
+     */
+    public synchronized void finish(World world) {
+        if (finished) return;
+        finished = true;
+        finalTick = world.getTick();
+        finalScore = world.score;
+        finalX = world.getPlayer().x;
+        finalY = world.getPlayer().y;
+        finalHash = world.stateHash();
+    }
+
+    /**
+     * Input policy that feeds the recorded events to the hero at the steps
+     * they originally happened.
+     */
+    public InputPolicy playback() {
+        return new InputPolicy() {
+            int position = 0;
+            long tick = 0;
+            int pending = -1;
+
+            @Override
+            public void apply(World world, Hero hero) {
+                while (true) {
+                    if (pending < 0) {
+                        if (position >= length) return;
+                        int b = events[position++] & 0xFF;
+                        long gap = b >>> GAP_SHIFT;
+                        if (gap == GAP_ESCAPE) gap += readVarLong();
+                        tick += gap;
+                        pending = b & 0x1F;
+                    }
+                    if (tick > world.getTick()) return;
+                    int key = KEYS[pending & 0x0F];
+                    if ((pending & PRESSED) != 0) hero.press(key);
+                    else hero.release(key);
+                    pending = -1;
+                }
+            }
+
+            private long readVarLong() {
+                long value = 0;
+                int shift = 0;
+                int b;
+                do {
+                    b = events[position++] & 0xFF;
+                    value |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Replays the log headlessly as fast as possible and returns the world in
+     * its final state.
+     */
+    public World replay() {
+        World world = newWorld();
+        InputPolicy policy = playback();
+        Hero hero = world.getPlayer();
+        while (true) {
+            policy.apply(world, hero);
+            if (world.getTick() >= finalTick || world.getState() != World.State.RUNNING) break;
+            world.step();
+        }
+        return world;
+    }
+
+    /**
+     * Whether a replay ends with exactly the recorded step, score, position
+     * and state hash.
+     */
+    public boolean verify() {
+        return matches(replay());
+    }
+
+    /**
+     * Whether a world ended with the recorded step, score, position and
+     * state hash, e.g. one the log was played back into in a window.
+     */
+    public boolean matches(World world) {
+        return world.getTick() == finalTick && world.score == finalScore
+                && world.getPlayer().x == finalX && world.getPlayer().y == finalY
+                && world.stateHash() == finalHash;
+    }
+
+    public synchronized void write(OutputStream out) throws IOException {
+        if (!finished) {
+            throw new IllegalStateException("Input log is not finished");
+        }
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeLong(seed);
+        data.writeUTF(level);
+        data.writeInt(enemies);
+        data.writeInt(spawnX);
+        data.writeInt(spawnY);
+        data.writeInt(count);
+        data.writeInt(length);
+        data.write(events, 0, length);
+        data.writeLong(finalTick);
+        data.writeInt(finalScore);
+        data.writeInt(finalX);
+        data.writeInt(finalY);
+        data.writeLong(finalHash);
+        data.flush();
+    }
+
+    public static InputLog read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not an input log");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported input log version " + version);
+        }
+        InputLog log = new InputLog(data.readLong(), data.readUTF(), data.readInt(), data.readInt(), data.readInt());
+        log.count = data.readInt();
+        log.length = data.readInt();
+        log.events = new byte[log.length];
+        data.readFully(log.events);
+        log.finalTick = data.readLong();
+        log.finalScore = data.readInt();
+        log.finalX = data.readInt();
+        log.finalY = data.readInt();
+        log.finalHash = data.readLong();
+        log.finished = true;
+        return log;
+    }
+
+    public void save(Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(out);
+        }
+    }
+
+    public static InputLog load(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return read(in);
+        }
+    }
+
+    private static int keyIndex(int key) {
+        for (int i = 1; i < KEYS.length; i++) {
+            if (KEYS[i] == key) return i;
+        }
+        return 0;
+    }
+
+    private void put(int b) {
+        if (length == events.length) {
+            events = Arrays.copyOf(events, length * 2);
+        }
+        events[length++] = (byte) b;
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            put((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        put((int) value);
+    }
+
+    public long getSeed() { return seed; }
+    public String getLevel() { return level; }
+    public int getEnemies() { return enemies; }
+    public int getEventCount() { return count; }
+    public boolean isFinished() { return finished; }
+    public long getFinalTick() { return finalTick; }
+    public int getFinalScore() { return finalScore; }
+
+    /** Size of the encoded events in bytes, without the fixed header. */
+    public int getEventBytes() { return length; }
+}
@@ -0,0 +1,58 @@
+package game.Engine;
+
+import game.Model.Hero;
+import game.Model.World;
+import java.awt.event.KeyEvent;
+import java.util.Random;
+
+/**
+ * Supplies the hero's input for a headless session, one step at a time.
+ * Implementations keep their own state, so every session gets a fresh policy.
+ */
+public interface InputPolicy {
+
+    /**
+     * Called once before every simulation step.
+     */
+    void apply(World world, Hero hero);
+
+    /**
+     * Holds a random direction for a random number of steps, then picks again.
+     */
+    static InputPolicy random(long seed) {
+        int[] directions = {KeyEvent.VK_UP, KeyEvent.VK_DOWN, KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT};
+        Random random = new Random(seed);
+        return new InputPolicy() {
+            int held = -1;
+            int remaining = 0;
+
+            @Override
+            public void apply(World world, Hero hero) {
+                if (remaining-- > 0) return;
+                if (held >= 0) hero.release(held);
+                held = directions[random.nextInt(directions.length)];
+                remaining = 10 + random.nextInt(90);
+                hero.press(held);
+            }
+        };
+    }
+
+    /**
+     * Replays a fixed script: at step {@code ticks[i]} key {@code keys[i]} is
+     * pressed, or released if the code is negative.
+     */
+    static InputPolicy scripted(long[] ticks, int[] keys) {
+        return new InputPolicy() {
+            int next = 0;
+
+            @Override
+            public void apply(World world, Hero hero) {
+                while (next < ticks.length && ticks[next] <= world.getTick()) {
+                    if (keys[next] >= 0) hero.press(keys[next]);
+                    else hero.release(-keys[next]);
+                    next++;
+                }
+            }
+        };
+    }
+}
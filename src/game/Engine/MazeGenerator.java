@@ -0,0 +1,406 @@
+package game.Engine;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Generates perfect mazes in the level cell codes.
+ *
+ * Rooms sit on odd rows and columns and every algorithm knocks down walls
+ * between them until all rooms are joined by exactly one path. The result is
+ * framed the way the built-in level is: a top border of 5 with 6 in the
+ * corners, a bottom border of 1, a left border of 3 with the opening (4) in
+ * row 1, and a right border of 2. The room nearest the centre holds the
+ * checkpoint (7), and the rooms nearest the centres of the four quarters hold
+ * spawn marks (8).
+ *
+ * The same seed always gives the same maze. Every algorithm runs iteratively
+ * with its state in flat arrays of at most a few bytes per room, so large
+ * mazes need no deep stack and little beyond the maze itself; {@link #stream}
+ * uses Eller's algorithm to emit the maze row by row without holding it at
+ * all.
+ */
+public final class MazeGenerator {
+
+    public enum Algorithm {
+        /** Depth-first search with an explicit stack: long winding corridors. */
+        BACKTRACKER,
+        /** Randomized Kruskal over the walls with union-find: many short dead ends. */
+        KRUSKAL,
+        /** Loop-erased random walks: a uniformly random spanning tree. */
+        WILSON,
+        /** Eller's algorithm, one row of rooms at a time. */
+        ELLER
+    }
+
+    /** Receives a generated maze one row at a time. */
+    public interface RowSink {
+        /**
+         * Called once per row, top to bottom. The array is reused for the
+         * next row, so copy whatever has to be kept.
+         */
+        void row(int row, int[] codes);
+    }
+
+    private static final int UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+
+    private MazeGenerator() {
+    }
+
+    /**
+     * Generates a {@code rows} x {@code cols} maze with the given algorithm.
+     */
+    public static int[][] generate(Algorithm algorithm, int rows, int cols, long seed) {
+        checkSize(rows, cols);
+        int[][] maze = new int[rows][cols];
+        if (algorithm == Algorithm.ELLER) {
+            stream(rows, cols, seed, (row, codes) -> System.arraycopy(codes, 0, maze[row], 0, cols));
+            return maze;
+        }
+        for (int[] row : maze) {
+            Arrays.fill(row, 1);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        switch (algorithm) {
+            case BACKTRACKER:
+                backtracker(maze, random);
+                break;
+            case KRUSKAL:
+                kruskal(maze, random);
+                break;
+            default:
+                wilson(maze, random);
+        }
+        for (int row = 0; row < rows; row++) {
+            frame(row, maze[row], rows, cols);
+        }
+        return maze;
+    }
+
+    /**
+     * Generates a {@code rows} x {@code cols} maze with Eller's algorithm and
+     * hands it to the sink row by row. Only a few arrays the width of the
+     * maze are held at any time.
+     */
+    public static void stream(int rows, int cols, long seed, RowSink sink) {
+        checkSize(rows, cols);
+        SplittableRandom random = new SplittableRandom(seed);
+        int roomRows = (rows - 1) / 2, roomCols = (cols - 1) / 2;
+        // Set of every room in the current row, as union-find over ids below 2 * roomCols
+        int[] set = new int[roomCols];
+        int[] parent = new int[2 * roomCols];
+        int[] members = new int[2 * roomCols];
+        int[] pick = new int[2 * roomCols];
+        boolean[] anyDown = new boolean[2 * roomCols];
+        boolean[] used = new boolean[2 * roomCols];
+        int[] fresh = new int[2 * roomCols];
+        boolean[] right = new boolean[roomCols];
+        boolean[] down = new boolean[roomCols];
+        int[] codes = new int[cols];
+
+        frame(0, codes, rows, cols);
+        sink.row(0, codes);
+        Arrays.fill(set, -1);
+        for (int y = 0; y < roomRows; y++) {
+            boolean last = y == roomRows - 1;
+            // Rooms not joined from above start sets of their own
+            Arrays.fill(used, false);
+            for (int x = 0; x < roomCols; x++) {
+                if (set[x] >= 0) used[set[x]] = true;
+            }
+            int next = 0;
+            for (int x = 0; x < roomCols; x++) {
+                if (set[x] < 0) {
+                    while (used[next]) next++;
+                    set[x] = next;
+                    used[next] = true;
+                }
+            }
+            for (int id = 0; id < parent.length; id++) {
+                parent[id] = id;
+            }
+            // Join neighbours in different sets at random, all of them on the last row
+            for (int x = 0; x + 1 < roomCols; x++) {
+                int a = find(parent, set[x]), b = find(parent, set[x + 1]);
+                right[x] = a != b && (last || random.nextBoolean());
+                if (right[x]) parent[b] = a;
+            }
+            right[roomCols - 1] = false;
+            // Every set carries on downward through at least one room
+            Arrays.fill(members, 0);
+            Arrays.fill(anyDown, false);
+            for (int x = 0; x < roomCols; x++) {
+                int root = find(parent, set[x]);
+                set[x] = root;
+                if (random.nextInt(++members[root]) == 0) pick[root] = x;
+                down[x] = !last && random.nextBoolean();
+                anyDown[root] |= down[x];
+            }
+            if (!last) {
+                for (int x = 0; x < roomCols; x++) {
+                    int root = set[x];
+                    if (!anyDown[root] && pick[root] == x) down[x] = true;
+                }
+            }
+
+            int row = 2 * y + 1;
+            Arrays.fill(codes, 1);
+            for (int x = 0; x < roomCols; x++) {
+                codes[2 * x + 1] = 0;
+                if (right[x]) codes[2 * x + 2] = 0;
+            }
+            frame(row, codes, rows, cols);
+            sink.row(row, codes);
+            if (row + 1 < rows) {
+                Arrays.fill(codes, 1);
+                for (int x = 0; x < roomCols; x++) {
+                    if (down[x]) codes[2 * x + 1] = 0;
+                }
+                frame(row + 1, codes, rows, cols);
+                sink.row(row + 1, codes);
+            }
+            // Sets go on only through rooms joined downward; compact their ids
+            Arrays.fill(fresh, -1);
+            int ids = 0;
+            for (int x = 0; x < roomCols; x++) {
+                if (!down[x]) {
+                    set[x] = -1;
+                } else {
+                    if (fresh[set[x]] < 0) fresh[set[x]] = ids++;
+                    set[x] = fresh[set[x]];
+                }
+            }
+        }
+        for (int row = 2 * roomRows + 1; row < rows; row++) {
+            Arrays.fill(codes, 1);
+            frame(row, codes, rows, cols);
+            sink.row(row, codes);
+        }
+    }
+
+    private static int find(int[] parent, int id) {
+        while (parent[id] != id) {
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+        return id;
+    }
+
+    /**
+     * Generates the maze for a level id of the form
+     * {@code algorithm:ROWSxCOLS}, e.g. {@code kruskal:61x81}, or returns
+     * null if the id does not name a generated level.
+     */
+    public static int[][] forLevel(String level, long seed) {
+        int colon = level.indexOf(':'), x = level.indexOf('x', colon + 1);
+        if (colon < 0 || x < 0) return null;
+        Algorithm algorithm;
+        int rows, cols;
+        try {
+            algorithm = Algorithm.valueOf(level.substring(0, colon).toUpperCase(Locale.ROOT));
+            rows = Integer.parseInt(level.substring(colon + 1, x));
+            cols = Integer.parseInt(level.substring(x + 1));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        return generate(algorithm, rows, cols, seed);
+    }
+
+    private static void backtracker(int[][] maze, SplittableRandom random) {
+        int roomRows = (maze.length - 1) / 2, roomCols = (maze[0].length - 1) / 2;
+        // The direction each room on the path was entered by; backing out reverses it
+        byte[] stack = new byte[roomRows * roomCols];
+        int top = 0, x = 0, y = 0;
+        int[] options = new int[4];
+        maze[1][1] = 0;
+        while (true) {
+            int count = 0;
+            if (y > 0 && maze[2 * y - 1][2 * x + 1] != 0) options[count++] = UP;
+            if (y < roomRows - 1 && maze[2 * y + 3][2 * x + 1] != 0) options[count++] = DOWN;
+            if (x > 0 && maze[2 * y + 1][2 * x - 1] != 0) options[count++] = LEFT;
+            if (x < roomCols - 1 && maze[2 * y + 1][2 * x + 3] != 0) options[count++] = RIGHT;
+            if (count == 0) {
+                if (top == 0) return;
+                int back = stack[--top];
+                x -= dx(back);
+                y -= dy(back);
+                continue;
+            }
+            int d = options[random.nextInt(count)];
+            maze[2 * y + 1 + dy(d)][2 * x + 1 + dx(d)] = 0;
+            x += dx(d);
+            y += dy(d);
+            maze[2 * y + 1][2 * x + 1] = 0;
+            stack[top++] = (byte) d;
+        }
+    }
+
+    private static void kruskal(int[][] maze, SplittableRandom random) {
+        int roomRows = (maze.length - 1) / 2, roomCols = (maze[0].length - 1) / 2;
+        int[] parent = new int[roomRows * roomCols];
+        // Union by rank keeps the trees shallow; ranks stay below 32
+        byte[] rank = new byte[parent.length];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (int y = 0; y < roomRows; y++) {
+            for (int x = 0; x < roomCols; x++) {
+                maze[2 * y + 1][2 * x + 1] = 0;
+            }
+        }
+        // Walls between horizontal neighbours first, then vertical ones,
+        // visited in a random order without storing it
+        long horizontal = (long) roomRows * (roomCols - 1);
+        long walls = horizontal + (long) (roomRows - 1) * roomCols;
+        Shuffle order = new Shuffle(walls, random);
+        for (long i = 0; i < walls; i++) {
+            long wall = order.get(i);
+            int a, b;
+            if (wall < horizontal) {
+                int y = (int) (wall / (roomCols - 1)), x = (int) (wall % (roomCols - 1));
+                a = y * roomCols + x;
+                b = a + 1;
+            } else {
+                long v = wall - horizontal;
+                int y = (int) (v / roomCols), x = (int) (v % roomCols);
+                a = y * roomCols + x;
+                b = a + roomCols;
+            }
+            int ra = find(parent, a), rb = find(parent, b);
+            if (ra == rb) continue;
+            if (rank[ra] < rank[rb]) {
+                parent[ra] = rb;
+            } else {
+                parent[rb] = ra;
+                if (rank[ra] == rank[rb]) rank[ra]++;
+            }
+            int ya = a / roomCols, xa = a % roomCols, yb = b / roomCols, xb = b % roomCols;
+            maze[ya + yb + 1][xa + xb + 1] = 0;
+        }
+    }
+
+    private static void wilson(int[][] maze, SplittableRandom random) {
+        int roomRows = (maze.length - 1) / 2, roomCols = (maze[0].length - 1) / 2;
+        int rooms = roomRows * roomCols;
+        // Last direction the current walk left each room by; later visits overwrite
+        // earlier ones, which erases the loops
+        byte[] exit = new byte[rooms];
+        int first = random.nextInt(rooms);
+        maze[2 * (first / roomCols) + 1][2 * (first % roomCols) + 1] = 0;
+        int[] options = new int[4];
+        for (int start = 0; start < rooms; start++) {
+            int x = start % roomCols, y = start / roomCols;
+            if (maze[2 * y + 1][2 * x + 1] == 0) continue;
+            while (maze[2 * y + 1][2 * x + 1] != 0) {
+                int count = 0;
+                if (y > 0) options[count++] = UP;
+                if (y < roomRows - 1) options[count++] = DOWN;
+                if (x > 0) options[count++] = LEFT;
+                if (x < roomCols - 1) options[count++] = RIGHT;
+                int d = options[random.nextInt(count)];
+                exit[y * roomCols + x] = (byte) d;
+                x += dx(d);
+                y += dy(d);
+            }
+            // Carve the loop-erased walk into the maze
+            x = start % roomCols;
+            y = start / roomCols;
+            while (maze[2 * y + 1][2 * x + 1] != 0) {
+                int d = exit[y * roomCols + x];
+                maze[2 * y + 1][2 * x + 1] = 0;
+                maze[2 * y + 1 + dy(d)][2 * x + 1 + dx(d)] = 0;
+                x += dx(d);
+                y += dy(d);
+            }
+        }
+    }
+
+    private static int dx(int d) {
+        return d == LEFT ? -1 : d == RIGHT ? 1 : 0;
+    }
+
+    private static int dy(int d) {
+        return d == UP ? -1 : d == DOWN ? 1 : 0;
+    }
+
+    // Puts the border, checkpoint and spawn codes on one row of carved cells
+    private static void frame(int row, int[] codes, int rows, int cols) {
+        int last = cols - 1;
+        if (row == 0 || row == rows - 1) {
+            Arrays.fill(codes, row == 0 ? 5 : 1);
+            codes[0] = 6;
+            codes[last] = 6;
+            return;
+        }
+        codes[0] = row == 1 ? 4 : 3;
+        codes[last] = 2;
+        int roomRows = (rows - 1) / 2, roomCols = (cols - 1) / 2;
+        if (row == room(roomRows, 1, 2) && row != 1) {
+            codes[room(roomCols, 1, 2)] = 7;
+        }
+        for (int qy = 1; qy <= 3; qy += 2) {
+            for (int qx = 1; qx <= 3; qx += 2) {
+                int r = room(roomRows, qy, 4), c = room(roomCols, qx, 4);
+                if (row == r && !(r == 1 && c == 1) && codes[c] == 0) codes[c] = 8;
+            }
+        }
+    }
+
+    // Cell coordinate of the room at the given fraction of the way across
+    private static int room(int rooms, int numerator, int denominator) {
+        return 2 * (rooms * numerator / denominator) + 1;
+    }
+
+    private static void checkSize(int rows, int cols) {
+        if (rows < 5 || cols < 5) {
+            throw new IllegalArgumentException("A maze needs at least 5x5 cells, got " + rows + "x" + cols);
+        }
+    }
+
+    /**
+     * A random permutation of [0, n) computed on the fly: a four-round
+     * Feistel network over the next power of four, walking past values that
+     * fall outside the range.
+     */
+    private static final class Shuffle {
+        private final long n;
+        private final int halfBits;
+        private final long halfMask;
+        private final long[] keys = new long[4];
+
+        Shuffle(long n, SplittableRandom random) {
+            this.n = n;
+            int bits = 64 - Long.numberOfLeadingZeros(Math.max(1, n - 1));
+            this.halfBits = Math.max(1, (bits + 1) / 2);
+            this.halfMask = (1L << halfBits) - 1;
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+            }
+        }
+
+        long get(long i) {
+            do {
+                i = permute(i);
+            } while (i >= n);
+            return i;
+        }
+
+        private long permute(long value) {
+            long left = value >>> halfBits, right = value & halfMask;
+            for (long key : keys) {
+                long mixed = mix(right ^ key) & halfMask;
+                long next = left ^ mixed;
+                left = right;
+                right = next;
+            }
+            return (left << halfBits) | right;
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
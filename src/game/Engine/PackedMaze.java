@@ -0,0 +1,192 @@
+package game.Engine;
+
+import java.util.Arrays;
+
+/**
+ * Maze cell codes packed two bits to a cell into a single {@code long[]}.
+ *
+ * Nearly every cell of a maze is a plain path (0) or wall (1), so those two
+ * codes are stored directly: the low bit of a cell says whether it is solid,
+ * the high bit that its code is something else. The few other cells (borders,
+ * the opening, checkpoints, spawn marks) keep their code in a small table
+ * sorted by cell index. Asking whether a cell is solid reads one bit and
+ * never touches the table.
+ *
+ * Against an {@code int[][]} this holds 16 times fewer bytes per cell and
+ * no array header per row. {@link #toArray} gives code that still needs an
+ * {@code int[][]} a copy.
+ */
+public final class PackedMaze {
+
+    private static final int SOLID = 1;
+    private static final int OTHER = 2;
+
+    private final int rows;
+    private final int cols;
+    private final long[] bits;
+    // Cells whose code is neither 0 nor 1, by ascending cell index
+    private int[] otherCell = new int[16];
+    private byte[] otherCode = new byte[16];
+    private int otherCount = 0;
+
+    /**
+     * An all-path maze of the given size.
+     */
+    public PackedMaze(int rows, int cols) {
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported maze size " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.bits = new long[(int) (((long) rows * cols + 31) >>> 5)];
+    }
+
+    public static PackedMaze of(int[][] maze) {
+        PackedMaze packed = new PackedMaze(maze.length, maze[0].length);
+        for (int row = 0; row < maze.length; row++) {
+            packed.setRow(row, maze[row]);
+        }
+        return packed;
+    }
+
+    public int get(int row, int col) {
+        return code(row * cols + col);
+    }
+
+    /** Code of a cell given by index {@code row * cols + col}. */
+    public int code(int cell) {
+        int v = field(cell);
+        if ((v & OTHER) == 0) return v;
+        return otherCode[Arrays.binarySearch(otherCell, 0, otherCount, cell)];
+    }
+
+    /**
+     * Whether the cell holds one of the codes {@link TileGrid#isSolidCell}
+     * counts as solid.
+     */
+    public boolean isSolid(int cell) {
+        return (bits[cell >>> 5] >>> ((cell & 31) << 1) & SOLID) != 0;
+    }
+
+    public boolean isSolid(int row, int col) {
+        return isSolid(row * cols + col);
+    }
+
+    public void set(int row, int col, int code) {
+        if (code < 0 || code > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Cell code out of range: " + code);
+        }
+        int cell = row * cols + col;
+        int at = Arrays.binarySearch(otherCell, 0, otherCount, cell);
+        if (code == 0 || code == 1) {
+            if (at >= 0) {
+                System.arraycopy(otherCell, at + 1, otherCell, at, otherCount - at - 1);
+                System.arraycopy(otherCode, at + 1, otherCode, at, otherCount - at - 1);
+                otherCount--;
+            }
+            setField(cell, code);
+            return;
+        }
+        if (at < 0) {
+            at = -at - 1;
+            grow();
+            System.arraycopy(otherCell, at, otherCell, at + 1, otherCount - at);
+            System.arraycopy(otherCode, at, otherCode, at + 1, otherCount - at);
+            otherCount++;
+            otherCell[at] = cell;
+        }
+        otherCode[at] = (byte) code;
+        setField(cell, OTHER | (TileGrid.isSolidCell(code) ? SOLID : 0));
+    }
+
+    /**
+     * Writes a whole row. Rows written top to bottom, as a generator streams
+     * them, append to the code table without moving it.
+     */
+    public void setRow(int row, int[] codes) {
+        int base = row * cols;
+        boolean append = otherCount == 0 || otherCell[otherCount - 1] < base;
+        for (int col = 0; col < cols; col++) {
+            int code = codes[col];
+            if (!append) {
+                set(row, col, code);
+            } else if (code == 0 || code == 1) {
+                setField(base + col, code);
+            } else {
+                if (code > Byte.MAX_VALUE || code < 0) {
+                    throw new IllegalArgumentException("Cell code out of range: " + code);
+                }
+                grow();
+                otherCell[otherCount] = base + col;
+                otherCode[otherCount++] = (byte) code;
+                setField(base + col, OTHER | (TileGrid.isSolidCell(code) ? SOLID : 0));
+            }
+        }
+    }
+
+    /** Copies one row of codes into {@code out}, which must hold getCols() entries. */
+    public int[] getRow(int row, int[] out) {
+        int base = row * cols;
+        for (int col = 0; col < cols; col++) {
+            out[col] = code(base + col);
+        }
+        return out;
+    }
+
+    /** The maze as a fresh {@code int[][]}, for code that still expects one. */
+    public int[][] toArray() {
+        int[][] maze = new int[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            getRow(row, maze[row]);
+        }
+        return maze;
+    }
+
+    private int field(int cell) {
+        return (int) (bits[cell >>> 5] >>> ((cell & 31) << 1)) & 3;
+    }
+
+    private void setField(int cell, int value) {
+        int shift = (cell & 31) << 1;
+        int i = cell >>> 5;
+        bits[i] = (bits[i] & ~(3L << shift)) | ((long) value << shift);
+    }
+
+    private void grow() {
+        if (otherCount == otherCell.length) {
+            otherCell = Arrays.copyOf(otherCell, otherCount * 2);
+            otherCode = Arrays.copyOf(otherCode, otherCount * 2);
+        }
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /** Cells kept in the code table. */
+    public int getOtherCount() {
+        return otherCount;
+    }
+
+    /**
+     * Cell index of the i-th entry of the code table, in ascending cell
+     * order; with {@link #getOtherCode} this finds the special cells without
+     * scanning the whole maze.
+     */
+    public int getOtherCell(int i) {
+        return otherCell[i];
+    }
+
+    public int getOtherCode(int i) {
+        return otherCode[i];
+    }
+
+    /** Bytes held by the packed cells and the code table. */
+    public long getMemoryBytes() {
+        return 8L * bits.length + 5L * otherCell.length;
+    }
+}
@@ -0,0 +1,44 @@
+package game.Engine;
+
+import game.Model.World;
+
+/**
+ * Outcome of one headless maze session.
+ */
+public class SessionResult {
+
+    private final long seed;
+    private final World.State state;
+    private final long ticks;
+    private final int elapsedTime;
+    private final int score;
+    private final int[] hpCurve;
+
+    public SessionResult(long seed, World.State state, long ticks, int elapsedTime, int score, int[] hpCurve) {
+        this.seed = seed;
+        this.state = state;
+        this.ticks = ticks;
+        this.elapsedTime = elapsedTime;
+        this.score = score;
+        this.hpCurve = hpCurve;
+    }
+
+    public long getSeed() { return seed; }
+
+    /** {@code RUNNING} means the session hit the tick limit without a result. */
+    public World.State getState() { return state; }
+
+    public long getTicks() { return ticks; }
+
+    /** Countdown seconds used, as shown to the player. */
+    public int getElapsedTime() { return elapsedTime; }
+
+    public int getScore() { return score; }
+
+    /** Hero HP sampled once per countdown second. */
+    public int[] getHpCurve() { return hpCurve; }
+
+    public boolean isWin() { return state == World.State.WON; }
+
+    public boolean isDeath() { return state == World.State.DIED; }
+}
@@ -0,0 +1,180 @@
+package game.Engine;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Uniform-grid spatial hash for moving entities.
+ *
+ * Every item is filed under each maze cell its bounding box touches. Cells are
+ * hashed into a fixed bucket table, so the structure works for any level size
+ * without allocating per cell. Moving an item only touches the buckets of the
+ * cells it left or entered, and a box query only looks at the buckets under
+ * the box, so collision cost follows local density instead of entity count.
+ */
+public class SpatialHash<E> {
+
+    private static final class Entry<E> {
+        final E item;
+        int x, y, width, height;
+        int minCol, minRow, maxCol, maxRow;
+        int stamp;
+
+        Entry(E item) {
+            this.item = item;
+        }
+    }
+
+    private final int cellSize;
+    private final int mask;
+    private final ArrayList<Entry<E>>[] buckets;
+    private final IdentityHashMap<E, Entry<E>> entries = new IdentityHashMap<>();
+    private int stamp = 0;
+
+    public SpatialHash(int cellSize) {
+        this(cellSize, 4096);
+    }
+
+    /**
+     * @param cellSize side of a grid cell in pixels
+     * @param bucketCount hash table size, rounded up to a power of two
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SpatialHash(int cellSize, int bucketCount) {
+        int size = Integer.highestOneBit(Math.max(bucketCount - 1, 1)) << 1;
+        this.cellSize = cellSize;
+        this.mask = size - 1;
+        this.buckets = new ArrayList[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Registers the item, or moves it if it is already registered.
+     */
+    public void update(E item, int x, int y, int width, int height) {
+        Entry<E> entry = entries.get(item);
+        if (entry == null) {
+            entry = new Entry<>(item);
+            entries.put(item, entry);
+            place(entry, x, y, width, height);
+            link(entry);
+            return;
+        }
+        int minCol = Math.floorDiv(x, cellSize);
+        int minRow = Math.floorDiv(y, cellSize);
+        int maxCol = Math.floorDiv(x + Math.max(width, 1) - 1, cellSize);
+        int maxRow = Math.floorDiv(y + Math.max(height, 1) - 1, cellSize);
+        if (minCol == entry.minCol && minRow == entry.minRow && maxCol == entry.maxCol && maxRow == entry.maxRow) {
+            // Still in the same cells, only the exact box changed
+            entry.x = x;
+            entry.y = y;
+            entry.width = width;
+            entry.height = height;
+            return;
+        }
+        unlink(entry);
+        place(entry, x, y, width, height);
+        link(entry);
+    }
+
+    public boolean remove(E item) {
+        Entry<E> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        return true;
+    }
+
+    public boolean contains(E item) {
+        return entries.containsKey(item);
+    }
+
+    public void clear() {
+        for (ArrayList<Entry<E>> bucket : buckets) {
+            bucket.clear();
+        }
+        entries.clear();
+    }
+
+    /**
+     * Appends every registered item whose box overlaps the given box to {@code out}.
+     * Edges are half-open like {@link java.awt.Rectangle#intersects}.
+     *
+     * @return {@code out}, for chaining
+     */
+    public List<E> query(int x, int y, int width, int height, List<E> out) {
+        if (width <= 0 || height <= 0) {
+            return out;
+        }
+        int current = ++stamp;
+        int minCol = Math.floorDiv(x, cellSize);
+        int minRow = Math.floorDiv(y, cellSize);
+        int maxCol = Math.floorDiv(x + width - 1, cellSize);
+        int maxRow = Math.floorDiv(y + height - 1, cellSize);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                ArrayList<Entry<E>> bucket = buckets[bucket(col, row)];
+                for (int i = 0, n = bucket.size(); i < n; i++) {
+                    Entry<E> entry = bucket.get(i);
+                    if (entry.stamp == current) {
+                        continue;
+                    }
+                    if (entry.x < x + width && x < entry.x + entry.width
+                            && entry.y < y + height && y < entry.y + entry.height) {
+                        entry.stamp = current;
+                        out.add(entry.item);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    private void place(Entry<E> entry, int x, int y, int width, int height) {
+        entry.x = x;
+        entry.y = y;
+        entry.width = width;
+        entry.height = height;
+        entry.minCol = Math.floorDiv(x, cellSize);
+        entry.minRow = Math.floorDiv(y, cellSize);
+        entry.maxCol = Math.floorDiv(x + Math.max(width, 1) - 1, cellSize);
+        entry.maxRow = Math.floorDiv(y + Math.max(height, 1) - 1, cellSize);
+    }
+
+    private void link(Entry<E> entry) {
+        for (int row = entry.minRow; row <= entry.maxRow; row++) {
+            for (int col = entry.minCol; col <= entry.maxCol; col++) {
+                buckets[bucket(col, row)].add(entry);
+            }
+        }
+    }
+
+    private void unlink(Entry<E> entry) {
+        for (int row = entry.minRow; row <= entry.maxRow; row++) {
+            for (int col = entry.minCol; col <= entry.maxCol; col++) {
+                ArrayList<Entry<E>> bucket = buckets[bucket(col, row)];
+                int index = bucket.indexOf(entry);
+                // Swap-remove, bucket order does not matter
+                int last = bucket.size() - 1;
+                bucket.set(index, bucket.get(last));
+                bucket.remove(last);
+            }
+        }
+    }
+
+    private int bucket(int col, int row) {
+        return ((col * 73856093) ^ (row * 19349663)) & mask;
+    }
+}
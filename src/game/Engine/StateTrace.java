@@ -0,0 +1,45 @@
+package game.Engine;
+
+import java.util.Arrays;
+
+/**
+ * Per-step state hashes of one run. Two runs from the same seed and inputs
+ * must produce identical traces; the first differing step pinpoints where a
+ * source of nondeterminism crept in.
+ */
+public class StateTrace {
+
+    private long[] hashes = new long[1024];
+    private int size = 0;
+
+    public void record(long hash) {
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        hashes[size++] = hash;
+    }
+
+    public long get(int step) {
+        if (step < 0 || step >= size) {
+            throw new IndexOutOfBoundsException("Step " + step + " of " + size);
+        }
+        return hashes[step];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Index of the first step whose hash differs from {@code other}, or -1 if
+     * the traces match. A trace that stops early diverges where it ends.
+     */
+    public int firstDivergence(StateTrace other) {
+        int common = Math.min(size, other.size);
+        int index = Arrays.mismatch(hashes, 0, common, other.hashes, 0, common);
+        if (index >= 0) {
+            return index;
+        }
+        return size == other.size ? -1 : common;
+    }
+}
@@ -0,0 +1,117 @@
+package game.Engine;
+
+/**
+ * Solid/passable grid built from a maze array.
+ *
+ * Replaces the per-wall entity list for static collision: asking whether a
+ * tile is solid is O(1), and a rectangle query only visits the tiles the
+ * rectangle covers instead of every wall in the level. The tiles are read
+ * straight from the maze's {@link PackedMaze}, which holds a solid bit per
+ * cell. Tiles can be opened or closed later with {@link #setSolid}; whoever
+ * does so tells the structures derived from the grid, such as a
+ * {@link HierarchicalPathfinder}.
+ *
+ * A grid over a {@link ChunkStreamer} only knows the chunks around the hero:
+ * every cell of the other chunks is solid, and it has no {@link PackedMaze}.
+ */
+public final class TileGrid {
+
+    private final int rows;
+    private final int cols;
+    private final int tileSize;
+    private final PackedMaze maze;
+    private final ChunkStreamer chunks;
+
+    public TileGrid(int[][] maze, int tileSize) {
+        this(PackedMaze.of(maze), tileSize);
+    }
+
+    public TileGrid(PackedMaze maze, int tileSize) {
+        this.rows = maze.getRows();
+        this.cols = maze.getCols();
+        this.tileSize = tileSize;
+        this.maze = maze;
+        this.chunks = null;
+    }
+
+    public TileGrid(ChunkStreamer chunks, int tileSize) {
+        this.rows = chunks.getRows();
+        this.cols = chunks.getCols();
+        this.tileSize = tileSize;
+        this.maze = null;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Cell codes that block movement: inner walls (1) and the borders (2, 3, 5, 6).
+     */
+    public static boolean isSolidCell(int cell) {
+        return cell == 1 || cell == 2 || cell == 3 || cell == 5 || cell == 6;
+    }
+
+    /**
+     * Whether the tile at the given grid coordinates is solid. Tiles outside the
+     * maze are open, matching the old wall list which only covered the maze.
+     */
+    public boolean isSolid(int col, int row) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) {
+            return false;
+        }
+        return maze != null ? maze.isSolid(row * cols + col) : chunks.isSolid(col, row);
+    }
+
+    /**
+     * Opens or closes a tile inside the maze, making it a plain path (0) or
+     * wall (1). Streamed grids are read-only.
+     */
+    public void setSolid(int col, int row, boolean value) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) {
+            throw new IndexOutOfBoundsException("Tile " + col + "," + row + " is outside the maze");
+        }
+        if (maze == null) {
+            throw new UnsupportedOperationException("Tiles of a streamed level cannot be changed");
+        }
+        maze.set(row, col, value ? 1 : 0);
+    }
+
+    /**
+     * Whether the pixel rectangle overlaps any solid tile. Uses the same
+     * half-open edges as {@link java.awt.Rectangle#intersects}, so touching a
+     * wall without entering it is not a hit.
+     */
+    public boolean overlaps(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+        int minCol = Math.max(Math.floorDiv(x, tileSize), 0);
+        int maxCol = Math.min(Math.floorDiv(x + width - 1, tileSize), cols - 1);
+        int minRow = Math.max(Math.floorDiv(y, tileSize), 0);
+        int maxRow = Math.min(Math.floorDiv(y + height - 1, tileSize), rows - 1);
+        for (int row = minRow; row <= maxRow; row++) {
+            int base = row * cols;
+            for (int col = minCol; col <= maxCol; col++) {
+                if (maze != null ? maze.isSolid(base + col) : chunks.isSolid(col, row)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /** The maze behind the grid, or null for a streamed one. */
+    public PackedMaze getMaze() {
+        return maze;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+}
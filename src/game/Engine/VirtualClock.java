@@ -0,0 +1,33 @@
+package game.Engine;
+
+/**
+ * Clock that only moves when the simulation steps. Time is a whole number of
+ * fixed steps, so it is identical on every machine and at any playback speed.
+ */
+public class VirtualClock implements Clock {
+
+    private final long stepNanos;
+    private long steps = 0;
+
+    public VirtualClock(int stepsPerSecond) {
+        this.stepNanos = 1_000_000_000L / stepsPerSecond;
+    }
+
+    /** Moves time forward by one step. */
+    public void advance() {
+        steps++;
+    }
+
+    @Override
+    public long nanoTime() {
+        return steps * stepNanos;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+}
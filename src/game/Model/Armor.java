@@ -2,10 +2,10 @@
 package game.Model;
 
 import game.View.Entity;
+import game.View.Sprite;
+import game.View.SpriteCache;
 import java.awt.Graphics2D;
 import java.awt.Image;
-import java.awt.Rectangle;
-import javax.swing.ImageIcon;
 
 
 public class Armor extends Entity {
@@ -14,6 +14,7 @@ public class Armor extends Entity {
     
     public Armor(int x, int y) {
         super(x, y);
+        setBox(0,0,25,30);
     }
     
     @Override
@@ -25,12 +26,12 @@ public class Armor extends Entity {
     }
   
     public Image getArmorImage(){
-        
-    ImageIcon ic = new ImageIcon("armor.png");
-        return ic.getImage();
+        return SpriteCache.get(getSprite());
     }
     
-    public Rectangle getBounds(){
-    return new Rectangle(x,y,25,30);
+    @Override
+    public Sprite getSprite(){
+        return Sprite.ARMOR;
     }
+    
 }
@@ -2,22 +2,24 @@
 package game.Model;
 
 import game.View.Entity;
+import game.View.Sprite;
+import game.View.SpriteCache;
 import java.awt.Graphics2D;
 import java.awt.Image;
-import java.awt.Rectangle;
-import java.util.Random;
-import javax.swing.ImageIcon;
 
 
 public class Bomb extends Entity{
     
     public Bomb(int x, int y) {
+        this(x, y, 0);
+    }
+    public Bomb(int x, int y, int bombtype) {
         super(x, y);
+        setBox(-1,0,22,30);
+        this.bombtype = bombtype;
     }
     public boolean IsExploded=false;
-    Random r = new Random();
-    public int bombtype=r.nextInt(2);
-    ImageIcon ic = new ImageIcon("bomb.png");
+    public int bombtype;
     
     @Override
      public void Update (){}
@@ -28,17 +30,18 @@ public class Bomb extends Entity{
     }
   
     public Image getBombImage(){
-        
-        if (bombtype==0){
-        ic = new ImageIcon("bomb.png");
-        }
-        else {
-        ic = new ImageIcon("bomb1.png");
-        }
-        return ic.getImage();
+        return SpriteCache.get(getSprite());
+    }
+    
+    @Override
+    public Sprite getSprite(){
+        if (bombtype==0) return Sprite.BOMB;
+        return Sprite.BOMB_HEAVY;
     }
     
-    public Rectangle getBounds(){
-    return new Rectangle(x-1,y,22,30);
+    @Override
+    public int spriteX(){
+        return x+2;
     }
+    
 }
@@ -0,0 +1,79 @@
+package game.Model;
+
+import game.View.Entity;
+import game.View.Sprite;
+import java.util.ArrayList;
+
+
+/**
+ * Shot fired by the hero. Flies 10 px a step in the direction the hero faced
+ * and is used up by the first wall, enemy or pickup it hits, as the bullets
+ * of the original Swing game were.
+ */
+public class Bullet extends Entity {
+
+    static final int SPEED = 10;
+
+    final World world;
+    // Hero facing when fired: 1 right, 2 left, 3 up, 4 down
+    final int direction;
+    // Entities around the bullet, refilled from the world's spatial hash
+    private final ArrayList<Entity> nearby = new ArrayList<Entity>();
+
+    public Bullet(World world, int x, int y, int direction) {
+        super(x, y);
+        setBox(5,5,10,10);
+        this.world = world;
+        this.direction = direction;
+    }
+
+    @Override
+    public void Update(){
+    switch (direction){
+        case 2: x -= SPEED; break;
+        case 3: y -= SPEED; break;
+        case 4: y += SPEED; break;
+        default: x += SPEED;
+    }
+    CheckCollision();
+    }
+
+    public void CheckCollision(){
+    nearby.clear();
+    world.getEntitiesNear(boxLeft(),boxTop(),boxWidth(),boxHeight(),nearby);
+    boolean hit = false;
+    for (int i = 0; i < nearby.size() && !hit; i++){
+        Entity e = nearby.get(i);
+        if (e instanceof Enemy){
+            world.removeEnemy((Enemy) e);
+            world.enemyCount--;
+            world.score += 20;
+            if (world.enemyCount == 0) world.exitOpen = true;
+        } else if (e instanceof Bomb){
+            world.removeBomb((Bomb) e);
+            world.score += 10;
+        } else if (e instanceof Gift){
+            world.removeGift((Gift) e);
+        } else if (e instanceof Armor){
+            world.removeArmor((Armor) e);
+        } else if (e instanceof Obstacle){
+            world.removeObstacle((Obstacle) e);
+        } else {
+            continue;
+        }
+        // Used up by the first thing it hits
+        hit = true;
+    }
+    // Walls stop it, and so does leaving the maze
+    int width = world.getTiles().getCols() * World.TILE, height = world.getTiles().getRows() * World.TILE;
+    if (hit || world.getTiles().overlaps(boxLeft(),boxTop(),boxWidth(),boxHeight())
+            || boxLeft() + boxWidth() <= 0 || boxTop() + boxHeight() <= 0 || boxLeft() >= width || boxTop() >= height){
+        world.removeBullet(this);
+    }
+    }
+
+    @Override
+    public Sprite getSprite(){
+    return Sprite.BULLET;
+    }
+}
@@ -2,16 +2,17 @@
 package game.Model;
 
 import game.View.Entity;
+import game.View.Sprite;
+import game.View.SpriteCache;
 import java.awt.Graphics2D;
 import java.awt.Image;
-import java.awt.Rectangle;
-import javax.swing.ImageIcon;
 
 
 public class Checkpoint extends Entity{
 
 public Checkpoint(int x, int y) {
 super(x, y);
+setBox(0,0,30,30);
 }
 @Override
 public void Update(){}
@@ -24,12 +25,12 @@ public void draw (Graphics2D g2d){
     }
     
 public Image getCheckImage(){
-        
-    ImageIcon ic = new ImageIcon("Checkpoint.png");
-        return ic.getImage();
+        return SpriteCache.get(getSprite());
     }
-public Rectangle getBounds(){
-    return new Rectangle(x,y,30, 30);
+
+@Override
+public Sprite getSprite(){
+        return Sprite.CHECKPOINT;
     }
 
 }
@@ -1,15 +1,17 @@
 
 package game.Model;
 
+import game.View.Sprite;
+import game.View.SpriteCache;
 import java.awt.Graphics2D;
 import java.awt.Image;
-import javax.swing.ImageIcon;
 
 
 public class Decorator extends Bomb {
     
     Bomb tembBomb;
-    ImageIcon iy = new ImageIcon("explode.png");
+    // Step at which the explosion stops being drawn
+    public long until;
     
     public Decorator(int x, int y) {
         super(x, y);
@@ -17,10 +19,8 @@ public class Decorator extends Bomb {
     }
     
     @Override
-    public Image getBombImage(){
-        
-        ic=new ImageIcon("explode.png");
-        return ic.getImage();
+    public Sprite getSprite(){
+        return Sprite.EXPLOSION;
     }
     @Override
     public void draw(Graphics2D g2d){
@@ -2,16 +2,17 @@
 package game.Model;
 
 import game.View.Entity;
+import game.View.Sprite;
+import game.View.SpriteCache;
 import java.awt.Graphics2D;
 import java.awt.Image;
-import java.awt.Rectangle;
-import javax.swing.ImageIcon;
 
 
 public class EndPoint extends Entity{
     
     public EndPoint(int x, int y) {
         super(x, y);
+        setBox(-1,0,35,30);
     }
     
      public void Update (){
@@ -23,11 +24,17 @@ public class EndPoint extends Entity{
     }
   
     public Image getendImage(){
-        ImageIcon ic = new ImageIcon("end.jpg");
-        return ic.getImage();
+        return SpriteCache.get(getSprite());
     }
     
-    public Rectangle getBounds(){
-    return new Rectangle(x-1,y,35,30);
+    @Override
+    public Sprite getSprite(){
+        return Sprite.END_POINT;
     }
+    
+    @Override
+    public int spriteX(){
+        return x+2;
+    }
+    
 }
@@ -1,16 +1,12 @@
 
 package game.Model;
 
+import game.Engine.CorridorGraph;
 import game.View.Entity;
-import game.View.GameFrame;
-import game.View.InfoBar;
-import game.View.Observer;
+import game.View.Sprite;
+import game.View.SpriteCache;
 import java.awt.Graphics2D;
 import java.awt.Image;
-import java.awt.Rectangle;
-import java.util.ArrayList;
-import java.util.Random;
-import javax.swing.ImageIcon;
 
 
 public class Enemy extends Entity {
@@ -18,51 +14,85 @@ public class Enemy extends Entity {
     int timej=180;
     public int go=1;
     public int face=1;
-    Observer INB = new InfoBar();
-    public static int Velocity=2;
-    public Enemy(int x, int y) {
+    final World world;
+    public Enemy(World world, int x, int y) {
         super(x, y);
+        setBox(10,10,20,20);
+        this.world = world;
+        this.enemytype = world.getRandom().nextInt(2);
     }
-    Random r = new Random();
-    public int enemytype=r.nextInt(2);
+    public int enemytype;
+    // Cell whose centre the enemy is walking to while chasing
+    public int heading = CorridorGraph.NONE;
     
     
     @Override
      public void Update (){
+     if (chase()) return;
      
-     if(go==1) x=x+Velocity;
-     else x=x-Velocity;
+     if(go==1) x=x+world.enemySpeed;
+     else x=x-world.enemySpeed;
      
      CheckCollision();
      }
     
+    // Walks cell by cell down the world's shared distance field to the hero; false when there
+    // is no path this step and the enemy should patrol instead
+    boolean chase(){
+    int cols = world.getTiles().getCols();
+    int cell = world.cellAt(boxLeft() + boxWidth() / 2, boxTop() + boxHeight() / 2);
+    if (cell == CorridorGraph.NONE) return false;
+    if (x == centreX(cell, cols) && y == centreY(cell, cols)) {
+        // Only leave a cell from its centre, so the box never clips a wall corner
+        heading = world.chaseStep(cell);
+        if (heading == CorridorGraph.NONE) return false;
+    } else if (heading == CorridorGraph.NONE || Math.abs(heading % cols - cell % cols)
+            + Math.abs(heading / cols - cell / cols) > 1) {
+        // Just spawned or loaded off-centre: settle on the current cell first
+        heading = cell;
+    }
+    int dx = centreX(heading, cols) - x, dy = centreY(heading, cols) - y;
+    if (dx != 0) {
+        x += Math.max(-world.enemySpeed, Math.min(world.enemySpeed, dx));
+        face = dx < 0 ? 2 : 1;
+        go = dx < 0 ? 0 : 1;
+    } else {
+        y += Math.max(-world.enemySpeed, Math.min(world.enemySpeed, dy));
+    }
+    return true;
+    }
+    
+    private static int centreX(int cell, int cols){
+    return (cell % cols) * World.TILE - 5;
+    }
+    
+    private static int centreY(int cell, int cols){
+    return (cell / cols) * World.TILE - 5;
+    }
+    
     @Override
     public void draw(Graphics2D g2d){
-    g2d.drawImage(getEnemyImage(), x,y, null);
+    g2d.drawImage(getEnemyImage(), drawX(),drawY(), null);
     
     }
   
     public Image getEnemyImage(){
-        ImageIcon ic = new ImageIcon("Enemy1.png");
+    return SpriteCache.get(getSprite());
+    }
+    
+    @Override
+    public Sprite getSprite(){
     if(enemytype==0) {
-                     if (face ==1){ic = new ImageIcon("Enemy1.png");}
-                     else if (face ==2){ic = new ImageIcon("Enemy2.png");}
+                     if (face ==2) return Sprite.ENEMY_LEFT;
+                     return Sprite.ENEMY_RIGHT;
     }
-    else { if (face ==1){ic = new ImageIcon("thief2.png");}
-    else if (face == 2){ic = new ImageIcon("thief1.png");} }
-        return ic.getImage();
+    if (face == 2) return Sprite.THIEF_LEFT;
+    return Sprite.THIEF_RIGHT;
     }
     
-    public Rectangle getBounds(){
-    return new Rectangle(x+10,y+10,20,20);
-    }
     
     public void CheckCollision(){
-    ArrayList <Wall>wall = GameFrame.getWallList();
-    
-    
-    for (int i = 0 ; i< wall.size() ;i++){
-    if (getBounds().intersects(wall.get(i).getBounds())){ 
+    if (world.getTiles().overlaps(boxLeft(),boxTop(),boxWidth(),boxHeight())){ 
          if(go==1) {go=0;
          x=x-2;
          face = 2;}
@@ -70,7 +100,6 @@ public class Enemy extends Entity {
          x=x+2;
          face = 1;}
     }
-    }
    }
     
 }
@@ -6,19 +6,23 @@
 package game.Model;
 
 import game.View.Entity;
+import game.View.Sprite;
+import game.View.SpriteCache;
 import java.awt.Graphics2D;
 import java.awt.Image;
-import java.awt.Rectangle;
-import java.util.Random;
-import javax.swing.ImageIcon;
 
 
 public class Gift extends Entity {    
-    Random r = new Random();
-    public int gifttype=r.nextInt(2);
+    public int gifttype;
     
     public Gift(int x, int y) {
+        this(x, y, 0);
+    }
+    
+    public Gift(int x, int y, int gifttype) {
         super(x, y);
+        setBox(0,0,25,30);
+        this.gifttype = gifttype;
     }
     
     @Override
@@ -30,13 +34,13 @@ public class Gift extends Entity {
     }
   
     public Image getGiftImage(){
-      ImageIcon ic;  
-    if(gifttype==0) ic = new ImageIcon("health.png");
-    else     ic = new ImageIcon("1234.png");
-    return ic.getImage();
+    return SpriteCache.get(getSprite());
     }
     
-    public Rectangle getBounds(){
-    return new Rectangle(x,y,25,30);
+    @Override
+    public Sprite getSprite(){
+    if(gifttype==0) return Sprite.GIFT_HEALTH;
+    return Sprite.GIFT_AMMO;
     }
+    
 }
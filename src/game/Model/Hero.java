@@ -1,49 +1,39 @@
 
 package game.Model;
 
-import game.Controller.Save;
+import game.Engine.InputLog;
 import game.View.Entity;
-import game.View.GameFrame;
-import static game.View.GameFrame.enemycount;
-import game.View.InfoBar;
-import game.View.Observer;
 import game.View.PlayerChooser;
-import game.View.PlayerName;
+import game.View.Sprite;
+import game.View.SpriteCache;
 import java.awt.Graphics2D;
 import java.awt.Image;
-import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import javax.swing.ImageIcon;
-import javax.swing.JOptionPane;
 
 
 public class Hero extends Entity implements Subject{
-    int infcounter=0;
-    public static int timej=180;
-    Save s=new Save();
+    final World world;
     int velx=0; int vely=0;
     int[] flagaction={0,0,0,0};
-    public static int index = 1;
-    public static int hp=100;
+    public int index = 1;
+    public int hp=100;
     int armorflag=0;
-    PlayerChooser p = new PlayerChooser();
-    ImageIcon ic = new ImageIcon("player2.png");
     int saved=0;
-    Observer observerBar=new InfoBar();
     PlayerState hitbombNoArmor;
     PlayerState hitBombWithArmor;
     
     PlayerState playerState;
+    // Receives every key the hero handles while a session is being recorded
+    InputLog recorder;
 
-    public Hero(int x,int y) {
+    public Hero(World world,int x,int y) {
         super(x,y);
+        setBox(10,10,10,17);
+        this.world = world;
         
-        hitbombNoArmor = new HitBomb1();
-        hitBombWithArmor = new HitBombWithArmor();
+        hitbombNoArmor = new HitBomb1(world);
+        hitBombWithArmor = new HitBombWithArmor(world);
         playerState = hitbombNoArmor;
     }
     
@@ -66,8 +56,8 @@ public class Hero extends Entity implements Subject{
     public void Update(){
 
     if (hp<=0){
-    JOptionPane.showMessageDialog(null, "      Ops!, You Have Died"+"\n"+"      Good Luck Next Time");
-    System.exit(0);
+    world.finish(World.State.DIED);
+    return;
     }
 
     
@@ -79,38 +69,35 @@ public class Hero extends Entity implements Subject{
     
     @Override
     public void draw(Graphics2D g2d){
-    g2d.drawImage(getPlayerImage(),x,y, null);
+    g2d.drawImage(getPlayerImage(),drawX(),drawY(), null);
     }
 
     public Image getPlayerImage(){
+        return SpriteCache.get(getSprite());
+    }
 
-        if (p.playerflag==0||p.playerflag ==1){
-        if (index == 1){
-    ImageIcon ic = new ImageIcon("player2.png");
-    return ic.getImage();}
-        else if (index == 2){
-    ImageIcon ic = new ImageIcon("player2_1.png");
-    return ic.getImage();}
-        else {
-    ImageIcon ic = new ImageIcon("player2.png");
-    return ic.getImage();}
-        }else {
-        if (index == 2){
-    ImageIcon ic = new ImageIcon("player1.png");
-    return ic.getImage();}
-        else if (index == 1){
-    ImageIcon ic = new ImageIcon("player1_2.png");
-    return ic.getImage();}
-        else {
-    ImageIcon ic = new ImageIcon("player1_2.png");
-    return ic.getImage();
-                }
+    @Override
+    public Sprite getSprite(){
+
+        if (PlayerChooser.playerflag==0||PlayerChooser.playerflag ==1){
+        if (index == 2) return Sprite.HERO1_LEFT;
+        return Sprite.HERO1_RIGHT;
         }
+        if (index == 2) return Sprite.HERO2_LEFT;
+        return Sprite.HERO2_RIGHT;
     }
     
     public void keyPressed (KeyEvent e){
+    press(e.getKeyCode());
+    }
 
-    int key = e.getKeyCode();
+    public void keyReleased (KeyEvent e){
+    release(e.getKeyCode());
+    }
+
+    // Key handling by key code, so scripted and headless input can drive the hero
+    public void press (int key){
+    if (recorder != null) recorder.record(world.getTick(), key, true);
 
             if (key==KeyEvent.VK_W || key==KeyEvent.VK_UP){
      vely = -4;
@@ -133,23 +120,21 @@ public class Hero extends Entity implements Subject{
     flagaction[3]=1;
     }
             else if (key==KeyEvent.VK_SPACE){
-               Weapon z= new Weapon(x,y+10);
-               if(Weapon.Currentnumberofbullets>0)
+               if(world.ammo>0)
                {
-    z.indexw=index;
-    GameFrame.addWeapon(z);
-    Weapon.Currentnumberofbullets--;
+    world.addBullet(new Bullet(world,x,y+10,index));
+    world.ammo--;
     }
     }
             Update();
     }
 
-    public void keyReleased (KeyEvent e){
+    public void release (int key){
+    if (recorder != null) recorder.record(world.getTick(), key, false);
     flagaction[0]=0;
     flagaction[1]=0;
     flagaction[2]=0;
     flagaction[3]=0;
-    int key = e.getKeyCode();
 
     if (key==KeyEvent.VK_W || key==KeyEvent.VK_UP){
     vely = 0; velx = 0;
@@ -168,43 +153,45 @@ public class Hero extends Entity implements Subject{
 
     }
 
-    public Rectangle getBounds(){
-    return new Rectangle(x+10,y+10,10,17);
+
+    public void setRecorder(InputLog log){
+    recorder = log;
+    }
+
+    // Entities around the hero, refilled from the world's spatial hash
+    ArrayList<Entity> nearby = new ArrayList<Entity>();
+
+    private ArrayList<Entity> near(){
+    nearby.clear();
+    world.getEntitiesNear(boxLeft(),boxTop(),boxWidth(),boxHeight(),nearby);
+    return nearby;
     }
 
     public void CheckCollision(){
-    ArrayList <Enemy>enemies = GameFrame.getEnemyList();
-    ArrayList <Wall> wall = GameFrame.getWallList();
-    ArrayList <Gift> gift = GameFrame.getGiftList();
-    ArrayList <Bomb> bombs = GameFrame.getBombList();
-    ArrayList <Armor> armor = GameFrame.getArmorList();
-    ArrayList <Obstacle> obstacless = GameFrame.getObstaclesList();
-    for (int i = 0 ; i< enemies.size();i++){
-    if (getBounds().intersects(enemies.get(i).getBounds())){
-        if(enemies.get(i).enemytype==0){
+    ArrayList<Entity> around = near();
+    for (int i = 0 ; i< around.size();i++){
+    if (!(around.get(i) instanceof Enemy)) continue;
+    Enemy enemy = (Enemy) around.get(i);
+        if(enemy.enemytype==0){
             if(armorflag==1) armorflag=0;
             else hp-=20;
-        enemies.remove(enemies.get(i));
-        enemycount--;
-        System.out.println(hp);
+        world.removeEnemy(enemy);
+        world.enemyCount--;
         }
         else
         {
-          Weapon.Currentnumberofbullets=Weapon.Currentnumberofbullets-2;
-         if(Weapon.Currentnumberofbullets<0) Weapon.Currentnumberofbullets=0;
-         enemies.remove(enemies.get(i));
+          world.ammo=world.ammo-2;
+         if(world.ammo<0) world.ammo=0;
+         world.removeEnemy(enemy);
          if(armorflag==1) armorflag=0;
          else hp-=10;
-         System.out.println(hp);
-         enemycount--;
-        }
-        if (enemycount==0) Weapon.flag=1;
+         world.enemyCount--;
         }
+        if (world.enemyCount==0) world.exitOpen=true;
     }
-    for (int i = 0 ; i< obstacless.size() ;i++){
+    for (int i = 0 ; i< around.size() ;i++){
     
-    if (
-    getBounds().intersects(obstacless.get(i).getBounds())){
+    if (around.get(i) instanceof Obstacle){
     velx=0;
     vely=0;
 
@@ -229,9 +216,7 @@ public class Hero extends Entity implements Subject{
     }
     
 
-    for (int i = 0 ; i< wall.size() ;i++){
-    if (
-    getBounds().intersects(wall.get(i).getBounds())){
+    if (world.getTiles().overlaps(boxLeft(),boxTop(),boxWidth(),boxHeight())){
     velx=0;
     vely=0;
 
@@ -253,72 +238,63 @@ public class Hero extends Entity implements Subject{
     flagaction[3]=0;
     }
     }
-    }
-    for (int i = 0 ; i< bombs.size() ;i++){
-    if (getBounds().intersects(bombs.get(i).getBounds())){
+    around = near();
+    for (int i = 0 ; i< around.size() ;i++){
+    if (around.get(i) instanceof Bomb){
+        Bomb bomb = (Bomb) around.get(i);
         
         velx = 0; vely = 0;
        
         HitBombwithArmor();
-        if (bombs.get(i).bombtype==0)
+        if (bomb.bombtype==0)
             hitBombNoArmor(0);
          else 
             hitBombNoArmor(1);
         if (armorflag == 0)playerState = hitbombNoArmor;
         
         
-        bombs.get(i).IsExploded=true;
+        bomb.IsExploded=true;
         
         
     
     }
 
    }
-    for (int i = 0 ; i< gift.size() ;i++){
-    if (getBounds().intersects(gift.get(i).getBounds())){
-        if(gift.get(i).gifttype==0)
+    for (int i = 0 ; i< around.size() ;i++){
+    if (around.get(i) instanceof Gift){
+        Gift gift = (Gift) around.get(i);
+        world.removeGift(gift);
+        if(gift.gifttype==0)
         {
-            gift.remove(gift.get(i));
             hp+=20;
             if(hp>100) hp=100;
         }
         else{
-           gift.remove(gift.get(i));
-        Weapon.Currentnumberofbullets+=3;
+        world.ammo+=3;
         }
-           Weapon.score+=10;
+           world.score+=10;
 
                 }
    }
-    for (int i = 0 ; i< armor.size() ;i++){
-    if (getBounds().intersects(armor.get(i).getBounds())){
-        armor.remove(armor.get(i));
+    for (int i = 0 ; i< around.size() ;i++){
+    if (around.get(i) instanceof Armor){
+        world.removeArmor((Armor) around.get(i));
         armorflag=1;
-        Weapon.score+=10;
+        world.score+=10;
         playerState = hitBombWithArmor;
 
                 }
    }
 
-   if(GameFrame.c!=null){
-    if(getBounds().intersects(GameFrame.c.getBounds()))
+   if(world.checkpoint!=null){
+    if(intersects(world.checkpoint))
     {
-    GameFrame.c=null;
-        try {
-            s.savegame(x,y);
-            if(!!GameFrame.players.contains(PlayerName.name))GameFrame.players.add(PlayerName.name);
-        } catch (IOException ex) {
-            Logger.getLogger(Hero.class.getName()).log(Level.SEVERE, null, ex);
-        }
     saved=1;
+    world.checkpointReached(x,y);
     }}
     
-   if (getBounds().intersects(GameFrame.p.getBounds())){
-       int Finaltime=(180-Integer.parseInt(InfoBar.time.getText()));
-       int FinalScore=Integer.parseInt(InfoBar.score.getText())*Finaltime;
-       System.out.println(FinalScore);
-       JOptionPane.showMessageDialog(null, "      Wow!, You Win"+"\n"+"      Congratulations"+"\n"+"Your time :"+(Finaltime)+"\n"+"Your Score :" +(FinalScore) );
-       System.exit(0);
+   if (intersects(world.endPoint)){
+       world.finish(World.State.WON);
    }
    
    }
@@ -336,13 +312,6 @@ return saved;
 
    @Override
     public void NotifyObservers() {
-        InfoBar.t--;
-     infcounter++;
-     if(infcounter%60==0) {
-         timej--;
-         observerBar.EnemyUpdate(timej);
-     }
-        
-       observerBar.HeroUpdate(hp, Weapon.score, Weapon.Currentnumberofbullets,armorflag,timej);
+       world.notifyObserver();
     }
 }
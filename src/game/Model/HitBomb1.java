@@ -1,26 +1,23 @@
 
 package game.Model;
 
-import game.View.GameFrame;
-
 
 public class HitBomb1 implements PlayerState{
 
-    public Hero newHero;
+    final World world;
     
-    public void hitbombnoarmour(){
-      newHero = GameFrame.player;
+    public HitBomb1(World world){
+      this.world = world;
     }
     
     @Override
     public void hitBombNoArmor(int bombtype) {
+        Hero newHero = world.player;
         if (bombtype==0){
-        GameFrame.player.hp-=40;
-        System.out.println("hit bomb1");}
+        newHero.hp-=world.bombDamage;}
     else{
-        GameFrame.player.hp-=60;
-        System.out.println("hit bomb2");}
-        GameFrame.player.setPlayerState(GameFrame.player.yeshitNoArmor());
+        newHero.hp-=world.heavyBombDamage;}
+        newHero.setPlayerState(newHero.yeshitNoArmor());
     }
 
     @Override
@@ -1,15 +1,13 @@
 
 package game.Model;
 
-import game.View.GameFrame;
-
 
 public class HitBombWithArmor implements PlayerState {
 
-    public Hero newHero;
-    //PlayerState playerState=GameFrame.player.hitbombNoArmor;
-    public void hitbombwitharmour(){
-    newHero = GameFrame.player;
+    final World world;
+    
+    public HitBombWithArmor(World world){
+    this.world = world;
     }
     
     @Override
@@ -17,9 +15,10 @@ public class HitBombWithArmor implements PlayerState {
 
     @Override
     public void HitBombwithArmor() {
-        if (GameFrame.player.armorflag==1)GameFrame.player.armorflag=0;
-        System.out.println("hit bomb with armour");        GameFrame.player.playerState = GameFrame.player.hitbombNoArmor;
-        GameFrame.player.setPlayerState(GameFrame.player.yeshitwitharmor());
+        Hero newHero = world.player;
+        if (newHero.armorflag==1)newHero.armorflag=0;
+        newHero.playerState = newHero.hitbombNoArmor;
+        newHero.setPlayerState(newHero.yeshitwitharmor());
     }
     
 }
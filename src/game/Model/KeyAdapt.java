@@ -11,11 +11,16 @@ public class KeyAdapt extends KeyAdapter{
      p = player;
      
     }
+    // The game loop thread steps the world while holding the hero's lock
     public void keyPressed (KeyEvent e){
+    synchronized (p) {
     p.keyPressed(e);
     }
+    }
     public void keyReleased (KeyEvent e){
+    synchronized (p) {
     p.keyReleased(e);
     }
+    }
     
 }
@@ -6,10 +6,10 @@
 package game.Model;
 
 import game.View.Entity;
+import game.View.Sprite;
+import game.View.SpriteCache;
 import java.awt.Graphics2D;
 import java.awt.Image;
-import java.awt.Rectangle;
-import javax.swing.ImageIcon;
 
 
 public class Obstacle extends Entity{
@@ -17,6 +17,7 @@ public class Obstacle extends Entity{
 
     public Obstacle(int x, int y) {
     super(x, y);
+    setBox(10,10,20,20);
     }
     
     @Override
@@ -28,13 +29,14 @@ public class Obstacle extends Entity{
     }
   
     public Image getObstacleImage(){
-        ImageIcon ic = new ImageIcon("Tree.png");
-        return ic.getImage();
+        return SpriteCache.get(getSprite());
     }
     
-    public Rectangle getBounds(){
-    return new Rectangle(x+10,y+10,20,20);
+    @Override
+    public Sprite getSprite(){
+        return Sprite.OBSTACLE;
     }
+    
 
    
     
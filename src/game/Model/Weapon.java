@@ -1,9 +1,11 @@
 
 package game.Model;
 
+import game.Engine.Clock;
+import game.View.FxSpriteAtlas;
+import game.View.Sprite;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
-import javafx.scene.paint.Color;
 
 /**
  * Modern Weapon class using JavaFX
@@ -19,7 +21,9 @@ public class Weapon {
     private boolean isReloading = false;
     private double reloadTime = 2.0; // seconds
     private double reloadStartTime;
+    private Clock clock = Clock.SYSTEM;
     
+    // Custom image; null draws the shared bullet sprite from the atlas
     private Image weaponImage;
     private double x, y;
     private double width = 30;
@@ -31,38 +35,15 @@ public class Weapon {
         this.maxAmmo = maxAmmo;
         this.currentAmmo = maxAmmo;
         this.fireRate = fireRate;
-        this.lastShotTime = 0;
-        
-        // Load weapon image based on name
-        loadWeaponImage();
-    }
-    
-    private void loadWeaponImage() {
-        try {
-            switch (name.toLowerCase()) {
-                case "pistol":
-                    weaponImage = new Image(getClass().getResourceAsStream("/game/View/Bullet1.png"));
-                    break;
-                case "rifle":
-                    weaponImage = new Image(getClass().getResourceAsStream("/game/View/Bullet1.png"));
-                    break;
-                case "shotgun":
-                    weaponImage = new Image(getClass().getResourceAsStream("/game/View/Bullet1.png"));
-                    break;
-                default:
-                    weaponImage = new Image(getClass().getResourceAsStream("/game/View/Bullet1.png"));
-                    break;
-            }
-        } catch (Exception e) {
-            System.err.println("Could not load weapon image for " + name + ": " + e.getMessage());
-        }
+        // Never shot, so the first shot is allowed at any clock reading
+        this.lastShotTime = Double.NEGATIVE_INFINITY;
     }
     
     public boolean canShoot() {
         if (isReloading) return false;
         if (currentAmmo <= 0) return false;
         
-        double currentTime = System.currentTimeMillis() / 1000.0;
+        double currentTime = clock.seconds();
         return (currentTime - lastShotTime) >= (1.0 / fireRate);
     }
     
@@ -70,7 +51,7 @@ public class Weapon {
         if (!canShoot()) return;
         
         currentAmmo--;
-        lastShotTime = System.currentTimeMillis() / 1000.0;
+        lastShotTime = clock.seconds();
         
         // TODO: Create bullet projectile
         // This would be handled by the game engine
@@ -80,12 +61,12 @@ public class Weapon {
         if (isReloading || currentAmmo == maxAmmo) return;
         
         isReloading = true;
-        reloadStartTime = System.currentTimeMillis() / 1000.0;
+        reloadStartTime = clock.seconds();
     }
     
     public void update(double deltaTime) {
         if (isReloading) {
-            double currentTime = System.currentTimeMillis() / 1000.0;
+            double currentTime = clock.seconds();
             if (currentTime - reloadStartTime >= reloadTime) {
                 currentAmmo = maxAmmo;
                 isReloading = false;
@@ -97,12 +78,7 @@ public class Weapon {
         if (weaponImage != null) {
             gc.drawImage(weaponImage, x, y, width, height);
         } else {
-            // Fallback to rectangle drawing
-            gc.setFill(Color.DARKGRAY);
-            gc.fillRect(x, y, width, height);
-            gc.setStroke(Color.WHITE);
-            gc.setLineWidth(1);
-            gc.strokeRect(x, y, width, height);
+            FxSpriteAtlas.draw(gc, Sprite.BULLET, x, y, width, height);
         }
     }
     
@@ -140,6 +116,10 @@ public class Weapon {
     public double getHeight() { return height; }
     public void setHeight(double height) { this.height = height; }
     
+    /** Use a virtual clock to make fire rate and reload timing reproducible. */
+    public Clock getClock() { return clock; }
+    public void setClock(Clock clock) { this.clock = clock; }
+    
     public Image getWeaponImage() { return weaponImage; }
     public void setWeaponImage(Image weaponImage) { this.weaponImage = weaponImage; }
     
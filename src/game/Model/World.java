@@ -0,0 +1,680 @@
+package game.Model;
+
+import game.Engine.ChunkStreamer;
+import game.Engine.ChunkedLevel;
+import game.Engine.CorridorField;
+import game.Engine.CorridorGraph;
+import game.Engine.EntityArena;
+import game.Engine.FlowField;
+import game.Engine.PackedMaze;
+import game.Engine.SpatialHash;
+import game.Engine.StateTrace;
+import game.Engine.TileGrid;
+import game.Engine.VirtualClock;
+import game.View.Entity;
+import game.View.Observer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Self-contained state of one game session.
+ *
+ * A world owns its maze, entity lists, clock and random generator, so any
+ * number of worlds can run side by side in one process with or without a
+ * window. The Swing front end drives one through {@link #step()} and listens
+ * for checkpoint and end-of-game events; headless callers just step it.
+ *
+ * All randomness comes from one seeded stream and all time from a virtual
+ * clock that advances with {@link #step()}, so the same seed and the same
+ * inputs always produce the same states. {@link #stateHash()} fingerprints a
+ * state, and a {@link StateTrace} set with {@link #setTrace} records it after
+ * every step to find where two runs diverge.
+ *
+ * A world built on a {@link ChunkStreamer} never holds the whole maze. Only
+ * the chunks around the hero are active, and the pickups and obstacles of a
+ * chunk exist while it is active. Pickups taken stay gone when their chunk
+ * comes back. Enemies outside the active chunks wait where they are. Such
+ * levels keep no graph of the maze, so enemies patrol instead of chasing and
+ * there is no exit hint.
+ */
+public class World {
+
+    public enum State { RUNNING, WON, DIED }
+
+    /**
+     * Callbacks for events the front end reacts to outside the simulation.
+     */
+    public interface Listener {
+        void checkpointReached(World world, int x, int y);
+
+        /**
+         * Called once the step that won or lost the game has run to its end,
+         * so the world is in the state a replay of that step reaches.
+         */
+        void finished(World world);
+    }
+
+    public static final int TILE = 30;
+    public static final int TIME_LIMIT = 180;
+    // Simulation steps per countdown second, as with the old 10 ms timer
+    public static final int TICKS_PER_SECOND = 60;
+    // Steps per real second at which both front ends run the world
+    public static final int STEPS_PER_SECOND = 100;
+    // How long an explosion stays on screen, in steps
+    static final int EXPLOSION_TICKS = 30;
+    // Largest level, in cells, whose enemies steer down a per-cell flow field
+    public static final int FLOW_FIELD_CELLS = 1 << 18;
+
+    public static final int[][] DEFAULT_MAZE = {
+        {6,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,6},
+        {4,0,1,1,1,0,1,0,0,0,0,0,1,1,0,1,0,1,1,1,1,1,1,1,1,1,1,1,0,2},
+        {3,0,0,0,0,0,1,0,1,1,1,0,0,1,0,1,0,1,0,1,1,1,1,1,0,0,0,1,0,2},
+        {3,0,1,1,0,1,1,0,0,0,1,0,0,1,0,0,7,1,0,0,0,0,0,0,0,0,0,1,0,2},
+        {3,0,1,0,0,0,1,0,1,1,1,1,0,1,1,1,0,0,0,1,1,1,1,1,0,1,0,1,0,2},
+        {3,0,1,0,1,1,1,0,1,0,0,1,0,8,0,0,0,1,1,1,1,1,0,0,0,1,0,1,0,2},
+        {3,0,1,0,0,0,0,0,1,0,0,0,0,1,0,1,0,0,0,1,0,1,0,1,0,1,0,0,0,2},
+        {3,0,1,0,1,1,1,0,1,0,1,0,0,1,0,1,0,1,1,1,0,1,0,1,0,1,1,0,0,2},
+        {3,0,1,0,1,0,0,0,1,0,1,0,0,1,0,1,0,0,0,0,0,0,0,1,0,0,1,1,0,2},
+        {3,0,1,1,1,1,1,0,1,1,1,1,1,1,0,1,0,1,1,1,0,1,0,1,0,0,0,1,0,2},
+        {3,8,0,0,1,0,0,0,0,0,0,0,0,1,0,1,1,1,0,1,0,1,0,1,1,1,1,1,1,2},
+        {3,0,0,1,1,1,1,1,0,1,1,0,0,1,0,0,0,1,0,1,1,1,0,0,0,0,0,0,0,2},
+        {3,0,0,0,0,1,0,0,0,0,1,1,1,1,1,1,0,1,0,0,0,0,0,1,1,0,1,0,0,2},
+        {3,0,1,0,0,1,1,1,0,0,0,0,0,1,0,0,0,1,0,1,0,1,0,1,0,0,1,1,0,2},
+        {3,0,1,0,0,0,0,1,0,0,1,1,1,1,1,1,0,1,1,1,1,1,0,1,1,0,1,0,0,2},
+        {3,1,1,1,1,0,1,1,0,0,1,0,0,8,0,1,0,0,0,1,0,0,0,0,1,0,1,1,1,2},
+        {3,0,1,1,0,0,1,0,0,0,1,0,1,1,0,0,0,0,1,1,1,1,0,1,1,0,0,0,0,2},
+        {3,0,0,1,0,0,1,1,1,0,1,0,0,1,1,1,1,0,1,0,0,1,0,1,0,0,1,0,0,2},
+        {3,0,0,0,0,0,0,0,0,0,1,1,0,1,0,0,0,0,1,0,0,1,0,1,0,1,1,0,0,2},
+        {3,0,1,1,1,0,1,1,0,0,1,0,0,1,0,1,1,1,1,1,0,1,0,1,0,1,0,0,0,2},
+        {3,0,0,0,1,0,1,0,0,1,1,0,1,1,0,1,0,0,0,1,0,0,0,1,0,1,0,0,0,2},
+        {3,0,1,1,1,0,0,0,1,1,1,0,0,1,0,1,1,1,0,0,0,1,1,1,0,1,1,1,0,2},
+        {3,0,0,0,0,0,0,1,1,1,1,1,0,8,0,0,0,1,1,1,0,1,0,0,0,0,0,1,0,2},
+        {6,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,6}
+    };
+
+    // Exactly one of the two is set
+    private final PackedMaze maze;
+    private final ChunkStreamer chunks;
+    private final TileGrid tiles;
+    private final CorridorGraph corridors;
+    // Enemies steer down a per-cell flow field on small levels and down the
+    // corridor graph on large ones; exactly one of the two is set
+    private final FlowField flow;
+    private final CorridorField chaseField;
+    private final CorridorField exitField;
+    private final SpatialHash<Entity> entities = new SpatialHash<Entity>(TILE);
+    private final SplittableRandom random;
+    private final VirtualClock clock = new VirtualClock(STEPS_PER_SECOND);
+    private long tick = 0;
+    private StateTrace trace;
+
+    // Despawning from an arena is O(1) but reorders it; nothing depends on the order
+    private final EntityArena<Enemy> enemies = new EntityArena<Enemy>();
+    private final ArrayList<Bullet> bullets = new ArrayList<Bullet>();
+    private final EntityArena<Gift> gifts = new EntityArena<Gift>();
+    private final EntityArena<Bomb> bombs = new EntityArena<Bomb>();
+    private final EntityArena<Armor> armor = new EntityArena<Armor>();
+    private final EntityArena<Obstacle> obstacles = new EntityArena<Obstacle>();
+    private final EntityArena<Decorator> explosions = new EntityArena<Decorator>();
+    // Pickups of the active chunks of a streamed level by id, and ids of pickups taken
+    private final HashMap<Integer, Entity> pickupById = new HashMap<Integer, Entity>();
+    private final IdentityHashMap<Entity, Integer> pickupId = new IdentityHashMap<Entity, Integer>();
+    private final BitSet consumed;
+
+    Hero player;
+    Checkpoint checkpoint;
+    EndPoint endPoint;
+
+    // Session counters, formerly statics on Weapon and Hero
+    public int score = 0;
+    public int ammo = 6;
+    public int enemyCount = 0;
+    public boolean exitOpen = false;
+    public int timeLeft = TIME_LIMIT;
+    // Damage of a plain and a heavy bomb when the hero has no armor
+    public int bombDamage = 40;
+    public int heavyBombDamage = 60;
+    // Pixels an enemy moves a step
+    public int enemySpeed = 2;
+
+    private State state = State.RUNNING;
+    private Observer observer;
+    private Listener listener;
+
+    public World(long seed) {
+        this(DEFAULT_MAZE, seed);
+    }
+
+    public World(int[][] maze, long seed) {
+        this(PackedMaze.of(maze), seed);
+    }
+
+    public World(PackedMaze maze, long seed) {
+        this.maze = maze;
+        this.chunks = null;
+        this.consumed = null;
+        this.tiles = new TileGrid(maze, TILE);
+        this.corridors = new CorridorGraph(tiles);
+        boolean small = (long) tiles.getCols() * tiles.getRows() <= FLOW_FIELD_CELLS;
+        this.flow = small ? new FlowField(tiles) : null;
+        this.chaseField = small ? null : new CorridorField(corridors);
+        this.exitField = new CorridorField(corridors);
+        this.random = new SplittableRandom(seed);
+        int cols = maze.getCols();
+        for (int i = 0; i < maze.getOtherCount(); i++) {
+            int cell = maze.getOtherCell(i);
+            if (maze.getOtherCode(i) == 7) checkpoint = new Checkpoint(TILE * (cell % cols), TILE * (cell / cols));
+        }
+        // The exit goes in the last open cell, scanning up from the bottom right;
+        // on the built-in level that is where it always was
+        exit:
+        for (int row = maze.getRows() - 1; row >= 0; row--) {
+            for (int col = cols - 1; col >= 0; col--) {
+                if (!maze.isSolid(row, col)) {
+                    endPoint = new EndPoint(TILE * col - 3, TILE * row);
+                    break exit;
+                }
+            }
+        }
+    }
+
+    /**
+     * A world on a streamed level. Chunks become active once the hero is
+     * spawned.
+     */
+    public World(ChunkStreamer chunks, long seed) {
+        ChunkedLevel level = chunks.getLevel();
+        this.maze = null;
+        this.chunks = chunks;
+        this.consumed = new BitSet(level.getPickupCount());
+        this.tiles = new TileGrid(chunks, TILE);
+        this.corridors = null;
+        this.flow = null;
+        this.chaseField = null;
+        this.exitField = null;
+        this.random = new SplittableRandom(seed);
+        int cols = level.getCols();
+        int cell = level.getCheckpointCell();
+        if (cell != ChunkedLevel.NONE) checkpoint = new Checkpoint(TILE * (cell % cols), TILE * (cell / cols));
+        cell = level.getExitCell();
+        if (cell != ChunkedLevel.NONE) endPoint = new EndPoint(TILE * (cell % cols) - 3, TILE * (cell / cols));
+        chunks.setListener(new ChunkStreamer.Listener() {
+            @Override
+            public void chunkActivated(int chunk) {
+                spawnPickups(chunk);
+            }
+
+            @Override
+            public void chunkEvicted(int chunk) {
+                despawnPickups(chunk);
+            }
+        });
+    }
+
+    public Hero spawnHero(int x, int y) {
+        player = new Hero(this, x, y);
+        if (chunks != null) followHero();
+        return player;
+    }
+
+    // Keeps the chunks around the cell the hero's box is centred in active
+    private void followHero() {
+        chunks.update(Math.floorDiv(player.boxLeft() + player.boxWidth() / 2, TILE),
+                Math.floorDiv(player.boxTop() + player.boxHeight() / 2, TILE));
+    }
+
+    private void spawnPickups(int chunk) {
+        ChunkedLevel level = chunks.getLevel();
+        int cols = level.getCols();
+        int first = level.getFirstPickup(chunk);
+        for (int i = 0; i < level.getPickupCount(chunk); i++) {
+            if (consumed.get(first + i)) continue;
+            int cell = level.getPickupCell(chunk, i);
+            int col = cell % cols, row = cell / cols;
+            Entity pickup;
+            switch (level.getPickupKind(chunk, i)) {
+                case ChunkedLevel.GIFT:
+                    Gift gift = new Gift(col * TILE, row * TILE, level.getPickupType(chunk, i));
+                    addGift(gift);
+                    pickup = gift;
+                    break;
+                case ChunkedLevel.BOMB:
+                    Bomb bomb = new Bomb(col * TILE, row * TILE, level.getPickupType(chunk, i));
+                    addBomb(bomb);
+                    pickup = bomb;
+                    break;
+                case ChunkedLevel.ARMOR:
+                    Armor a = new Armor(col * TILE, row * TILE);
+                    addArmor(a);
+                    pickup = a;
+                    break;
+                default:
+                    Obstacle obstacle = new Obstacle((col * TILE) - 5, (row * TILE) - 2);
+                    addObstacle(obstacle);
+                    pickup = obstacle;
+            }
+            pickupById.put(first + i, pickup);
+            pickupId.put(pickup, first + i);
+        }
+    }
+
+    private void despawnPickups(int chunk) {
+        ChunkedLevel level = chunks.getLevel();
+        int first = level.getFirstPickup(chunk);
+        for (int id = first; id < first + level.getPickupCount(chunk); id++) {
+            Entity pickup = pickupById.remove(id);
+            if (pickup == null) continue;
+            pickupId.remove(pickup);
+            if (pickup instanceof Gift) gifts.despawn((Gift) pickup);
+            else if (pickup instanceof Bomb) bombs.despawn((Bomb) pickup);
+            else if (pickup instanceof Armor) armor.despawn((Armor) pickup);
+            else obstacles.despawn((Obstacle) pickup);
+            entities.remove(pickup);
+        }
+    }
+
+    // A streamed pickup taken out of play stays gone when its chunk comes back
+    private void consume(Entity e) {
+        if (chunks == null) return;
+        Integer id = pickupId.remove(e);
+        if (id != null) {
+            pickupById.remove(id);
+            consumed.set(id);
+        }
+    }
+
+    /**
+     * Scatters enemies, obstacles and pickups over open cells the same way the
+     * original GameFrame constructor did, except that pickups only land where
+     * the hero can walk to. A streamed level brings its own obstacles and
+     * pickups, so there only the enemies are placed, in the active chunks.
+     */
+    public void populate(int enemies) {
+        if (chunks != null) {
+            for (int i = 0; i < enemies; i++) {
+                int[] cell = randomActiveCell();
+                addEnemy(new Enemy(this, (cell[1] * TILE) - 5, (cell[0] * TILE) - 2));
+            }
+            return;
+        }
+        int from = player == null ? CorridorGraph.NONE
+                : cellAt(player.boxLeft() + player.boxWidth() / 2, player.boxTop() + player.boxHeight() / 2);
+        if (from != CorridorGraph.NONE && !isReachable(from, from)) from = CorridorGraph.NONE;
+        for (int i = 0; i < enemies; i++) {
+            int[] cell = randomOpenCell(maze.getRows() - 1, maze.getCols() - 1);
+            addEnemy(new Enemy(this, (cell[1] * TILE) - 5, (cell[0] * TILE) - 2));
+        }
+        for (int i = 0; i < 3; i++) {
+            int[] cell = randomOpenCell(maze.getRows() - 1, maze.getCols() - 1);
+            addObstacle(new Obstacle((cell[1] * TILE) - 5, (cell[0] * TILE) - 2));
+        }
+        for (int i = 0; i < 3; i++) {
+            int[] cell = reachableCell(from, maze.getRows(), maze.getCols());
+            addGift(new Gift(cell[1] * TILE, cell[0] * TILE, random.nextInt(2)));
+        }
+        for (int i = 0; i < 3; i++) {
+            int[] cell = reachableCell(from, maze.getRows(), maze.getCols());
+            addBomb(new Bomb(cell[1] * TILE, cell[0] * TILE, random.nextInt(2)));
+        }
+        int[] cell = reachableCell(from, maze.getRows(), maze.getCols());
+        addArmor(new Armor(cell[1] * TILE, cell[0] * TILE));
+    }
+
+    // Pickups only go where the hero in cell from can walk to
+    private int[] reachableCell(int from, int rows, int cols) {
+        while (true) {
+            int[] cell = randomOpenCell(rows, cols);
+            if (from == CorridorGraph.NONE || isReachable(from, corridors.cell(cell[1], cell[0]))) {
+                return cell;
+            }
+        }
+    }
+
+    private int[] randomActiveCell() {
+        if (chunks.getActiveCount() == 0) {
+            throw new IllegalStateException("Spawn the hero before populating a streamed level");
+        }
+        int size = chunks.getLevel().getChunkSize();
+        while (true) {
+            int chunk = chunks.getActiveChunk(random.nextInt(chunks.getActiveCount()));
+            int row = chunks.getChunkRow(chunk) + random.nextInt(size);
+            int col = chunks.getChunkCol(chunk) + random.nextInt(size);
+            if (row < tiles.getRows() - 1 && col < tiles.getCols() - 1 && !tiles.isSolid(col, row)) {
+                return new int[]{row, col};
+            }
+        }
+    }
+
+    private int[] randomOpenCell(int rows, int cols) {
+        while (true) {
+            int row = random.nextInt(rows), col = random.nextInt(cols);
+            if (!maze.isSolid(row, col)) {
+                return new int[]{row, col};
+            }
+        }
+    }
+
+    /**
+     * Advances the world by one fixed simulation step.
+     */
+    public void step() {
+        if (state != State.RUNNING) return;
+        tick++;
+        clock.advance();
+
+        player.savePosition();
+        player.Update();
+        if (chunks != null) followHero();
+
+        // Enemies chase the cell the hero's box is centred in, all down one shared field
+        int heroCell = cellAt(player.boxLeft() + player.boxWidth() / 2, player.boxTop() + player.boxHeight() / 2);
+        if (flow != null) flow.setGoal(heroCell); else if (chaseField != null) chaseField.setGoal(heroCell);
+
+        // Bullets kill enemies while these loops run, so removals wait until both are done
+        enemies.lock();
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
+            enemy.savePosition();
+            if (chunks != null && !chunks.isActive(Math.floorDiv(enemy.boxLeft() + enemy.boxWidth() / 2, TILE),
+                    Math.floorDiv(enemy.boxTop() + enemy.boxHeight() / 2, TILE))) {
+                continue;
+            }
+            enemy.Update();
+            track(enemy);
+        }
+
+        // Backwards, as a bullet that hits something removes itself
+        for (int i = bullets.size() - 1; i >= 0; i--) {
+            Bullet bullet = bullets.get(i);
+            bullet.savePosition();
+            bullet.Update();
+        }
+        enemies.unlock();
+
+        // Bombs the hero set off this step turn into short-lived explosions
+        for (int i = bombs.size() - 1; i >= 0; i--) {
+            Bomb bomb = bombs.get(i);
+            if (bomb.IsExploded) {
+                Decorator explosion = new Decorator(bomb.x, bomb.y);
+                explosion.until = tick + EXPLOSION_TICKS;
+                explosions.add(explosion);
+                removeBomb(bomb);
+            }
+        }
+        for (int i = explosions.size() - 1; i >= 0; i--) {
+            if (explosions.get(i).until <= tick) explosions.despawn(explosions.get(i));
+        }
+
+        if (tick % TICKS_PER_SECOND == 0) {
+            timeLeft--;
+            if (observer != null) observer.EnemyUpdate(timeLeft);
+        }
+
+        if (trace != null) trace.record(stateHash());
+        // The game can only have ended during this step
+        if (state != State.RUNNING && listener != null) listener.finished(this);
+    }
+
+    /**
+     * Fingerprint of everything that influences later steps. Equal hashes on
+     * two runs mean they are still in lockstep.
+     */
+    public long stateHash() {
+        long h = mix(0, tick);
+        h = mix(h, state.ordinal());
+        h = mix(h, score);
+        h = mix(h, ammo);
+        h = mix(h, enemyCount);
+        h = mix(h, exitOpen ? 1 : 0);
+        h = mix(h, timeLeft);
+        h = mix(h, enemySpeed);
+        h = mix(h, checkpoint == null ? 0 : 1);
+        if (player != null) {
+            h = mix(h, player.x);
+            h = mix(h, player.y);
+            h = mix(h, player.hp);
+            h = mix(h, player.armorflag);
+            h = mix(h, player.velx);
+            h = mix(h, player.vely);
+            h = mix(h, player.index);
+        }
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy e = enemies.get(i);
+            h = mix(h, e.x);
+            h = mix(h, e.y);
+            h = mix(h, e.go);
+            h = mix(h, e.enemytype);
+            h = mix(h, e.heading);
+        }
+        for (int i = 0; i < gifts.size(); i++) {
+            h = mix(h, gifts.get(i).x);
+            h = mix(h, gifts.get(i).y);
+            h = mix(h, gifts.get(i).gifttype);
+        }
+        for (int i = 0; i < bombs.size(); i++) {
+            h = mix(h, bombs.get(i).x);
+            h = mix(h, bombs.get(i).y);
+            h = mix(h, bombs.get(i).bombtype);
+        }
+        for (int i = 0; i < armor.size(); i++) {
+            h = mix(h, armor.get(i).x);
+            h = mix(h, armor.get(i).y);
+        }
+        for (int i = 0; i < obstacles.size(); i++) {
+            h = mix(h, obstacles.get(i).x);
+            h = mix(h, obstacles.get(i).y);
+        }
+        h = mix(h, bullets.size());
+        for (int i = 0; i < bullets.size(); i++) {
+            h = mix(h, bullets.get(i).x);
+            h = mix(h, bullets.get(i).y);
+        }
+        h = mix(h, explosions.size());
+        return h;
+    }
+
+    // One round of the 64-bit finalizer from SplittableRandom
+    private static long mix(long h, long value) {
+        long z = h ^ (value + 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    void finish(State result) {
+        if (state != State.RUNNING) return;
+        state = result;
+    }
+
+    void checkpointReached(int x, int y) {
+        checkpoint = null;
+        if (listener != null) listener.checkpointReached(this, x, y);
+    }
+
+    void notifyObserver() {
+        if (observer != null) {
+            observer.HeroUpdate(player.hp, score, ammo, player.armorflag, timeLeft);
+        }
+    }
+
+    /**
+     * Seconds the run has taken so far.
+     */
+    public int getElapsedTime() {
+        return TIME_LIMIT - timeLeft;
+    }
+
+    public int getFinalScore() {
+        return score * getElapsedTime();
+    }
+
+    /**
+     * Cell index of the tile under the given pixel, or {@link CorridorGraph#NONE}
+     * outside the maze.
+     */
+    public int cellAt(int px, int py) {
+        int col = Math.floorDiv(px, TILE), row = Math.floorDiv(py, TILE);
+        if (col < 0 || row < 0 || col >= tiles.getCols() || row >= tiles.getRows()) return CorridorGraph.NONE;
+        return row * tiles.getCols() + col;
+    }
+
+    /**
+     * The cell an enemy in {@code cell} moves to next on its way to the hero,
+     * or {@link CorridorGraph#NONE} without a way.
+     */
+    public int chaseStep(int cell) {
+        if (flow != null) return flow.nextStep(cell);
+        return chaseField != null ? chaseField.nextStep(cell) : CorridorGraph.NONE;
+    }
+
+    /**
+     * The cell next to the hero's on the shortest way to the exit, for the
+     * hint arrow, or {@link CorridorGraph#NONE} without a way.
+     */
+    public int exitHint() {
+        if (player == null || exitField == null) return CorridorGraph.NONE;
+        exitField.setGoal(cellAt(endPoint.boxLeft() + endPoint.boxWidth() / 2, endPoint.boxTop() + endPoint.boxHeight() / 2));
+        int heroCell = cellAt(player.boxLeft() + player.boxWidth() / 2, player.boxTop() + player.boxHeight() / 2);
+        int next = exitField.nextStep(heroCell);
+        return next == heroCell ? CorridorGraph.NONE : next;
+    }
+
+    /**
+     * Whether a walk exists between two cells. Streamed levels keep no graph
+     * of the maze and count every cell as reachable.
+     */
+    public boolean isReachable(int fromCell, int toCell) {
+        return corridors == null || corridors.isConnected(fromCell, toCell);
+    }
+
+    // Keeps the entity's box in the spatial hash in sync with its position
+    private void track(Entity e) {
+        entities.update(e, e.boxLeft(), e.boxTop(), e.boxWidth(), e.boxHeight());
+    }
+
+    /**
+     * Appends every sprite-drawn entity to {@code out} in paint order, back to
+     * front. Both front ends draw from this list, so what the player sees only
+     * depends on the simulation. Bullets come last, over everything else; the
+     * static maze is not included.
+     *
+     * @return {@code out}, for chaining
+     */
+    public List<Entity> drawables(List<Entity> out) {
+        out.add(player);
+        out.addAll(enemies);
+        out.addAll(gifts);
+        out.addAll(bombs);
+        out.addAll(explosions);
+        out.addAll(armor);
+        out.addAll(obstacles);
+        if (exitOpen) out.add(endPoint);
+        out.addAll(bullets);
+        return out;
+    }
+
+    public List<Entity> getEntitiesNear(int x, int y, int width, int height, List<Entity> out) {
+        return entities.query(x, y, width, height, out);
+    }
+
+    public void addEnemy(Enemy e) {
+        enemies.add(e);
+        enemyCount = enemies.size();
+        track(e);
+    }
+
+    public void removeEnemy(Enemy e) {
+        enemies.despawn(e);
+        entities.remove(e);
+    }
+
+    public void addBullet(Bullet b) {
+        bullets.add(b);
+    }
+
+    public void removeBullet(Bullet b) {
+        bullets.remove(b);
+    }
+
+    public void addObstacle(Obstacle o) {
+        obstacles.add(o);
+        track(o);
+    }
+
+    public void removeObstacle(Obstacle o) {
+        obstacles.despawn(o);
+        entities.remove(o);
+        consume(o);
+    }
+
+    public void addGift(Gift g) {
+        gifts.add(g);
+        track(g);
+    }
+
+    public void removeGift(Gift g) {
+        gifts.despawn(g);
+        entities.remove(g);
+        consume(g);
+    }
+
+    public void addBomb(Bomb b) {
+        bombs.add(b);
+        track(b);
+    }
+
+    public void removeBomb(Bomb b) {
+        bombs.despawn(b);
+        entities.remove(b);
+        consume(b);
+    }
+
+    public void addArmor(Armor a) {
+        armor.add(a);
+        track(a);
+    }
+
+    public void removeArmor(Armor a) {
+        armor.despawn(a);
+        entities.remove(a);
+        consume(a);
+    }
+
+    // Getters and setters
+    /**
+     * A copy of the maze as codes, for code that still wants an int[][]; null
+     * on a streamed level.
+     */
+    public int[][] getMaze() { return maze == null ? null : maze.toArray(); }
+    /** The maze, or null on a streamed level. */
+    public PackedMaze getPackedMaze() { return maze; }
+    /** The chunks of a streamed level, or null. */
+    public ChunkStreamer getChunks() { return chunks; }
+    public TileGrid getTiles() { return tiles; }
+    public FlowField getFlowField() { return flow; }
+    public CorridorGraph getCorridors() { return corridors; }
+    public SplittableRandom getRandom() { return random; }
+    public VirtualClock getClock() { return clock; }
+    public long getTick() { return tick; }
+    public State getState() { return state; }
+
+    public Hero getPlayer() { return player; }
+    public Checkpoint getCheckpoint() { return checkpoint; }
+    public EndPoint getEndPoint() { return endPoint; }
+
+    public List<Enemy> getEnemies() { return enemies; }
+    public List<Bullet> getBullets() { return bullets; }
+    public List<Gift> getGifts() { return gifts; }
+    public List<Bomb> getBombs() { return bombs; }
+    public List<Armor> getArmor() { return armor; }
+    public List<Obstacle> getObstacles() { return obstacles; }
+    public List<Decorator> getExplosions() { return explosions; }
+
+    public void setObserver(Observer observer) { this.observer = observer; }
+    public void setListener(Listener listener) { this.listener = listener; }
+    public void setTrace(StateTrace trace) { this.trace = trace; }
+}
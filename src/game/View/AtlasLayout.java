@@ -0,0 +1,101 @@
+package game.View;
+
+import java.util.Arrays;
+
+/**
+ * Shelf packer placing rectangles on square atlas pages.
+ *
+ * Items are placed tallest first, left to right on shelves; a shelf is as high
+ * as its first item and a new page is started when a shelf no longer fits.
+ * The layout only computes positions, so the same packing can be checked
+ * without any toolkit.
+ */
+public final class AtlasLayout {
+
+    private final int pageSize;
+    private final int padding;
+    private int[] page = new int[0];
+    private int[] x = new int[0];
+    private int[] y = new int[0];
+    private int pageCount = 0;
+    private long usedArea = 0;
+
+    /**
+     * @param pageSize side of each page in pixels
+     * @param padding empty pixels kept around every item so filtering does not
+     *        bleed neighbours into each other
+     */
+    public AtlasLayout(int pageSize, int padding) {
+        this.pageSize = pageSize;
+        this.padding = padding;
+    }
+
+    /**
+     * Places items of the given sizes, replacing any earlier layout.
+     */
+    public void pack(int[] widths, int[] heights) {
+        int n = widths.length;
+        page = new int[n];
+        x = new int[n];
+        y = new int[n];
+        usedArea = 0;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            if (widths[i] + 2 * padding > pageSize || heights[i] + 2 * padding > pageSize) {
+                throw new IllegalArgumentException("Item " + i + " (" + widths[i] + "x" + heights[i]
+                        + ") does not fit a " + pageSize + " page");
+            }
+        }
+        Arrays.sort(order, (a, b) -> heights[b] != heights[a] ? heights[b] - heights[a] : widths[b] - widths[a]);
+
+        int current = 0, shelfX = 0, shelfY = 0, shelfHeight = 0;
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            int w = widths[i] + 2 * padding, h = heights[i] + 2 * padding;
+            if (shelfX + w > pageSize) {
+                shelfY += shelfHeight;
+                shelfX = 0;
+                shelfHeight = 0;
+            }
+            if (shelfY + h > pageSize) {
+                current++;
+                shelfX = 0;
+                shelfY = 0;
+                shelfHeight = 0;
+            }
+            page[i] = current;
+            x[i] = shelfX + padding;
+            y[i] = shelfY + padding;
+            shelfX += w;
+            shelfHeight = Math.max(shelfHeight, h);
+            usedArea += (long) widths[i] * heights[i];
+        }
+        pageCount = n == 0 ? 0 : current + 1;
+    }
+
+    public int getPage(int i) {
+        return page[i];
+    }
+
+    public int getX(int i) {
+        return x[i];
+    }
+
+    public int getY(int i) {
+        return y[i];
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /** Share of the page area covered by items, in [0, 1]. */
+    public double getFillRatio() {
+        return pageCount == 0 ? 0 : (double) usedArea / ((long) pageCount * pageSize * pageSize);
+    }
+}
@@ -0,0 +1,192 @@
+package game.View;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Works out which parts of an entity layer changed since the last frame.
+ *
+ * Each frame the renderer lists every sprite it would draw, in paint order.
+ * Entities that appeared, disappeared, moved or changed sprite mark their old
+ * and new rectangles dirty; only the dirty rectangles are cleared and only the
+ * entities overlapping them are drawn again, clipped to those rectangles. The
+ * class holds no toolkit state, so the savings can be measured headlessly.
+ */
+public final class DirtyRegions {
+
+    private final int width;
+    private final int height;
+    private boolean full = true;
+
+    // This frame and the one before: entity, sprite and x, y, w, h per entry
+    private Entity[] entities = new Entity[64];
+    private Sprite[] sprites = new Sprite[64];
+    private int[] rects = new int[64 * 4];
+    private boolean[] redraw = new boolean[64];
+    private int count = 0;
+
+    private Entity[] previous = new Entity[64];
+    private Sprite[] previousSprites = new Sprite[64];
+    private int[] previousRects = new int[64 * 4];
+    private boolean[] seen = new boolean[64];
+    private int previousCount = 0;
+    private final IdentityHashMap<Entity, Integer> previousIndex = new IdentityHashMap<>();
+
+    private int[] dirty = new int[64 * 4];
+    private int dirtyCount = 0;
+
+    /**
+     * @param width width of the layer, used when everything is dirty
+     * @param height height of the layer
+     */
+    public DirtyRegions(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Marks the whole layer dirty for the next frame, e.g. after it was
+     * cleared by someone else.
+     */
+    public void invalidate() {
+        full = true;
+    }
+
+    /**
+     * Starts a new frame; the entries of the current one become the previous
+     * frame.
+     */
+    public void begin() {
+        Entity[] e = previous; previous = entities; entities = e;
+        Sprite[] s = previousSprites; previousSprites = sprites; sprites = s;
+        int[] r = previousRects; previousRects = rects; rects = r;
+        previousCount = count;
+        count = 0;
+        dirtyCount = 0;
+        previousIndex.clear();
+        if (seen.length < previousCount) seen = new boolean[previous.length];
+        for (int i = 0; i < previousCount; i++) {
+            previousIndex.put(previous[i], i);
+            seen[i] = false;
+        }
+    }
+
+    public void add(Entity entity, Sprite sprite, int x, int y, int w, int h) {
+        if (count == entities.length) {
+            int capacity = count * 2;
+            entities = Arrays.copyOf(entities, capacity);
+            sprites = Arrays.copyOf(sprites, capacity);
+            rects = Arrays.copyOf(rects, capacity * 4);
+        }
+        entities[count] = entity;
+        sprites[count] = sprite;
+        int p = count * 4;
+        rects[p] = x;
+        rects[p + 1] = y;
+        rects[p + 2] = w;
+        rects[p + 3] = h;
+        count++;
+    }
+
+    /**
+     * Compares this frame's entries with the previous frame and fills in the
+     * dirty rectangles and the entries that have to be drawn again.
+     */
+    public void compute() {
+        if (full) {
+            full = false;
+            addDirty(0, 0, width, height);
+        } else {
+            for (int i = 0; i < count; i++) {
+                Integer index = previousIndex.get(entities[i]);
+                int p = i * 4;
+                if (index == null) {
+                    addDirty(rects[p], rects[p + 1], rects[p + 2], rects[p + 3]);
+                    continue;
+                }
+                int j = index;
+                seen[j] = true;
+                int q = j * 4;
+                if (sprites[i] != previousSprites[j] || rects[p] != previousRects[q] || rects[p + 1] != previousRects[q + 1]
+                        || rects[p + 2] != previousRects[q + 2] || rects[p + 3] != previousRects[q + 3]) {
+                    addDirty(previousRects[q], previousRects[q + 1], previousRects[q + 2], previousRects[q + 3]);
+                    addDirty(rects[p], rects[p + 1], rects[p + 2], rects[p + 3]);
+                }
+            }
+            for (int j = 0; j < previousCount; j++) {
+                if (!seen[j]) {
+                    int q = j * 4;
+                    addDirty(previousRects[q], previousRects[q + 1], previousRects[q + 2], previousRects[q + 3]);
+                }
+            }
+        }
+        if (redraw.length < count) redraw = new boolean[entities.length];
+        for (int i = 0; i < count; i++) {
+            redraw[i] = overlapsDirty(i * 4);
+        }
+    }
+
+    private boolean overlapsDirty(int p) {
+        int x = rects[p], y = rects[p + 1], w = rects[p + 2], h = rects[p + 3];
+        for (int d = 0; d < dirtyCount * 4; d += 4) {
+            if (dirty[d] < x + w && x < dirty[d] + dirty[d + 2] && dirty[d + 1] < y + h && y < dirty[d + 1] + dirty[d + 3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addDirty(int x, int y, int w, int h) {
+        if (w <= 0 || h <= 0) return;
+        if (dirtyCount * 4 == dirty.length) {
+            dirty = Arrays.copyOf(dirty, dirty.length * 2);
+        }
+        int d = dirtyCount * 4;
+        dirty[d] = x;
+        dirty[d + 1] = y;
+        dirty[d + 2] = w;
+        dirty[d + 3] = h;
+        dirtyCount++;
+    }
+
+    public int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    public int getDirtyX(int i) {
+        return dirty[i * 4];
+    }
+
+    public int getDirtyY(int i) {
+        return dirty[i * 4 + 1];
+    }
+
+    public int getDirtyWidth(int i) {
+        return dirty[i * 4 + 2];
+    }
+
+    public int getDirtyHeight(int i) {
+        return dirty[i * 4 + 3];
+    }
+
+    /** Entries added this frame, in paint order. */
+    public int size() {
+        return count;
+    }
+
+    public boolean needsRedraw(int i) {
+        return redraw[i];
+    }
+
+    public Sprite getSprite(int i) {
+        return sprites[i];
+    }
+
+    public int getX(int i) {
+        return rects[i * 4];
+    }
+
+    public int getY(int i) {
+        return rects[i * 4 + 1];
+    }
+}
@@ -1,22 +1,119 @@
 
 package game.View;
 
+import game.Engine.EntityArena;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 
 
-public abstract class Entity {
+public abstract class Entity implements EntityArena.Member {
 
     public int x,y; 
+    // Position at the previous simulation step, for interpolated drawing
+    public int lastX,lastY;
+    // Fraction of a step between the last and current positions being drawn
+    public static float interpolation = 1f;
+    // Collision box relative to the position, fixed per entity type
+    int boxX,boxY,boxWidth,boxHeight;
+    // Handle in the world's arena for this entity type
+    private long handle = EntityArena.NONE;
     
     public Entity(int x, int y) {
         this.x = x;
         this.y = y;
+        this.lastX = x;
+        this.lastY = y;
+    }
+    
+    @Override
+    public long getHandle (){
+    return handle;
+    }
+    
+    @Override
+    public void setHandle (long handle){
+    this.handle = handle;
+    }
+    
+    protected void setBox (int dx, int dy, int width, int height){
+    boxX = dx;
+    boxY = dy;
+    boxWidth = width;
+    boxHeight = height;
+    }
+    
+    public int boxLeft (){
+    return x + boxX;
+    }
+    
+    public int boxTop (){
+    return y + boxY;
+    }
+    
+    public int boxWidth (){
+    return boxWidth;
+    }
+    
+    public int boxHeight (){
+    return boxHeight;
+    }
+    
+    /**
+     * Whether the collision box overlaps the given box. Same half-open edges as
+     * {@link Rectangle#intersects}, without allocating.
+     */
+    public boolean intersects (int left, int top, int width, int height){
+    if (boxWidth <= 0 || boxHeight <= 0 || width <= 0 || height <= 0) return false;
+    int l = x + boxX, t = y + boxY;
+    return l < left + width && left < l + boxWidth && t < top + height && top < t + boxHeight;
+    }
+    
+    public boolean intersects (Entity other){
+    return intersects(other.x + other.boxX, other.y + other.boxY, other.boxWidth, other.boxHeight);
+    }
+    
+    /**
+     * Collision box as a new rectangle; collision code should use
+     * {@link #intersects} instead.
+     */
+    public Rectangle getBounds (){
+    return new Rectangle(x + boxX, y + boxY, boxWidth, boxHeight);
+    }
+    
+    public void savePosition (){
+    lastX = x;
+    lastY = y;
+    }
+    
+    public int drawX (){
+    return lastX + Math.round((x - lastX) * interpolation);
+    }
+    
+    public int drawY (){
+    return lastY + Math.round((y - lastY) * interpolation);
     }
    
     public void Update (){
     }
     
-    public void draw (Graphics2D g2d){
+    /**
+     * Sprite this entity currently shows, or null if it is not drawn. Front
+     * ends draw it at {@link #spriteX()}, {@link #spriteY()}.
+     */
+    public Sprite getSprite (){
+    return null;
+    }
+    
+    public int spriteX (){
+    return drawX();
+    }
+    
+    public int spriteY (){
+    return drawY();
+    }
     
+    public void draw (Graphics2D g2d){
+    Sprite sprite = getSprite();
+    if (sprite != null) g2d.drawImage(SpriteCache.get(sprite), spriteX(), spriteY(), null);
     }
 }
@@ -1,27 +1,34 @@
 package game.View;
-import game.Model.Enemy;
+import game.Controller.Save;
+import game.Controller.SaveWriter;
+import game.Engine.InputLog;
 import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Paths;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
-import javax.swing.JPanel;
+import javax.swing.Timer;
 
 public class Frame extends JFrame{
     static int flagframe=0;
+    // Set when started with a replay file
+    static InputLog replay=null;
     Frame(String name){
     setSize(1200,747);
+    final GameFrame y = replay!=null ? new GameFrame(replay) : flagframe==0 ? new GameFrame() : new GameFrame(PlayerName.name);
     setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
     addWindowListener(new java.awt.event.WindowAdapter() {
     @Override
     public void windowClosing(java.awt.event.WindowEvent windowEvent) {
-          Enemy.Velocity=0;
+          // Pause rather than freezing enemies, so recorded input stays replayable
+          y.getLoop().setPaused(true);
         if (JOptionPane.showConfirmDialog(null, 
             "Are you sure to close this window?", "Really Closing?", 
             JOptionPane.YES_NO_OPTION,
             JOptionPane.QUESTION_MESSAGE) == JOptionPane.YES_OPTION){
-            GameFrame.addtofile();
             System.exit(0);
         }
-                    Enemy.Velocity=3;
+          y.getLoop().setPaused(false);
 
     }
 });
@@ -29,20 +36,25 @@ public class Frame extends JFrame{
     setLayout(null);
     setBackground(Color.BLACK);
     
-    JPanel y=new JPanel();
-    if(flagframe==0)y=new GameFrame();
-    else y=new GameFrame(PlayerName.name);
     y.setBounds(0, 0,908, 747);
-    JPanel x=new JPanel();
-    x=new InfoBar();
+    InfoBar x=new InfoBar(y.getLoop());
     x.setBounds(908, 0, 300, 747);
     
     
+    y.getWorld().setObserver(x);
+    
     add(y);
     add(x);
     setVisible(true);
+    y.start();
+    // Show the achieved loop rates and background save stats in the title bar
+    SaveWriter saves = Save.getWriter();
+    new Timer(1000, e -> setTitle(name + " - " + y.getLoop().getUpdateRate() + " UPS, "
+            + y.getLoop().getRenderRate() + " FPS, save " + String.format("%.1f", saves.getLastLatencyMillis())
+            + " ms (" + saves.getQueueDepth() + " queued)")).start();
     }
-    public static void main(String args[]) {
+    public static void main(String args[]) throws IOException {
+        if (args.length>0) replay=InputLog.load(Paths.get(args[0]));
         Frame x=new Frame("Game");
     }
     
@@ -0,0 +1,107 @@
+package game.View;
+
+import java.io.File;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Every {@link Sprite} packed onto a few JavaFX atlas pages.
+ *
+ * The sprite files are decoded once, copied onto {@link WritableImage} pages
+ * laid out by {@link AtlasLayout} and dropped again, so the renderer holds one
+ * image per page instead of one per sprite, and draws by source rectangle.
+ * Only used from the FX application thread.
+ */
+public final class FxSpriteAtlas {
+
+    public static final int PAGE_SIZE = 256;
+    private static final int PADDING = 1;
+
+    private static WritableImage[] pages;
+    private static final int[] page = new int[Sprite.values().length];
+    private static final int[] x = new int[Sprite.values().length];
+    private static final int[] y = new int[Sprite.values().length];
+    private static final int[] width = new int[Sprite.values().length];
+    private static final int[] height = new int[Sprite.values().length];
+
+    private FxSpriteAtlas() {
+    }
+
+    /**
+     * Decodes and packs every sprite, if that has not happened yet.
+     */
+    public static void load() {
+        if (pages != null) {
+            return;
+        }
+        Sprite[] sprites = Sprite.values();
+        Image[] sources = new Image[sprites.length];
+        for (Sprite sprite : sprites) {
+            Image image = new Image(new File(sprite.getFileName()).toURI().toString());
+            int i = sprite.ordinal();
+            // A missing file draws nothing, like the Swing cache
+            boolean ok = !image.isError() && image.getPixelReader() != null;
+            sources[i] = ok ? image : null;
+            width[i] = ok ? (int) image.getWidth() : 1;
+            height[i] = ok ? (int) image.getHeight() : 1;
+        }
+        AtlasLayout layout = new AtlasLayout(PAGE_SIZE, PADDING);
+        layout.pack(width, height);
+        WritableImage[] packed = new WritableImage[layout.getPageCount()];
+        for (int p = 0; p < packed.length; p++) {
+            packed[p] = new WritableImage(PAGE_SIZE, PAGE_SIZE);
+        }
+        for (int i = 0; i < sprites.length; i++) {
+            page[i] = layout.getPage(i);
+            x[i] = layout.getX(i);
+            y[i] = layout.getY(i);
+            PixelReader reader = sources[i] == null ? null : sources[i].getPixelReader();
+            if (reader != null) {
+                packed[page[i]].getPixelWriter().setPixels(x[i], y[i], width[i], height[i], reader, 0, 0);
+            }
+        }
+        pages = packed;
+    }
+
+    public static Image getPage(int index) {
+        load();
+        return pages[index];
+    }
+
+    public static int getPageCount() {
+        load();
+        return pages.length;
+    }
+
+    public static int getPageIndex(Sprite sprite) {
+        load();
+        return page[sprite.ordinal()];
+    }
+
+    public static int getWidth(Sprite sprite) {
+        load();
+        return width[sprite.ordinal()];
+    }
+
+    public static int getHeight(Sprite sprite) {
+        load();
+        return height[sprite.ordinal()];
+    }
+
+    /**
+     * Draws the sprite at its natural size.
+     */
+    public static void draw(GraphicsContext gc, Sprite sprite, double dx, double dy) {
+        load();
+        int i = sprite.ordinal();
+        draw(gc, sprite, dx, dy, width[i], height[i]);
+    }
+
+    public static void draw(GraphicsContext gc, Sprite sprite, double dx, double dy, double dw, double dh) {
+        load();
+        int i = sprite.ordinal();
+        gc.drawImage(pages[page[i]], x[i], y[i], width[i], height[i], dx, dy, dw, dh);
+    }
+}
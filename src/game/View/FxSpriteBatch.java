@@ -0,0 +1,71 @@
+package game.View;
+
+import java.util.Arrays;
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * Collects sprite draws for one layer and issues them from the atlas pages.
+ *
+ * Draws keep their paint order. Consecutive draws from the same page go out
+ * back to back as source-rectangle blits of that page, so the renderer only
+ * switches images when the page changes; with every game sprite on a single
+ * page a whole frame is one run.
+ */
+public final class FxSpriteBatch {
+
+    private Sprite[] sprites = new Sprite[64];
+    private double[] positions = new double[64 * 2];
+    private int count = 0;
+
+    // Totals since the batch was created
+    private long drawCalls = 0;
+    private long pageSwitches = 0;
+    private long flushes = 0;
+
+    public void draw(Sprite sprite, double x, double y) {
+        if (count == sprites.length) {
+            sprites = Arrays.copyOf(sprites, count * 2);
+            positions = Arrays.copyOf(positions, count * 4);
+        }
+        sprites[count] = sprite;
+        positions[count * 2] = x;
+        positions[count * 2 + 1] = y;
+        count++;
+    }
+
+    /**
+     * Draws everything recorded since the last flush onto {@code gc}.
+     *
+     * @return the number of images drawn
+     */
+    public int flush(GraphicsContext gc) {
+        int current = -1;
+        for (int i = 0; i < count; i++) {
+            int page = FxSpriteAtlas.getPageIndex(sprites[i]);
+            if (page != current) {
+                current = page;
+                pageSwitches++;
+            }
+            FxSpriteAtlas.draw(gc, sprites[i], positions[i * 2], positions[i * 2 + 1]);
+            sprites[i] = null;
+        }
+        int drawn = count;
+        drawCalls += drawn;
+        flushes++;
+        count = 0;
+        return drawn;
+    }
+
+    public long getDrawCalls() {
+        return drawCalls;
+    }
+
+    /** Times a flush had to move to another atlas page, counting its first page. */
+    public long getPageSwitches() {
+        return pageSwitches;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+}
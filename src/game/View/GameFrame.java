@@ -3,151 +3,68 @@ package game.View;
 
 import game.Controller.Load;
 import game.Controller.Save;
-import game.Model.Armor;
-import game.Model.Bomb;
-import game.Model.Checkpoint;
-import game.Model.Decorator;
-import game.Model.EndPoint;
-import game.Model.Enemy;
-import game.Model.Gift;
+import game.Engine.GameLoop;
+import game.Engine.InputLog;
+import game.Engine.InputPolicy;
 import game.Model.Hero;
 import game.Model.KeyAdapt;
-import game.Model.Obstacle;
-import game.Model.Wall;
-import game.Model.Weapon;
+import game.Model.World;
+import java.awt.AWTException;
+import java.awt.BorderLayout;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
 import java.awt.Color;
-import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.awt.ImageCapabilities;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
-import javax.swing.Timer;
+import javax.swing.SwingUtilities;
 
 
-public class GameFrame extends JPanel implements ActionListener, Serializable{
+public class GameFrame extends JPanel implements GameLoop.Handler, World.Listener, Serializable{
     
     public static int enemycount = 8;
-    Timer mainTimer;
-    public static Hero player;
-    public static ArrayList<Enemy> enemies= new ArrayList<Enemy>();
-    public static ArrayList<Weapon> bullets = new ArrayList<Weapon>();
-    public static ArrayList<Wall> wall = new ArrayList<Wall>();
-    public static ArrayList<Gift> gifts = new ArrayList<Gift>();
-    public static ArrayList<Bomb> bombs = new ArrayList<Bomb>();
-    public static ArrayList<Armor> armor = new ArrayList<Armor>();
-    public static ArrayList<Obstacle> obstacles = new ArrayList<Obstacle>();
-    public static ArrayList<String>players = new ArrayList<String>();
+    GameLoop loop = new GameLoop(this, World.STEPS_PER_SECOND, 60);
+    // Heavyweight surface the loop renders to through a BufferStrategy
+    Canvas screen = new Canvas();
+    World world;
+    Hero player;
 
-    Random r = new Random();
-    public static Checkpoint c=null;
     Save s = new Save();
     Load l=new Load();
-    public static EndPoint p = new EndPoint(837,660);
-    
-
-    private int [][]maze = 
-        { {6,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,6},
-          {4,0,1,1,1,0,1,0,0,0,0,0,1,1,0,1,0,1,1,1,1,1,1,1,1,1,1,1,0,2},
-          {3,0,0,0,0,0,1,0,1,1,1,0,0,1,0,1,0,1,0,1,1,1,1,1,0,0,0,1,0,2},
-          {3,0,1,1,0,1,1,0,0,0,1,0,0,1,0,0,7,1,0,0,0,0,0,0,0,0,0,1,0,2},
-          {3,0,1,0,0,0,1,0,1,1,1,1,0,1,1,1,0,0,0,1,1,1,1,1,0,1,0,1,0,2},
-          {3,0,1,0,1,1,1,0,1,0,0,1,0,8,0,0,0,1,1,1,1,1,0,0,0,1,0,1,0,2},
-          {3,0,1,0,0,0,0,0,1,0,0,0,0,1,0,1,0,0,0,1,0,1,0,1,0,1,0,0,0,2},
-          {3,0,1,0,1,1,1,0,1,0,1,0,0,1,0,1,0,1,1,1,0,1,0,1,0,1,1,0,0,2},
-          {3,0,1,0,1,0,0,0,1,0,1,0,0,1,0,1,0,0,0,0,0,0,0,1,0,0,1,1,0,2},
-          {3,0,1,1,1,1,1,0,1,1,1,1,1,1,0,1,0,1,1,1,0,1,0,1,0,0,0,1,0,2},
-          {3,8,0,0,1,0,0,0,0,0,0,0,0,1,0,1,1,1,0,1,0,1,0,1,1,1,1,1,1,2},
-          {3,0,0,1,1,1,1,1,0,1,1,0,0,1,0,0,0,1,0,1,1,1,0,0,0,0,0,0,0,2},
-          {3,0,0,0,0,1,0,0,0,0,1,1,1,1,1,1,0,1,0,0,0,0,0,1,1,0,1,0,0,2},
-          {3,0,1,0,0,1,1,1,0,0,0,0,0,1,0,0,0,1,0,1,0,1,0,1,0,0,1,1,0,2},
-          {3,0,1,0,0,0,0,1,0,0,1,1,1,1,1,1,0,1,1,1,1,1,0,1,1,0,1,0,0,2},
-          {3,1,1,1,1,0,1,1,0,0,1,0,0,8,0,1,0,0,0,1,0,0,0,0,1,0,1,1,1,2},
-          {3,0,1,1,0,0,1,0,0,0,1,0,1,1,0,0,0,0,1,1,1,1,0,1,1,0,0,0,0,2},
-          {3,0,0,1,0,0,1,1,1,0,1,0,0,1,1,1,1,0,1,0,0,1,0,1,0,0,1,0,0,2},
-          {3,0,0,0,0,0,0,0,0,0,1,1,0,1,0,0,0,0,1,0,0,1,0,1,0,1,1,0,0,2},
-          {3,0,1,1,1,0,1,1,0,0,1,0,0,1,0,1,1,1,1,1,0,1,0,1,0,1,0,0,0,2},
-          {3,0,0,0,1,0,1,0,0,1,1,0,1,1,0,1,0,0,0,1,0,0,0,1,0,1,0,0,0,2},
-          {3,0,1,1,1,0,0,0,1,1,1,0,0,1,0,1,1,1,0,0,0,1,1,1,0,1,1,1,0,2},
-          {3,0,0,0,0,0,0,1,1,1,1,1,0,8,0,0,0,1,1,1,0,1,0,0,0,0,0,1,0,2},
-          {6,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,6}
-        };
- 
+    MazeLayer background;
+    // Reused every frame, filled from World.drawables
+    final ArrayList<Entity> drawList = new ArrayList<>();
+    // Corners of the exit hint arrow head
+    final int[] hintX = new int[3], hintY = new int[3];
+    // Input of a new game is recorded; a replay feeds a recording back instead
+    InputLog log;
+    InputPolicy playback;
     
     public GameFrame(){
+    SpriteCache.preload();
+    log = new InputLog(new Random().nextLong(), InputLog.DEFAULT_LEVEL, enemycount, 5, 25);
+    world = log.newWorld();
+    player = world.getPlayer();
+    player.setRecorder(log);
+    loadLevel();
     setFocusable(true);
     setBackground(Color.BLACK);
-    player = new Hero(5,25);
-    addKeyListener(new KeyAdapt(player));
-    mainTimer = new Timer(10,this);
-    mainTimer.start();
-    
-    for (int i = 0 ;i<enemycount ;i++ ){
-        while (true) {
-            int x = r.nextInt(23), y = r.nextInt(29);
-            if (maze[x][y] != 1 && maze[x][y] != 2 && maze[x][y] != 3 && maze[x][y] != 5 && maze[x][y] != 6) {
-                addEnemies(new Enemy((y * 30) -5,(x * 30) -2));
-                break;
-            }
-        }
-    
-    }
-    
-    for (int i = 0 ;i<3;i++ ){
-        while (true) {
-            int x = r.nextInt(23), y = r.nextInt(29);
-            if (maze[x][y] != 1 && maze[x][y] != 2 && maze[x][y] != 3 && maze[x][y] != 5 && maze[x][y] != 6) {
-                addObstacle(new Obstacle((y * 30) -5,(x * 30) -2));
-                break;
-            }
-        }
-    
-    }
-    
-    for (int i = 0 ;i<3 ;i++ ){
-        while (true) {
-            int x = r.nextInt(24), y = r.nextInt(30);
-            if (maze[x][y] != 1 && maze[x][y] != 2 && maze[x][y] != 3 && maze[x][y] != 5 && maze[x][y] != 6) 
-            {
-              gifts.add(new Gift((y * 30) ,(x * 30) ));
-                break;
-            }
-        }
-    
-    }
-    for (int i = 0 ;i<3 ;i++ ){
-        while (true) {
-            int x = r.nextInt(24), y = r.nextInt(30);
-            if (maze[x][y] != 1 && maze[x][y] != 2 && maze[x][y] != 3 && maze[x][y] != 5 && maze[x][y] != 6) 
-            {
-              bombs.add(new Bomb((y * 30) ,(x * 30) ));
-                break;
-            }
-        }
-    
-    }
-    for (int i = 0 ;i<1 ;i++ ){
-        while (true) {
-            int x = r.nextInt(24), y = r.nextInt(30);
-            if (maze[x][y] != 1 && maze[x][y] != 2 && maze[x][y] != 3 && maze[x][y] != 5 && maze[x][y] != 6) 
-            {
-              armor.add(new Armor((y * 30) ,(x * 30) ));
-                break;
-            }
-        }
-    
-    }
+    initScreen();
     
         try {
-            s.savegame(5,25);
-            players.add(PlayerName.name);
+            s.savegame(world,5,25);
         } catch (IOException ex) {
             Logger.getLogger(GameFrame.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -157,180 +74,188 @@ public class GameFrame extends JPanel implements ActionListener, Serializable{
     public GameFrame(String file)
     {
         
-        
-        l.Loadfile(file);
+        long seed = new Random().nextLong();
+        world = new World(seed);
+        if (!l.Loadfile(world,file)) {
+            // Missing or damaged save: say so and start a new game instead
+            JOptionPane.showMessageDialog(null, "Could not load the save \"" + file + "\", starting a new game.",
+                    "Load failed", JOptionPane.ERROR_MESSAGE);
+            world = new World(seed);
+            world.spawnHero(5,25);
+            world.populate(enemycount);
+        }
+        player = world.getPlayer();
+        SpriteCache.preload();
+        loadLevel();
         setFocusable(true);
     setBackground(Color.BLACK);
-    player = new Hero(l.returnPoint().x,l.returnPoint().y);
-    addKeyListener(new KeyAdapt(player));
-    mainTimer = new Timer(10,this);
-    mainTimer.start();
+    initScreen();
         
 
     }
     
-    @Override
-    public void paint(Graphics g){
-    super.paint(g);
-    Graphics2D g2d = (Graphics2D) g;
-    for (int row = 0; row < maze.length; row++) {
-            for (int col = 0; col < maze[0].length; col++) {
-                Wall w= new Wall(30*col, 30*row);
-                
-                 switch (maze[row][col]) {
-                      case 1 : addWall(w); g2d.drawImage(w.getwallImage(1), 30*col, 30*row, null);break;
-                      case 2 : addWall(w); g2d.drawImage(w.getwallImage(2), 30*col, 30*row, null);break;
-                      case 4 : g2d.drawImage(w.getgroundImage(), 30*col, 30*row, null);  player.draw(g2d);break;
-                      case 3 : addWall(w); g2d.drawImage(w.getwallImage(3), 30*col, 30*row, null);break;
-                      case 5 : addWall(w); g2d.drawImage(w.getwallImage(5), 30*col, 30*row, null);break;
-                      case 6 : addWall(w); g2d.drawImage(w.getwallImage(6), 30*col, 30*row, null);break;
-                      case 7 :
-                      {
-                          g2d.drawImage(w.getgroundImage(), 30*col, 30*row, null);
-                       if(player.IsSaved()==0){c= new Checkpoint(30*col, 30*row); c.draw(g2d);
-                                           ;}
-                       else g2d.drawImage(w.getgroundImage(), 30*col, 30*row, null); 
-                      }break;
-                      
-                          
-                      default : g2d.drawImage(w.getgroundImage(), 30*col, 30*row, null); 
-}}}
-    for (int row = 0; row < maze.length; row++) {
-            for (int col = 0; col < maze[0].length; col++) {
-                Wall w= new Wall(30*col, 30*row);
-                
-                 switch (maze[row][col]) {
-                      case 4 : g2d.drawImage(w.getgroundImage(), 30*col, 30*row, null);  player.draw(g2d);break;
-}}}
-                
-    
-        for (int i=0; i < enemies.size();i++){
-        Enemy tempenemy = enemies.get(i);
-            tempenemy.draw(g2d);
-        }
-        for (int i=0; i < bullets.size();i++){
-         Weapon Weap = bullets.get(i);
-            Weap.draw(g2d);
+    /**
+     * Plays back a recorded session in the window at normal speed.
+     */
+    public GameFrame(InputLog replay)
+    {
+        SpriteCache.preload();
+        log = replay;
+        world = replay.newWorld();
+        player = world.getPlayer();
+        playback = replay.playback();
+        loadLevel();
+        setFocusable(true);
+    setBackground(Color.BLACK);
+    initScreen();
     }
-        
-        for (int i=0; i < gifts.size();i++){
-         gifts.get(i).draw(g2d);
+    
+    // The static tile layer only changes with the level
+    private void loadLevel(){
+    world.setListener(this);
+    background = new MazeLayer(world.getPackedMaze());
     }
-        
-        for (int i=0; i < bombs.size();i++){
-            bombs.get(i).draw(g2d);
-            if(bombs.get(i).IsExploded==true) 
-            {
-                
-                Decorator Instanceomb=new Decorator(bombs.get(i).x,bombs.get(i).y);
-                Instanceomb.draw(g2d);
-                
-                bombs.remove(bombs.get(i));
-            }
-        }
-           for (int i=0; i < armor.size();i++){
-         armor.get(i).draw(g2d);
+    
+    private void initScreen(){
+    setLayout(new BorderLayout());
+    screen.setIgnoreRepaint(true);
+    screen.setBackground(Color.BLACK);
+    if (playback == null){
+    screen.addKeyListener(new KeyAdapt(player));
+    addKeyListener(new KeyAdapt(player));
     }
-                      for (int i=0; i < obstacles.size();i++){
-         obstacles.get(i).draw(g2d);
+    add(screen, BorderLayout.CENTER);
     }
-                      
-                      if (Weapon.flag == 1){
-       p.draw(g2d);
-       }
-
-}
-
-    public static void addtofile (){
+    
+    /**
+     * Starts the game loop; the panel must already be showing so the canvas
+     * can get a buffer strategy.
+     */
+    public void start(){
     try {
-        FileWriter f = new FileWriter("players.txt",true);
-        BufferedWriter out = new BufferedWriter(f);
-        for (int i=0 ; i<players.size();i++){
-        out.append(players.get(i));
-        out.newLine();
-        }
-        out.close();
-        f.close();
-        }
-        catch (IOException ex) {
-            Logger.getLogger(GameFrame.class.getName()).log(Level.SEVERE, null, ex);
+        // Ask for page flipping, fall back to whatever AWT can do
+        screen.createBufferStrategy(2, new BufferCapabilities(new ImageCapabilities(true),
+                new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED));
+    } catch (AWTException ex) {
+        screen.createBufferStrategy(2);
     }
+    screen.requestFocus();
+    loop.start();
     }
     
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        player.Update();
-        
-        for (int i=0; i < enemies.size();i++){
-            Enemy temp = enemies.get(i);
-            temp.Update();
-            }
-        
-        for (int i=0; i < bullets.size();i++){
-            Weapon Weap = bullets.get(i);
-            Weap.Update();
-            }
-        
-        repaint();
-        
+    public GameLoop getLoop(){
+    return loop;
     }
     
-    
-    
-    public static void addEnemies(Enemy e){
-    enemies.add(e);
+    public World getWorld(){
+    return world;
     }
     
-    public static void removeEnemies(Enemy e){
-    enemies.remove(e);
+    @Override
+    public void render(float alpha){
+    BufferStrategy strategy = screen.getBufferStrategy();
+    if (strategy == null) return;
+    synchronized (player) {
+    Entity.interpolation = alpha;
+    do {
+        do {
+            Graphics2D g2d = (Graphics2D) strategy.getDrawGraphics();
+            try {
+                draw(g2d);
+            } finally {
+                g2d.dispose();
+            }
+        } while (strategy.contentsRestored());
+        strategy.show();
+    } while (strategy.contentsLost());
     }
-    
-    public static ArrayList<Enemy> getEnemyList(){
-    return enemies;
+    Toolkit.getDefaultToolkit().sync();
     }
     
-    public static void addWeapon(Weapon w){
-   bullets.add(w);
-    }
-    public static void addObstacle(Obstacle w){
-   obstacles.add(w);
-    }
+    public void draw(Graphics2D g2d){
+    g2d.setColor(Color.BLACK);
+    g2d.fillRect(0, 0, screen.getWidth(), screen.getHeight());
+    background.setCheckpointVisible(player.IsSaved()==0);
+    background.draw(g2d, screen);
+    drawList.clear();
+    world.drawables(drawList);
+        for (int i=0; i < drawList.size();i++){
+            drawList.get(i).draw(g2d);
+        }
+    if (world.exitOpen) drawExitHint(g2d);
+
+}
     
-    public static void removeWeapon(Weapon w){
-    bullets.remove(w);
+    // Arrow next to the hero pointing down the shortest way to the open exit
+    private void drawExitHint(Graphics2D g2d){
+    int next = world.exitHint();
+    if (next < 0) return;
+    int cols = world.getTiles().getCols();
+    int cx = player.boxLeft() + player.boxWidth() / 2, cy = player.boxTop() + player.boxHeight() / 2;
+    int dx = Integer.signum(next % cols - Math.floorDiv(cx, World.TILE));
+    int dy = Integer.signum(next / cols - Math.floorDiv(cy, World.TILE));
+    // Tip 24 px out from the centre of the hero's box, head 6 px long
+    int tx = cx + dx * 24, ty = cy + dy * 24;
+    g2d.setColor(Color.YELLOW);
+    g2d.drawLine(cx + dx * 12, cy + dy * 12, tx, ty);
+    hintX[0] = tx; hintX[1] = tx - dx * 6 - dy * 4; hintX[2] = tx - dx * 6 + dy * 4;
+    hintY[0] = ty; hintY[1] = ty - dy * 6 - dx * 4; hintY[2] = ty - dy * 6 + dx * 4;
+    g2d.fillPolygon(hintX, hintY, 3);
     }
-    
-    public static void removeWall(Wall w){
-    wall.remove(w);
+
+    @Override
+    public void update() {
+    synchronized (player) {
+        if (playback != null) playback.apply(world, player);
+        world.step();
     }
-    
-    public static ArrayList<Weapon> getWeaponList(){
-    return bullets;
     }
     
-    public static void addWall(Wall wa){
-    wall.add(wa);
-    }
-
-    public static ArrayList<Wall> getWallList(){
-    return wall;
+    @Override
+    public void checkpointReached(World world, int x, int y) {
+        if (playback != null) return;
+        try {
+            s.savegame(world,x,y);
+        } catch (IOException ex) {
+            Logger.getLogger(GameFrame.class.getName()).log(Level.SEVERE, null, ex);
+        }
     }
     
-    public static ArrayList<Gift> getGiftList(){
-    return gifts;
+    @Override
+    public void finished(World world) {
+    loop.stop();
+    if (playback != null) {
+        SwingUtilities.invokeLater(() -> {
+        JOptionPane.showMessageDialog(null, "Replay finished"+"\n"+"Score :"+world.getFinalScore()
+                +"\n"+"Matches recording :"+log.matches(world));
+        System.exit(0);
+        });
+        return;
     }
-    
-    public static ArrayList<Bomb> getBombList(){
-    return bombs;
+    saveReplay(world);
+    SwingUtilities.invokeLater(() -> {
+    if (world.getState() == World.State.DIED) {
+    JOptionPane.showMessageDialog(null, "      Ops!, You Have Died"+"\n"+"      Good Luck Next Time");
+    } else {
+       int Finaltime=world.getElapsedTime();
+       int FinalScore=world.getFinalScore();
+       System.out.println(FinalScore);
+       JOptionPane.showMessageDialog(null, "      Wow!, You Win"+"\n"+"      Congratulations"+"\n"+"Your time :"+(Finaltime)+"\n"+"Your Score :" +(FinalScore) );
     }
-    public static ArrayList<Armor> getArmorList(){
-    return armor;
+    System.exit(0);
+    });
     }
     
-    public static ArrayList<Obstacle> getObstaclesList(){
-    return obstacles;
+    // Keeps the input of a finished game under replays/ for verification and bug reports
+    private void saveReplay(World world){
+    if (log == null) return;
+    log.finish(world);
+    try {
+        Path dir = Paths.get("replays");
+        Files.createDirectories(dir);
+        log.save(dir.resolve(PlayerName.name + "-" + Long.toHexString(log.getSeed()) + ".mzr"));
+    } catch (IOException ex) {
+        Logger.getLogger(GameFrame.class.getName()).log(Level.SEVERE, null, ex);
     }
-    public static void removeObstacle(Obstacle w){
-    obstacles.remove(w);
     }
 }
@@ -1,8 +1,7 @@
 
 package game.View;
 
-import game.Model.Enemy;
-import game.Model.Weapon;
+import game.Engine.GameLoop;
 import java.awt.Color;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -12,6 +11,7 @@ import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
 
 
 public class InfoBar extends JPanel implements Observer{
@@ -24,8 +24,11 @@ public class InfoBar extends JPanel implements Observer{
     JButton Button;
     ImageIcon IC= new ImageIcon("5644.png");
     public static int t=180;
+    // Paused while the pause dialog is up
+    final GameLoop loop;
     
-    public InfoBar(){
+    public InfoBar(GameLoop loop){
+        this.loop=loop;
         System.out.println("D5l el 2wl");
     setFocusable(true);
     setLayout(null);
@@ -80,10 +83,11 @@ public class InfoBar extends JPanel implements Observer{
     Button.addActionListener(new ActionListener() {
         @Override
         public void actionPerformed(ActionEvent e) {
-              Enemy.Velocity=0;
+              // Pause the loop like closing the window does, so recorded input stays replayable
+              loop.setPaused(true);
         JOptionPane.showMessageDialog(null, " Game Paused ");
                 
-                    Enemy.Velocity=3;
+                    loop.setPaused(false);
         }
         
     });
@@ -91,6 +95,8 @@ public class InfoBar extends JPanel implements Observer{
 
     @Override
     public void HeroUpdate(int hp, int Score,int nobullets, int armorflag,int timeU) {
+        // Called from the game loop's thread; the labels belong to the EDT
+        SwingUtilities.invokeLater(() -> {
         score.setText(String.valueOf(Score));
         NOBullets.setText(String.valueOf(nobullets));
         JBar.setValue(hp);
@@ -99,6 +105,7 @@ public class InfoBar extends JPanel implements Observer{
     else
     armor.setVisible(false);
         time.setText(String.valueOf(timeU));
+        });
     }
     
     @Override
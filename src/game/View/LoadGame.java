@@ -1,12 +1,12 @@
 
 package game.View;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import game.Controller.SaveCatalog;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.nio.file.WatchService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.swing.DefaultListModel;
 
 
 public class LoadGame extends javax.swing.JFrame {
@@ -15,24 +15,43 @@ public class LoadGame extends javax.swing.JFrame {
     
     public LoadGame() {
         initComponents();
-    }
+        // Let go of the catalog and its watch service however the window goes away;
+        // with EXIT_ON_CLOSE the close button never gets as far as windowClosed
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent evt) {
+                stopWatching();
+            }
 
-    DefaultListModel dim = new DefaultListModel();
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent evt) {
+                stopWatching();
+            }
+        });
+    }
 
-    
-    private void printlist() throws FileNotFoundException{
-    File fi = new File("players.txt");
-        Scanner sc = new Scanner(fi);
-        while (sc.hasNextLine()){
-        String str = sc.nextLine();
-        ADD(str);
-        }
+    SaveListModel saves;
+    WatchService watcher;
+
+    // Shows the save catalog; it pages itself in and follows saves changing on disk
+    private void printlist() throws IOException{
+    if (saves != null) return;
+    SaveCatalog catalog = SaveCatalog.getDefault();
+    saves = new SaveListModel(catalog);
+    jList1.setModel(saves);
+    jList1.setCellRenderer(saves.renderer());
+    watcher = catalog.watch(Paths.get("."));
     }
     
-    //add new lines in list
-    private void ADD(String name){
-    jList1.setModel(dim);
-    dim.addElement(name);
+    private void stopWatching(){
+    if (saves == null) return;
+    saves.dispose();
+    saves = null;
+        try {
+            watcher.close();
+        } catch (IOException ex) {
+            Logger.getLogger(LoadGame.class.getName()).log(Level.SEVERE, null, ex);
+        }
     }
     
     @SuppressWarnings("unchecked")
@@ -97,12 +116,13 @@ public class LoadGame extends javax.swing.JFrame {
     private void jButton3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton3ActionPerformed
         try {        
             printlist();
-        } catch (FileNotFoundException ex) {
+        } catch (IOException ex) {
             Logger.getLogger(LoadGame.class.getName()).log(Level.SEVERE, null, ex);
         }
     }//GEN-LAST:event_jButton3ActionPerformed
 
     private void jButton4ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton4ActionPerformed
+        stopWatching();
         Frame f = new Frame ("game");
         f.setVisible(true);
         this.setVisible(false);
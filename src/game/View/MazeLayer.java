@@ -0,0 +1,126 @@
+package game.View;
+
+import game.Engine.PackedMaze;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * Static tile layer of a maze rendered once into an offscreen image.
+ *
+ * The tiles are composed into a {@link BufferedImage} when the level loads and
+ * whenever the checkpoint tile changes. Each frame then costs a single blit,
+ * preferably from a {@link VolatileImage} copy kept in video memory; if no
+ * accelerated surface is available the buffered image is drawn directly.
+ */
+public class MazeLayer {
+
+    public static final int TILE = 30;
+
+    private final PackedMaze maze;
+    private final BufferedImage image;
+    private VolatileImage volatileImage;
+
+    private boolean checkpointVisible = true;
+    private boolean dirty = true;
+    private boolean volatileStale = true;
+    private int renderCount = 0;
+
+    public MazeLayer(PackedMaze maze) {
+        this.maze = maze;
+        this.image = new BufferedImage(maze.getCols() * TILE, maze.getRows() * TILE, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Shows or hides the checkpoint sprite; the layer is redrawn only if this
+     * actually changes what is on screen.
+     */
+    public void setCheckpointVisible(boolean visible) {
+        if (visible != checkpointVisible) {
+            checkpointVisible = visible;
+            invalidate();
+        }
+    }
+
+    /**
+     * Forces the tiles to be recomposed, e.g. after a tile of the maze changed.
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    public void draw(Graphics2D g2d, Component target) {
+        if (dirty) {
+            render();
+        }
+        GraphicsConfiguration gc = target.getGraphicsConfiguration();
+        if (gc == null) {
+            g2d.drawImage(image, 0, 0, null);
+            return;
+        }
+        do {
+            int status = volatileImage == null ? VolatileImage.IMAGE_INCOMPATIBLE : volatileImage.validate(gc);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                volatileImage = gc.createCompatibleVolatileImage(image.getWidth(), image.getHeight());
+                volatileStale = true;
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                volatileStale = true;
+            }
+            if (volatileStale) {
+                Graphics2D vg = volatileImage.createGraphics();
+                vg.drawImage(image, 0, 0, null);
+                vg.dispose();
+                volatileStale = false;
+            }
+            g2d.drawImage(volatileImage, 0, 0, null);
+        } while (volatileImage.contentsLost());
+    }
+
+    private void render() {
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        for (int row = 0; row < maze.getRows(); row++) {
+            for (int col = 0; col < maze.getCols(); col++) {
+                int x = col * TILE, y = row * TILE;
+                int cell = maze.get(row, col);
+                switch (cell) {
+                    case 1: case 2: case 3: case 5: case 6:
+                        g.drawImage(SpriteCache.get(Sprite.forWall(cell)), x, y, null);
+                        break;
+                    case 7:
+                        g.drawImage(SpriteCache.get(Sprite.GROUND), x, y, null);
+                        if (checkpointVisible) {
+                            g.drawImage(SpriteCache.get(Sprite.CHECKPOINT), x, y, null);
+                            g.drawRect(x, y, TILE, TILE);
+                        }
+                        break;
+                    default:
+                        g.drawImage(SpriteCache.get(Sprite.GROUND), x, y, null);
+                }
+            }
+        }
+        g.dispose();
+        dirty = false;
+        volatileStale = true;
+        renderCount++;
+    }
+
+    /**
+     * Number of times the tiles have been composed since the level loaded.
+     */
+    public int getRenderCount() {
+        return renderCount;
+    }
+
+    public int getWidth() {
+        return image.getWidth();
+    }
+
+    public int getHeight() {
+        return image.getHeight();
+    }
+}
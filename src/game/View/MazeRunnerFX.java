@@ -1,5 +1,6 @@
 package game.View;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.scene.Scene;
@@ -13,16 +14,7 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 
 import game.Engine.GameEngine;
-import game.Model.Player;
-import game.Model.Enemy;
-import game.Model.Wall;
-import game.Model.Gift;
-import game.Model.Bomb;
-import game.Model.Armor;
-import game.Model.Obstacle;
-import game.Model.EndPoint;
-import game.Model.Checkpoint;
-import game.Model.Weapon;
+import game.Model.World;
 
 import java.io.File;
 import java.util.Random;
@@ -34,22 +26,23 @@ public class MazeRunnerFX extends Application {
     
     private Stage primaryStage;
     private GameEngine gameEngine;
-    private Player player;
     private MediaPlayer backgroundMusic;
     private boolean musicPlaying = false;
     
     // Game settings
     private static final int GAME_WIDTH = 900;
-    private static final int GAME_HEIGHT = 690;
+    private static final int GAME_HEIGHT = 720;
     private static final int ENEMY_COUNT = 8;
+    private static final String TITLE = "Maze Runner - Modern Edition";
     
     @Override
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
         
         try {
-            // Initialize game engine
-            gameEngine = new GameEngine(GAME_WIDTH, GAME_HEIGHT);
+            // The engine draws and drives the same World the Swing frame uses
+            FxSpriteAtlas.load();
+            gameEngine = new GameEngine(createWorld(), GAME_WIDTH, GAME_HEIGHT);
             
             // Set up the main scene
             Scene scene = new Scene(gameEngine.getGamePane(), GAME_WIDTH, GAME_HEIGHT);
@@ -59,14 +52,11 @@ public class MazeRunnerFX extends Application {
             setupKeyHandling(scene);
             
             // Configure the stage
-            primaryStage.setTitle("Maze Runner - Modern Edition");
+            primaryStage.setTitle(TITLE);
             primaryStage.setScene(scene);
             primaryStage.setResizable(false);
             primaryStage.centerOnScreen();
             
-            // Initialize game objects
-            initializeGame();
-            
             // Start background music
             startBackgroundMusic();
             
@@ -75,6 +65,7 @@ public class MazeRunnerFX extends Application {
             
             // Start the game
             gameEngine.start();
+            showStats();
             
         } catch (Exception e) {
             showError("Error starting game", e.getMessage());
@@ -86,9 +77,7 @@ public class MazeRunnerFX extends Application {
         scene.setOnKeyPressed((KeyEvent event) -> {
             KeyCode code = event.getCode();
             
-            if (player != null) {
-                player.handleKeyPress(code);
-            }
+            gameEngine.keyPressed(code);
             
             // Global key handling
             switch (code) {
@@ -108,117 +97,25 @@ public class MazeRunnerFX extends Application {
         });
         
         scene.setOnKeyReleased((KeyEvent event) -> {
-            if (player != null) {
-                player.handleKeyRelease(event.getCode());
-            }
+            gameEngine.keyReleased(event.getCode());
         });
     }
     
-    private void initializeGame() {
-        // Create player
-        player = new Player(150, 750); // Starting position
-        gameEngine.setPlayer(player);
-        
-        // Add default weapon
-        Weapon defaultWeapon = new Weapon("Pistol", 10, 15, 0.5);
-        player.addWeapon(defaultWeapon);
-        
-        // Create enemies
-        createEnemies();
-        
-        // Create walls and obstacles
-        createWallsAndObstacles();
-        
-        // Create collectibles
-        createCollectibles();
-        
-        // Create endpoint
-        EndPoint endPoint = new EndPoint(837, 660);
-        gameEngine.setEndPoint(endPoint);
-        
-        // Create checkpoint
-        Checkpoint checkpoint = new Checkpoint(450, 450);
-        gameEngine.setCheckpoint(checkpoint);
-    }
-    
-    private void createEnemies() {
-        Random random = new Random();
-        int[][] maze = gameEngine.getMaze();
-        
-        for (int i = 0; i < ENEMY_COUNT; i++) {
-            int x, y;
-            do {
-                x = random.nextInt(23);
-                y = random.nextInt(29);
-            } while (maze[x][y] != 0); // Only place on empty spaces
-            
-            Enemy enemy = new Enemy((y * 30) - 5, (x * 30) - 2);
-            gameEngine.addEnemy(enemy);
-        }
-    }
-    
-    private void createWallsAndObstacles() {
-        int[][] maze = gameEngine.getMaze();
-        
-        for (int row = 0; row < maze.length; row++) {
-            for (int col = 0; col < maze[row].length; col++) {
-                int cell = maze[row][col];
-                double x = col * 30.0;
-                double y = row * 30.0;
-                
-                switch (cell) {
-                    case 1: // Wall
-                        Wall wall = new Wall(x, y);
-                        gameEngine.addWall(wall);
-                        break;
-                    case 7: // Obstacle
-                        Obstacle obstacle = new Obstacle(x, y);
-                        gameEngine.addObstacle(obstacle);
-                        break;
-                }
+    private World createWorld() {
+        World world = new World(new Random().nextLong());
+        world.spawnHero(5, 25);
+        world.populate(ENEMY_COUNT);
+        world.setListener(new World.Listener() {
+            @Override
+            public void checkpointReached(World world, int x, int y) {
             }
-        }
-    }
-    
-    private void createCollectibles() {
-        Random random = new Random();
-        int[][] maze = gameEngine.getMaze();
-        
-        // Create gifts
-        for (int i = 0; i < 5; i++) {
-            int x, y;
-            do {
-                x = random.nextInt(23);
-                y = random.nextInt(29);
-            } while (maze[x][y] != 0);
-            
-            Gift gift = new Gift((y * 30) - 5, (x * 30) - 2);
-            gameEngine.addGift(gift);
-        }
-        
-        // Create bombs
-        for (int i = 0; i < 3; i++) {
-            int x, y;
-            do {
-                x = random.nextInt(23);
-                y = random.nextInt(29);
-            } while (maze[x][y] != 0);
-            
-            Bomb bomb = new Bomb((y * 30) - 5, (x * 30) - 2);
-            gameEngine.addBomb(bomb);
-        }
-        
-        // Create armor
-        for (int i = 0; i < 2; i++) {
-            int x, y;
-            do {
-                x = random.nextInt(23);
-                y = random.nextInt(29);
-            } while (maze[x][y] != 0);
-            
-            Armor armor = new Armor((y * 30) - 5, (x * 30) - 2);
-            gameEngine.addArmor(armor);
-        }
+
+            @Override
+            public void finished(World world) {
+                showResult(world);
+            }
+        });
+        return world;
     }
     
     private void startBackgroundMusic() {
@@ -237,6 +134,21 @@ public class MazeRunnerFX extends Application {
         }
     }
     
+    // Keeps the per-layer draw-call averages in the title bar, refreshed once a second
+    private void showStats() {
+        new AnimationTimer() {
+            private long last = 0;
+
+            @Override
+            public void handle(long now) {
+                if (now - last >= 1_000_000_000L) {
+                    last = now;
+                    primaryStage.setTitle(TITLE + " - " + gameEngine.stats());
+                }
+            }
+        }.start();
+    }
+    
     private void toggleMusic() {
         if (backgroundMusic != null) {
             if (musicPlaying) {
@@ -281,6 +193,22 @@ public class MazeRunnerFX extends Application {
         });
     }
     
+    private void showResult(World world) {
+        Platform.runLater(() -> {
+            Alert alert = new Alert(AlertType.INFORMATION);
+            alert.setTitle("Maze Runner");
+            alert.setHeaderText(null);
+            if (world.getState() == World.State.DIED) {
+                alert.setContentText("Ops!, You Have Died\nGood Luck Next Time");
+            } else {
+                alert.setContentText("Wow!, You Win\nYour time: " + world.getElapsedTime()
+                        + "\nYour Score: " + world.getFinalScore());
+            }
+            alert.showAndWait();
+            Platform.exit();
+        });
+    }
+    
     private void showError(String title, String message) {
         Platform.runLater(() -> {
             Alert alert = new Alert(AlertType.ERROR);
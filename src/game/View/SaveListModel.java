@@ -0,0 +1,88 @@
+package game.View;
+
+import game.Controller.SaveCatalog;
+import java.awt.Component;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.AbstractListModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JList;
+import javax.swing.ListCellRenderer;
+import javax.swing.SwingUtilities;
+
+/**
+ * List of save names backed by the save catalog. Entries are read a page at
+ * a time as the list scrolls to them, and the list refreshes itself when the
+ * catalog changes.
+ */
+public class SaveListModel extends AbstractListModel<String> implements SaveCatalog.Listener {
+
+    private static final int PAGE = 50;
+
+    private final SaveCatalog catalog;
+    private int pageStart = -1;
+    private List<SaveCatalog.Entry> page = Collections.emptyList();
+
+    public SaveListModel(SaveCatalog catalog) {
+        this.catalog = catalog;
+        catalog.addListener(this);
+    }
+
+    @Override
+    public int getSize() {
+        return catalog.size();
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        SaveCatalog.Entry entry = getEntry(index);
+        return entry == null ? null : entry.getName();
+    }
+
+    public SaveCatalog.Entry getEntry(int index) {
+        int start = index - index % PAGE;
+        if (start != pageStart) {
+            try {
+                page = catalog.page(start, PAGE);
+                pageStart = start;
+            } catch (IOException ex) {
+                Logger.getLogger(SaveListModel.class.getName()).log(Level.SEVERE, null, ex);
+                return null;
+            }
+        }
+        int offset = index - pageStart;
+        return offset < page.size() ? page.get(offset) : null;
+    }
+
+    @Override
+    public void catalogChanged(SaveCatalog catalog) {
+        SwingUtilities.invokeLater(() -> {
+            pageStart = -1;
+            fireContentsChanged(this, 0, Math.max(getSize() - 1, 0));
+        });
+    }
+
+    /**
+     * Renders each save with its score, HP and play time.
+     */
+    public ListCellRenderer<Object> renderer() {
+        return new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus) {
+                SaveCatalog.Entry entry = getEntry(index);
+                String text = entry == null ? String.valueOf(value) : String.format("%s   score %d   HP %d   %d:%02d",
+                        entry.getName(), entry.getScore(), entry.getHp(), entry.getPlayTime() / 60, entry.getPlayTime() % 60);
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        };
+    }
+
+    /** Stops following the catalog. */
+    public void dispose() {
+        catalog.removeListener(this);
+    }
+}
@@ -0,0 +1,63 @@
+package game.View;
+
+/**
+ * Logical sprite IDs used by the Swing entities. The file names are an
+ * implementation detail of {@link SpriteCache}; callers only ask for a sprite.
+ */
+public enum Sprite {
+
+    // Maze tiles
+    WALL("123.jpg"),
+    WALL_LEFT("123_1.jpg"),
+    WALL_RIGHT("6789.jpg"),
+    WALL_TOP("357.jpg"),
+    WALL_CORNER("846.jpg"),
+    GROUND("154141.jpg"),
+
+    // Heroes
+    HERO1_RIGHT("player2.png"),
+    HERO1_LEFT("player2_1.png"),
+    HERO2_RIGHT("player1_2.png"),
+    HERO2_LEFT("player1.png"),
+
+    // Enemies
+    ENEMY_RIGHT("Enemy1.png"),
+    ENEMY_LEFT("Enemy2.png"),
+    THIEF_RIGHT("thief2.png"),
+    THIEF_LEFT("thief1.png"),
+
+    // Pickups and props
+    GIFT_HEALTH("health.png"),
+    GIFT_AMMO("1234.png"),
+    BOMB("bomb.png"),
+    BOMB_HEAVY("bomb1.png"),
+    EXPLOSION("explode.png"),
+    OBSTACLE("Tree.png"),
+    ARMOR("armor.png"),
+    CHECKPOINT("Checkpoint.png"),
+    END_POINT("end.jpg"),
+    BULLET("Bullet1.png");
+
+    private final String fileName;
+
+    Sprite(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Maps a wall cell code from the maze array to its tile sprite.
+     */
+    public static Sprite forWall(int cell) {
+        switch (cell) {
+            case 2: return WALL_RIGHT;
+            case 3: return WALL_LEFT;
+            case 5: return WALL_TOP;
+            case 6: return WALL_CORNER;
+            default: return WALL;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package game.View;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.ImageIO;
+
+/**
+ * Process-wide sprite registry. Each {@link Sprite} is decoded from disk once,
+ * converted to an image compatible with the default screen, and shared by every
+ * entity afterwards, so the paint path never touches the filesystem.
+ */
+public final class SpriteCache {
+
+    private static final AtomicReferenceArray<BufferedImage> images =
+            new AtomicReferenceArray<>(Sprite.values().length);
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong bytes = new AtomicLong();
+
+    private SpriteCache() {
+    }
+
+    public static BufferedImage get(Sprite sprite) {
+        BufferedImage image = images.get(sprite.ordinal());
+        if (image != null) {
+            hits.incrementAndGet();
+            return image;
+        }
+        return load(sprite);
+    }
+
+    /**
+     * Decodes every sprite up front so the first frames do not pay for it.
+     */
+    public static void preload() {
+        for (Sprite sprite : Sprite.values()) {
+            get(sprite);
+        }
+    }
+
+    private static synchronized BufferedImage load(Sprite sprite) {
+        BufferedImage image = images.get(sprite.ordinal());
+        if (image != null) {
+            hits.incrementAndGet();
+            return image;
+        }
+        misses.incrementAndGet();
+        image = toCompatible(decode(sprite));
+        bytes.addAndGet(sizeOf(image));
+        images.set(sprite.ordinal(), image);
+        return image;
+    }
+
+    private static BufferedImage decode(Sprite sprite) {
+        try {
+            BufferedImage image = ImageIO.read(new File(sprite.getFileName()));
+            if (image != null) {
+                return image;
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(SpriteCache.class.getName()).log(Level.WARNING, null, ex);
+        }
+        Logger.getLogger(SpriteCache.class.getName()).log(Level.WARNING,
+                "Missing sprite {0} ({1})", new Object[]{sprite, sprite.getFileName()});
+        // Same behaviour as a missing ImageIcon: draw nothing
+        return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private static BufferedImage toCompatible(BufferedImage source) {
+        int transparency = source.getColorModel().getTransparency();
+        BufferedImage target;
+        if (GraphicsEnvironment.isHeadless()) {
+            target = new BufferedImage(source.getWidth(), source.getHeight(),
+                    transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        } else {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            if (source.getColorModel().equals(gc.getColorModel())) {
+                return source;
+            }
+            target = gc.createCompatibleImage(source.getWidth(), source.getHeight(), transparency);
+        }
+        Graphics2D g = target.createGraphics();
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        return target;
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks()
+                * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Approximate pixel memory held by decoded sprites, in bytes.
+     */
+    public static long getMemoryBytes() {
+        return bytes.get();
+    }
+
+    public static String stats() {
+        return "sprites hits=" + hits.get() + " misses=" + misses.get()
+                + " memory=" + (bytes.get() / 1024) + "KB";
+    }
+}